@@ -0,0 +1,136 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.jena.uni.mojo.plugin.pnml.generator.PNMLGenerator;
+import de.jena.uni.mojo.plugin.pnml.generator.PNMLGenerator.Shape;
+import de.jena.uni.mojo.plugin.pnml.parser.PNMLParser;
+import de.jena.uni.mojo.plugin.pnml.parser.PNMLParserPool;
+import de.jena.uni.mojo.plugin.pnml.parser.pnml.PetriNetContext;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.PetriNet;
+import de.jena.uni.mojo.plugin.pnml.petrinet.transformation.PetriNetTransformation;
+
+/**
+ * Provides the petri nets the benchmarks work on. The nets are created by
+ * the {@link PNMLGenerator}; by default they are sequences of alternating xor
+ * and and blocks, so that every phase of the pipeline has some splits and
+ * joins to handle.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public final class BenchmarkNets {
+
+	/**
+	 * No instances.
+	 */
+	private BenchmarkNets() {
+	}
+
+	/**
+	 * Creates a PNML document of the given shape with approximately the given
+	 * number of nodes.
+	 * 
+	 * @param shape
+	 *            The shape of the net.
+	 * @param nodes
+	 *            The number of places and transitions.
+	 * @return The PNML document.
+	 */
+	public static String pnml(Shape shape, int nodes) {
+		return pnml(shape, nodes, 2);
+	}
+
+	/**
+	 * Creates a PNML document of the given shape with approximately the given
+	 * number of nodes and the given number of branches of splits.
+	 * 
+	 * @param shape
+	 *            The shape of the net.
+	 * @param nodes
+	 *            The number of places and transitions.
+	 * @param degree
+	 *            The number of branches of splits.
+	 * @return The PNML document.
+	 */
+	public static String pnml(Shape shape, int nodes, int degree) {
+		StringWriter writer = new StringWriter();
+		try {
+			PNMLGenerator generator = new PNMLGenerator(shape, nodes);
+			generator.setDegree(degree);
+			generator.write(writer);
+		} catch (XMLStreamException e) {
+			throw new IllegalStateException(e);
+		}
+		return writer.toString();
+	}
+
+	/**
+	 * Parses the given PNML document into a petri net.
+	 * 
+	 * @param document
+	 *            The UTF-8 encoded PNML document.
+	 * @return The parsed petri net.
+	 * @throws Exception
+	 *             If the document cannot be parsed.
+	 */
+	public static PetriNet parse(byte[] document) throws Exception {
+		XMLStreamReader xtr = PNMLParserPool
+				.createXMLStreamReader(new ByteArrayInputStream(document));
+		return new PNMLParser().parse(xtr);
+	}
+
+	/**
+	 * Parses and transforms the given PNML document, so that it is ready for
+	 * the workflow graph transformation.
+	 * 
+	 * @param document
+	 *            The UTF-8 encoded PNML document.
+	 * @param simpleEndPlace
+	 *            Whether the simple end place transformation is used.
+	 * @return The transformed petri net.
+	 * @throws Exception
+	 *             If the document cannot be parsed.
+	 */
+	public static PetriNet transform(byte[] document, boolean simpleEndPlace)
+			throws Exception {
+		PetriNet net = parse(document);
+		new PetriNetTransformation().transform(net, new PetriNetContext(),
+				simpleEndPlace);
+		return net;
+	}
+
+	/**
+	 * Encodes a PNML document as UTF-8.
+	 * 
+	 * @param pnml
+	 *            The PNML document.
+	 * @return The encoded document.
+	 */
+	public static byte[] bytes(String pnml) {
+		return pnml.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jena.uni.mojo.plugin.pnml.generator.PNMLGenerator;
+import de.jena.uni.mojo.plugin.pnml.parser.PNMLParser;
+import de.jena.uni.mojo.plugin.pnml.parser.PNMLParserPool;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.PetriNet;
+
+/**
+ * Measures the parsing of PNML documents into petri nets.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PNMLParserBenchmark {
+
+	/**
+	 * The number of nodes of the parsed net.
+	 */
+	@Param({ "100", "1000", "10000", "100000", "1000000" })
+	public int nodes;
+
+	/**
+	 * The shape of the net (see {@link PNMLGenerator.Shape}).
+	 */
+	@Param({ "BLOCKS" })
+	public PNMLGenerator.Shape shape;
+
+	/**
+	 * The encoded PNML document.
+	 */
+	private byte[] document;
+
+	/**
+	 * The file of the document (for the byte level scanner).
+	 */
+	private Path file;
+
+	/**
+	 * Creates the document and its file.
+	 * 
+	 * @throws IOException
+	 *             If the file cannot be written.
+	 */
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		document = BenchmarkNets.bytes(BenchmarkNets.pnml(shape, nodes));
+		file = Files.createTempFile("benchmark", ".pnml");
+		Files.write(file, document);
+	}
+
+	/**
+	 * Deletes the file of the document.
+	 * 
+	 * @throws IOException
+	 *             If the file cannot be deleted.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Parses the document.
+	 * 
+	 * @return The parsed petri net.
+	 * @throws Exception
+	 *             If the document cannot be parsed.
+	 */
+	@Benchmark
+	public PetriNet parse() throws Exception {
+		return new PNMLParser().parse(PNMLParserPool
+				.createXMLStreamReader(new ByteArrayInputStream(document)));
+	}
+
+	/**
+	 * Parses the file of the document with the StAX backend.
+	 * 
+	 * @return The parsed petri nets.
+	 * @throws Exception
+	 *             If the document cannot be parsed.
+	 */
+	@Benchmark
+	public List<PetriNet> parseFile() throws Exception {
+		return new PNMLParser().parseAll(file);
+	}
+
+	/**
+	 * Parses the memory mapped file of the document with the byte level
+	 * scanner.
+	 * 
+	 * @return The parsed petri nets.
+	 * @throws Exception
+	 *             If the document cannot be parsed.
+	 */
+	@Benchmark
+	public List<PetriNet> parseMapped() throws Exception {
+		return new PNMLParser(
+				PNMLParserPool.createEventSource(PNMLParserPool.SCANNER))
+				.parseAll(file);
+	}
+
+	/**
+	 * Parses the document with a parser of the shared pool.
+	 * 
+	 * @return The parsed petri net.
+	 * @throws Exception
+	 *             If the document cannot be parsed.
+	 */
+	@Benchmark
+	public PetriNet parsePooled() throws Exception {
+		PNMLParserPool pool = PNMLParserPool.getShared();
+		PNMLParser parser = pool.borrow();
+		try {
+			return parser.parse(PNMLParserPool
+					.createXMLStreamReader(new ByteArrayInputStream(document)));
+		} finally {
+			pool.release(parser);
+		}
+	}
+}
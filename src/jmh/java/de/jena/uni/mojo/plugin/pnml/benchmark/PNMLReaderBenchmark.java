@@ -0,0 +1,149 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jena.uni.mojo.analysis.information.AnalysisInformation;
+import de.jena.uni.mojo.error.Annotation;
+import de.jena.uni.mojo.plugin.pnml.PNMLConfiguration;
+import de.jena.uni.mojo.plugin.pnml.generator.PNMLGenerator;
+import de.jena.uni.mojo.plugin.pnml.reader.PNMLReader;
+
+/**
+ * Measures the whole pipeline from the PNML document to the workflow graph as
+ * it is run by {@link PNMLReader#analyze()}.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PNMLReaderBenchmark {
+
+	/**
+	 * The number of nodes of the analyzed net.
+	 */
+	@Param({ "100", "1000", "10000", "100000", "1000000" })
+	public int nodes;
+
+	/**
+	 * The shape of the net (see {@link PNMLGenerator.Shape}).
+	 */
+	@Param({ "BLOCKS" })
+	public PNMLGenerator.Shape shape;
+
+	/**
+	 * Whether the document is transformed directly on primitive tables
+	 * instead of the petri net object model.
+	 */
+	@Param({ "false", "true" })
+	public boolean direct;
+
+	/**
+	 * The configuration of the readers.
+	 */
+	private PNMLConfiguration configuration;
+
+	/**
+	 * The PNML document.
+	 */
+	private String document;
+
+	/**
+	 * The PNML document as file.
+	 */
+	private File file;
+
+	/**
+	 * Creates the document.
+	 * 
+	 * @throws Exception
+	 *             If the file cannot be written.
+	 */
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		document = BenchmarkNets.pnml(shape, nodes);
+		configuration = new PNMLConfiguration();
+		configuration.setDirectTransformation(direct);
+		file = File.createTempFile("benchmark", ".pnml");
+		new PNMLGenerator(shape, nodes).write(file);
+	}
+
+	/**
+	 * Deletes the file.
+	 * 
+	 * @throws IOException
+	 *             If the file cannot be deleted.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		if (!file.delete()) {
+			throw new IOException("Cannot delete " + file);
+		}
+	}
+
+	/**
+	 * Analyzes the document.
+	 * 
+	 * @return The annotations of the analysis.
+	 */
+	@Benchmark
+	public List<Annotation> analyze() {
+		PNMLReader reader = new PNMLReader("benchmark", document,
+				new AnalysisInformation(), StandardCharsets.UTF_8);
+		reader.setConfiguration(configuration);
+		return reader.analyze();
+	}
+
+	/**
+	 * Analyzes the document by streaming it from the file.
+	 * 
+	 * @return The annotations of the analysis.
+	 */
+	@Benchmark
+	public List<Annotation> analyzeFile() {
+		PNMLReader reader = new PNMLReader("benchmark", file,
+				new AnalysisInformation());
+		reader.setConfiguration(configuration);
+		return reader.analyze();
+	}
+}
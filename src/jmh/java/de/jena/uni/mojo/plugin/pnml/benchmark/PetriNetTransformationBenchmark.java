@@ -0,0 +1,122 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jena.uni.mojo.plugin.pnml.generator.PNMLGenerator;
+import de.jena.uni.mojo.plugin.pnml.parser.pnml.PetriNetContext;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.PetriNet;
+import de.jena.uni.mojo.plugin.pnml.petrinet.transformation.PetriNetTransformation;
+
+/**
+ * Measures the repair and normalization of parsed petri nets, once with the
+ * simple end place transformation and once with the path based one, each
+ * step by step and fused.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PetriNetTransformationBenchmark {
+
+	/**
+	 * The number of nodes of the transformed net.
+	 */
+	@Param({ "100", "1000", "10000", "100000", "1000000" })
+	public int nodes;
+
+	/**
+	 * The shape of the net (see {@link PNMLGenerator.Shape}).
+	 */
+	@Param({ "BLOCKS" })
+	public PNMLGenerator.Shape shape;
+
+	/**
+	 * Whether the simple end place transformation is used.
+	 */
+	@Param({ "true", "false" })
+	public boolean simpleEndPlace;
+
+	/**
+	 * Whether the fused normalization is used.
+	 */
+	@Param({ "false", "true" })
+	public boolean fused;
+
+	/**
+	 * The encoded PNML document.
+	 */
+	private byte[] document;
+
+	/**
+	 * The freshly parsed net of the current invocation.
+	 */
+	private PetriNet net;
+
+	/**
+	 * Creates the document.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		document = BenchmarkNets.bytes(BenchmarkNets.pnml(shape, nodes));
+	}
+
+	/**
+	 * The transformation changes the net, so each invocation needs its own.
+	 * 
+	 * @throws Exception
+	 *             If the document cannot be parsed.
+	 */
+	@Setup(Level.Invocation)
+	public void parse() throws Exception {
+		net = BenchmarkNets.parse(document);
+	}
+
+	/**
+	 * Transforms the net.
+	 * 
+	 * @return The transformed net.
+	 */
+	@Benchmark
+	public PetriNet transform() {
+		PetriNetTransformation transformation = new PetriNetTransformation();
+		transformation.setFused(fused);
+		return transformation.transform(net, new PetriNetContext(),
+				simpleEndPlace);
+	}
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jena.uni.mojo.model.WorkflowGraph;
+import de.jena.uni.mojo.plugin.pnml.generator.PNMLGenerator;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.CompactPetriNet;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.PetriNet;
+import de.jena.uni.mojo.plugin.pnml.petrinet.transformation.PetriNetWorkflowGraphTransformation;
+
+/**
+ * Measures the transformation of normalized petri nets into workflow graphs.
+ * The nets are normalized with the simple end place transformation so that
+ * the setup stays affordable for the large nets.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WorkflowGraphTransformationBenchmark {
+
+	/**
+	 * The number of nodes of the transformed net.
+	 */
+	@Param({ "100", "1000", "10000", "100000", "1000000" })
+	public int nodes;
+
+	/**
+	 * The shape of the net (see {@link PNMLGenerator.Shape}).
+	 */
+	@Param({ "BLOCKS" })
+	public PNMLGenerator.Shape shape;
+
+	/**
+	 * The normalized net.
+	 */
+	private PetriNet net;
+
+	/**
+	 * The compact representation of the normalized net.
+	 */
+	private CompactPetriNet compact;
+
+	/**
+	 * Parses and normalizes the net once. The workflow graph transformation
+	 * does not change the net.
+	 * 
+	 * @throws Exception
+	 *             If the document cannot be parsed.
+	 */
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		net = BenchmarkNets.transform(
+				BenchmarkNets.bytes(BenchmarkNets.pnml(shape, nodes)), true);
+		compact = CompactPetriNet.of(net);
+	}
+
+	/**
+	 * Transforms the net into a workflow graph.
+	 * 
+	 * @return The workflow graph.
+	 */
+	@Benchmark
+	public WorkflowGraph transform() {
+		return new PetriNetWorkflowGraphTransformation().transform(net);
+	}
+
+	/**
+	 * Transforms the compact net into a workflow graph.
+	 * 
+	 * @return The workflow graph.
+	 */
+	@Benchmark
+	public WorkflowGraph transformCompact() {
+		return new PetriNetWorkflowGraphTransformation().transform(compact);
+	}
+}
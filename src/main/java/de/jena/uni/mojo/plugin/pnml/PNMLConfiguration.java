@@ -0,0 +1,281 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml;
+
+import java.io.Serializable;
+
+/**
+ * The options of the PNML plugin. By default, the options are read from the
+ * system properties with the prefix "mojo.pnml.", e.g.,
+ * -Dmojo.pnml.fusedNormalization=true.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PNMLConfiguration implements Serializable {
+
+	/**
+	 * The serial version UID.
+	 */
+	private static final long serialVersionUID = 2916481203749123844L;
+
+	/**
+	 * The prefix of the system properties.
+	 */
+	public static final String PREFIX = "mojo.pnml.";
+
+	/**
+	 * The system property of the fused normalization.
+	 */
+	public static final String FUSED_NORMALIZATION = PREFIX
+			+ "fusedNormalization";
+
+	/**
+	 * The system property of the direct transformation.
+	 */
+	public static final String DIRECT_TRANSFORMATION = PREFIX
+			+ "directTransformation";
+
+	/**
+	 * The system property of the XML backend.
+	 */
+	public static final String XML_BACKEND = PREFIX + "xmlBackend";
+
+	/**
+	 * The default XML backend (the StAX implementation of the JDK).
+	 */
+	public static final String DEFAULT_XML_BACKEND = "stax";
+
+	/**
+	 * The system property of the directory of the cache of normalized nets.
+	 */
+	public static final String CACHE_DIRECTORY = PREFIX + "cacheDirectory";
+
+	/**
+	 * The system property of the maximal size of the cache of normalized
+	 * nets in bytes.
+	 */
+	public static final String CACHE_SIZE = PREFIX + "cacheSize";
+
+	/**
+	 * The default maximal size of the cache of normalized nets (256 MB).
+	 */
+	public static final long DEFAULT_CACHE_SIZE = 256L << 20;
+
+	/**
+	 * The system property of the maximal number of files of the in-memory
+	 * cache of workflow graphs.
+	 */
+	public static final String GRAPH_CACHE_SIZE = PREFIX + "graphCacheSize";
+
+	/**
+	 * Whether the petri net is normalized by the fused normalization.
+	 */
+	private boolean fusedNormalization = false;
+
+	/**
+	 * Whether the document is transformed directly into primitive tables
+	 * instead of a petri net.
+	 */
+	private boolean directTransformation = false;
+
+	/**
+	 * The XML backend of the parser.
+	 */
+	private String xmlBackend = DEFAULT_XML_BACKEND;
+
+	/**
+	 * The directory of the cache of normalized nets (or null if there is no
+	 * cache).
+	 */
+	private String cacheDirectory = null;
+
+	/**
+	 * The maximal size of the cache of normalized nets in bytes.
+	 */
+	private long cacheSize = DEFAULT_CACHE_SIZE;
+
+	/**
+	 * The maximal number of files of the in-memory cache of workflow graphs
+	 * (0 if there is no cache).
+	 */
+	private int graphCacheSize = 0;
+
+	/**
+	 * Creates a configuration with the default options.
+	 */
+	public PNMLConfiguration() {
+	}
+
+	/**
+	 * Creates a configuration with the options of the system properties.
+	 * Options without a system property have their default value.
+	 * 
+	 * @return The configuration.
+	 */
+	public static PNMLConfiguration fromSystemProperties() {
+		PNMLConfiguration configuration = new PNMLConfiguration();
+		configuration.setFusedNormalization(Boolean.parseBoolean(System
+				.getProperty(FUSED_NORMALIZATION, "false")));
+		configuration.setDirectTransformation(Boolean.parseBoolean(System
+				.getProperty(DIRECT_TRANSFORMATION, "false")));
+		configuration.setXmlBackend(System.getProperty(XML_BACKEND,
+				DEFAULT_XML_BACKEND));
+		configuration.setCacheDirectory(System.getProperty(CACHE_DIRECTORY));
+		configuration.setCacheSize(Long.parseLong(System.getProperty(
+				CACHE_SIZE, String.valueOf(DEFAULT_CACHE_SIZE))));
+		configuration.setGraphCacheSize(Integer.parseInt(System.getProperty(
+				GRAPH_CACHE_SIZE, "0")));
+		return configuration;
+	}
+
+	/**
+	 * Whether the petri net is normalized by the fused normalization (see
+	 * {@link de.jena.uni.mojo.plugin.pnml.petrinet.transformation.PetriNetTransformation#setFused(boolean)}
+	 * ).
+	 * 
+	 * @return Whether the fused normalization is used.
+	 */
+	public boolean isFusedNormalization() {
+		return fusedNormalization;
+	}
+
+	/**
+	 * Set whether the petri net is normalized by the fused normalization.
+	 * 
+	 * @param fusedNormalization
+	 *            Whether the fused normalization is used.
+	 */
+	public void setFusedNormalization(boolean fusedNormalization) {
+		this.fusedNormalization = fusedNormalization;
+	}
+
+	/**
+	 * Whether the document is transformed directly into primitive tables
+	 * (see
+	 * {@link de.jena.uni.mojo.plugin.pnml.petrinet.model.PetriNetTable})
+	 * instead of a petri net. The process elements of the workflow graph are
+	 * the ids of the nodes then.
+	 * 
+	 * @return Whether the direct transformation is used.
+	 */
+	public boolean isDirectTransformation() {
+		return directTransformation;
+	}
+
+	/**
+	 * Set whether the document is transformed directly into primitive
+	 * tables instead of a petri net.
+	 * 
+	 * @param directTransformation
+	 *            Whether the direct transformation is used.
+	 */
+	public void setDirectTransformation(boolean directTransformation) {
+		this.directTransformation = directTransformation;
+	}
+
+	/**
+	 * Get the XML backend of the parser: "stax" (the StAX implementation of
+	 * the JDK), "woodstox", "aalto", "scanner" (the byte level scanner that
+	 * memory maps uncompressed files) or a class name (see
+	 * {@link de.jena.uni.mojo.plugin.pnml.parser.PNMLParserPool#createEventSource(String)}
+	 * ).
+	 * 
+	 * @return The XML backend.
+	 */
+	public String getXmlBackend() {
+		return xmlBackend;
+	}
+
+	/**
+	 * Set the XML backend of the parser.
+	 * 
+	 * @param xmlBackend
+	 *            The XML backend.
+	 */
+	public void setXmlBackend(String xmlBackend) {
+		this.xmlBackend = xmlBackend;
+	}
+
+	/**
+	 * Get the directory of the cache of normalized nets (see
+	 * {@link de.jena.uni.mojo.plugin.pnml.reader.PNMLNetCache}). If there is
+	 * a cache, files that were read before with the same options are not
+	 * parsed and transformed again. Since the cache only stores the ids of
+	 * the nodes, the process elements of the workflow graphs are ids instead
+	 * of nodes whenever there is a cache, whether the nets come from the
+	 * cache or not.
+	 * 
+	 * @return The directory (or null if there is no cache).
+	 */
+	public String getCacheDirectory() {
+		return cacheDirectory;
+	}
+
+	/**
+	 * Set the directory of the cache of normalized nets.
+	 * 
+	 * @param cacheDirectory
+	 *            The directory (or null if there is no cache).
+	 */
+	public void setCacheDirectory(String cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	/**
+	 * Get the maximal size of the cache of normalized nets in bytes.
+	 * 
+	 * @return The maximal size.
+	 */
+	public long getCacheSize() {
+		return cacheSize;
+	}
+
+	/**
+	 * Set the maximal size of the cache of normalized nets in bytes.
+	 * 
+	 * @param cacheSize
+	 *            The maximal size.
+	 */
+	public void setCacheSize(long cacheSize) {
+		this.cacheSize = cacheSize;
+	}
+
+	/**
+	 * Get the maximal number of files of the in-memory cache of workflow
+	 * graphs of the plugin (see
+	 * {@link de.jena.uni.mojo.plugin.pnml.reader.PNMLGraphCache}).
+	 * 
+	 * @return The maximal number of files (0 if there is no cache).
+	 */
+	public int getGraphCacheSize() {
+		return graphCacheSize;
+	}
+
+	/**
+	 * Set the maximal number of files of the in-memory cache of workflow
+	 * graphs of the plugin.
+	 * 
+	 * @param graphCacheSize
+	 *            The maximal number of files (0 if there is no cache).
+	 */
+	public void setGraphCacheSize(int graphCacheSize) {
+		this.graphCacheSize = graphCacheSize;
+	}
+}
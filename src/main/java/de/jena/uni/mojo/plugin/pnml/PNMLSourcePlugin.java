@@ -19,14 +19,16 @@
 package de.jena.uni.mojo.plugin.pnml;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.charset.Charset;
-import java.nio.file.Files;
 
 import de.jena.uni.mojo.analysis.information.AnalysisInformation;
 import de.jena.uni.mojo.interpreter.IdInterpreter;
 import de.jena.uni.mojo.plugin.SourcePlugin;
 import de.jena.uni.mojo.plugin.pnml.interpreter.PNMLIdInterpreter;
+import de.jena.uni.mojo.plugin.pnml.reader.PNMLCompression;
+import de.jena.uni.mojo.plugin.pnml.reader.PNMLGraphCache;
 import de.jena.uni.mojo.plugin.pnml.reader.PNMLReader;
 import de.jena.uni.mojo.reader.Reader;
 
@@ -37,6 +39,66 @@ import de.jena.uni.mojo.reader.Reader;
  */
 public class PNMLSourcePlugin implements SourcePlugin {
 
+	/**
+	 * The configuration of the readers.
+	 */
+	private PNMLConfiguration configuration = PNMLConfiguration
+			.fromSystemProperties();
+
+	/**
+	 * The in-memory cache of the workflow graphs of files (or null if the
+	 * configuration has no graph cache).
+	 */
+	private volatile PNMLGraphCache graphCache = createGraphCache(configuration);
+
+	/**
+	 * Get the configuration of the readers of this plugin. By default, it is
+	 * read from the system properties.
+	 * 
+	 * @return The configuration.
+	 */
+	public PNMLConfiguration getConfiguration() {
+		return configuration;
+	}
+
+	/**
+	 * Set the configuration of the readers of this plugin.
+	 * 
+	 * @param configuration
+	 *            The configuration.
+	 */
+	public void setConfiguration(PNMLConfiguration configuration) {
+		this.configuration = configuration;
+		PNMLGraphCache cache = graphCache;
+		if (cache == null
+				|| cache.getMaxEntries() != configuration.getGraphCacheSize()) {
+			this.graphCache = createGraphCache(configuration);
+		}
+	}
+
+	/**
+	 * Get the in-memory cache of the workflow graphs of the files that were
+	 * read by the readers of this plugin, e.g., to observe its counters.
+	 * 
+	 * @return The cache (or null if the configuration has no graph cache).
+	 */
+	public PNMLGraphCache getGraphCache() {
+		return graphCache;
+	}
+
+	/**
+	 * Creates the in-memory cache of workflow graphs of a configuration.
+	 * 
+	 * @param configuration
+	 *            The configuration.
+	 * @return The cache (or null if the configuration has no graph cache).
+	 */
+	private static PNMLGraphCache createGraphCache(
+			PNMLConfiguration configuration) {
+		int size = configuration.getGraphCacheSize();
+		return size > 0 ? new PNMLGraphCache(size) : null;
+	}
+
 	@Override
 	public String getName() {
 		return "Mojo Source Plugin PNML";
@@ -47,6 +109,14 @@ public class PNMLSourcePlugin implements SourcePlugin {
 		return "1.0";
 	}
 
+	/**
+	 * Get the extension of uncompressed PNML files. The readers of the plugin
+	 * read compressed files (.pnml.gz, .pnml.xz and .pnml.zst) as well, see
+	 * {@link PNMLCompression#isPNMLFileName(String)}, but mojo only finds
+	 * files with this single extension when it searches a directory. Give
+	 * compressed files explicitly or search the directory with
+	 * {@link de.jena.uni.mojo.plugin.pnml.reader.PNMLBatchAnalysis}.
+	 */
 	@Override
 	public String getFileExtension() {
 		return "pnml";
@@ -55,13 +125,40 @@ public class PNMLSourcePlugin implements SourcePlugin {
 	@Override
 	public Reader getReader(String processName, File file, AnalysisInformation information, Charset encoding)
 			throws IOException {
-		String stream = String.join("", Files.readAllLines(file.toPath(), encoding));
-		return new PNMLReader(processName, stream, information, encoding);
+		if (!file.isFile() || !file.canRead()) {
+			throw new FileNotFoundException(file.getPath());
+		}
+		// The file is streamed into the parser during the analysis
+		PNMLReader reader = new PNMLReader(processName, file, information);
+		reader.setConfiguration(configuration);
+		reader.setGraphCache(graphCache);
+		return reader;
 	}
 
 	@Override
 	public Reader getReader(String processName, String stream, AnalysisInformation information, Charset encoding) {
-		return new PNMLReader(processName, stream, information, encoding);
+		PNMLReader reader = new PNMLReader(processName, stream, information,
+				encoding);
+		reader.setConfiguration(configuration);
+		return reader;
+	}
+
+	/**
+	 * Get a reader whose document is pushed in chunks as it arrives (see
+	 * {@link PNMLReader#push(java.nio.ByteBuffer)}). The workflow graphs are
+	 * created by the analysis when the document is complete.
+	 * 
+	 * @param processName
+	 *            The name of the process.
+	 * @param information
+	 *            The analysis information.
+	 * @return The reader.
+	 */
+	public PNMLReader getPushReader(String processName,
+			AnalysisInformation information) {
+		PNMLReader reader = new PNMLReader(processName, information);
+		reader.setConfiguration(configuration);
+		return reader;
 	}
 
 	@Override
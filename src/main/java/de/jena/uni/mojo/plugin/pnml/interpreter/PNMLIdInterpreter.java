@@ -35,8 +35,13 @@ public class PNMLIdInterpreter extends IdInterpreter {
 
 	@Override
 	public String extractId(Object obj) {
-		PNode pnode = (PNode) obj;
-		return pnode.id;
+		if (obj instanceof PNode) {
+			PNode pnode = (PNode) obj;
+			return pnode.id;
+		}
+		// The direct transformation and the cache of normalized nets use the
+		// ids as process elements
+		return String.valueOf(obj);
 	}
 
 	@Override
@@ -0,0 +1,151 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from the ids of nodes to their numbers. It uses open addressing
+ * with linear probing, so that the numbers are not boxed.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+class IdIndex {
+
+	/**
+	 * The keys of the slots (null for free slots).
+	 */
+	private String[] keys = new String[16];
+
+	/**
+	 * The values of the slots.
+	 */
+	private int[] values = new int[16];
+
+	/**
+	 * The number of entries.
+	 */
+	private int size;
+
+	/**
+	 * Get the number of an id.
+	 * 
+	 * @param id
+	 *            The id.
+	 * @return The number (or -1 if there is none).
+	 */
+	int get(String id) {
+		if (id == null) {
+			return -1;
+		}
+		int mask = keys.length - 1;
+		for (int slot = slot(id, mask); keys[slot] != null; slot = (slot + 1)
+				& mask) {
+			if (keys[slot].equals(id)) {
+				return values[slot];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Puts (or replaces) the number of an id.
+	 * 
+	 * @param id
+	 *            The id.
+	 * @param value
+	 *            The number.
+	 */
+	void put(String id, int value) {
+		if (id == null) {
+			return;
+		}
+		if ((size + 1) * 2 > keys.length) {
+			rehash(keys.length * 2);
+		}
+		int mask = keys.length - 1;
+		int slot = slot(id, mask);
+		while (keys[slot] != null) {
+			if (keys[slot].equals(id)) {
+				values[slot] = value;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = id;
+		values[slot] = value;
+		size++;
+	}
+
+	/**
+	 * Get the number of entries.
+	 * 
+	 * @return The number of entries.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all entries. If the tables became large, they are released.
+	 */
+	void clear() {
+		if (keys.length > 1 << 16) {
+			keys = new String[16];
+			values = new int[16];
+		} else {
+			Arrays.fill(keys, null);
+		}
+		size = 0;
+	}
+
+	/**
+	 * Determines the home slot of an id.
+	 * 
+	 * @param id
+	 *            The id.
+	 * @param mask
+	 *            The mask of the table size.
+	 * @return The slot.
+	 */
+	private static int slot(String id, int mask) {
+		int hash = id.hashCode() * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	/**
+	 * Moves all entries into larger tables.
+	 * 
+	 * @param capacity
+	 *            The new number of slots (a power of two).
+	 */
+	private void rehash(int capacity) {
+		String[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new String[capacity];
+		values = new int[capacity];
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+}
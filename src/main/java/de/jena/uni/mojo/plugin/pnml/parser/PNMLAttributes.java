@@ -0,0 +1,41 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+/**
+ * The attributes of the start element that is reported to a
+ * {@link PNMLEventListener}. The values are only decoded if they are
+ * requested, and only while the start element is reported.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public interface PNMLAttributes {
+
+	/**
+	 * Get the value of an attribute without namespace.
+	 * 
+	 * @param localName
+	 *            The local name of the attribute.
+	 * @return The value (or null if the element has no such attribute).
+	 * @throws ParseException
+	 *             If the value cannot be decoded.
+	 */
+	String get(String localName) throws ParseException;
+}
@@ -0,0 +1,1040 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A scanner of PNML documents at the byte level. It reports the elements,
+ * attributes and texts of the document directly to a
+ * {@link PNMLEventListener} without an XML parser: the local names of
+ * elements are compared with the names of the {@link PNMLElement}s as bytes,
+ * only the requested attribute values and the texts of text elements are
+ * decoded. The content of elements that the listener does not need is
+ * skipped by counting the depth of start and end tags only. It is the
+ * backend "scanner" of the {@link PNMLParserPool}.
+ * 
+ * The scanner only scans complete tokens. If the given bytes end within a
+ * tag, a comment or a text, it returns the position of that token, so that
+ * the caller can continue with the next bytes from there. Hence, a document
+ * can be scanned in windows or chunks: files are memory mapped in windows,
+ * streams are read in chunks.
+ * 
+ * The document must be encoded in an encoding in which the markup is ASCII,
+ * e.g., UTF-8 or ISO-8859-1 (the encoding of the XML declaration is used).
+ * The scanner assumes a well-formed document, e.g., it does not check that
+ * end tags match their start tags.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+final class PNMLByteScanner implements PNMLEventSource, PNMLAttributes {
+
+	/**
+	 * The local names of the PNML elements.
+	 */
+	private static final String[] NAMES = { "pnml", "net", "page", "place",
+			"transition", "arc", "referencePlace", "referenceTransition",
+			"name", "initialMarking", "inscription", "text" };
+
+	/**
+	 * The local names of the PNML elements as bytes.
+	 */
+	private static final byte[][] NAME_BYTES = new byte[NAMES.length][];
+
+	/**
+	 * The PNML elements of the local names.
+	 */
+	private static final PNMLElement[] ELEMENTS = new PNMLElement[NAMES.length];
+
+	static {
+		for (int i = 0; i < NAMES.length; i++) {
+			NAME_BYTES[i] = NAMES[i].getBytes(StandardCharsets.US_ASCII);
+			ELEMENTS[i] = PNMLElement.of(NAMES[i]);
+		}
+	}
+
+	/**
+	 * The start of comments.
+	 */
+	private static final byte[] COMMENT = bytes("<!--");
+
+	/**
+	 * The end of comments.
+	 */
+	private static final byte[] COMMENT_END = bytes("-->");
+
+	/**
+	 * The start of character data sections.
+	 */
+	private static final byte[] CDATA = bytes("<![CDATA[");
+
+	/**
+	 * The end of character data sections.
+	 */
+	private static final byte[] CDATA_END = bytes("]]>");
+
+	/**
+	 * The end of processing instructions.
+	 */
+	private static final byte[] PI_END = bytes("?>");
+
+	/**
+	 * The start of the XML declaration.
+	 */
+	private static final byte[] DECLARATION = bytes("<?xml");
+
+	/**
+	 * The encoding attribute of the XML declaration.
+	 */
+	private static final byte[] ENCODING = bytes("encoding");
+
+	/**
+	 * The markup characters that must be encoded as in ASCII.
+	 */
+	private static final String MARKUP = "<?xml version=\"1.0\" encoding='a'?>&#;[]-!/:_";
+
+	/**
+	 * The maximal size of a mapped window of a file.
+	 */
+	private static final long MAPPED_WINDOW = 1L << 30;
+
+	/**
+	 * The initial size of the chunks of streams.
+	 */
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	/**
+	 * The listener the contents are reported to.
+	 */
+	private PNMLEventListener listener;
+
+	/**
+	 * The encoding of the document.
+	 */
+	private Charset charset = StandardCharsets.UTF_8;
+
+	/**
+	 * Whether the start of the document was scanned.
+	 */
+	private boolean started = false;
+
+	/**
+	 * The number of open elements within the element whose content is
+	 * skipped, including this element (0 if no content is skipped).
+	 */
+	private int skipped = 0;
+
+	/**
+	 * The buffer that is currently scanned.
+	 */
+	private ByteBuffer buffer;
+
+	/**
+	 * The number of attributes of the current start element.
+	 */
+	private int attributeCount = 0;
+
+	/**
+	 * The start, end, value start and value end of the local name of each
+	 * attribute of the current start element (attributes with a prefix are
+	 * not kept).
+	 */
+	private int[] attributes = new int[32];
+
+	/**
+	 * A buffer for the bytes of decoded values.
+	 */
+	private byte[] bytes = new byte[256];
+
+	/**
+	 * A buffer for the characters of texts.
+	 */
+	private char[] chars = new char[256];
+
+	/**
+	 * The chunk of streams (created on the first use).
+	 */
+	private byte[] chunk;
+
+	@Override
+	public void parse(Path path, PNMLEventListener listener)
+			throws IOException, ParseException {
+		start(listener);
+		try {
+			FileChannel channel = FileChannel.open(path,
+					StandardOpenOption.READ);
+			try {
+				long size = channel.size();
+				long offset = 0;
+				while (true) {
+					long length = Math.min(size - offset, MAPPED_WINDOW);
+					boolean last = offset + length == size;
+					MappedByteBuffer window = channel.map(
+							FileChannel.MapMode.READ_ONLY, offset, length);
+					int consumed = scan(window, 0, (int) length, last);
+					if (last) {
+						break;
+					}
+					if (consumed == 0) {
+						// A single token is larger than the window
+						throw new ParseException();
+					}
+					offset += consumed;
+				}
+			} finally {
+				channel.close();
+			}
+		} finally {
+			reset();
+		}
+	}
+
+	@Override
+	public void parse(InputStream input, PNMLEventListener listener)
+			throws IOException, ParseException {
+		start(listener);
+		if (chunk == null) {
+			chunk = new byte[CHUNK_SIZE];
+		}
+		try {
+			int filled = 0;
+			while (true) {
+				int read = input.read(chunk, filled, chunk.length - filled);
+				boolean last = read < 0;
+				if (!last) {
+					filled += read;
+				}
+				int consumed = scan(ByteBuffer.wrap(chunk), 0, filled, last);
+				if (last) {
+					break;
+				}
+
+				// Keep the incomplete token for the next chunk
+				filled -= consumed;
+				System.arraycopy(chunk, consumed, chunk, 0, filled);
+				if (filled == chunk.length) {
+					chunk = Arrays.copyOf(chunk, chunk.length * 2);
+				}
+			}
+		} finally {
+			if (chunk.length > CHUNK_SIZE) {
+				// Do not keep the chunk of a large token
+				chunk = null;
+			}
+			reset();
+		}
+	}
+
+	/**
+	 * Scans the bytes of the document from the given position to the limit.
+	 * 
+	 * @param buffer
+	 *            The buffer of the bytes (its position and limit are not
+	 *            used or changed).
+	 * @param position
+	 *            The position of the first byte.
+	 * @param limit
+	 *            The position after the last byte.
+	 * @param last
+	 *            Whether the bytes are the last bytes of the document.
+	 * @return The position of the first byte that was not scanned since its
+	 *         token is incomplete (the limit if all bytes were scanned).
+	 * @throws ParseException
+	 *             If the document contains an error or ends within a token.
+	 */
+	int scan(ByteBuffer buffer, int position, int limit, boolean last)
+			throws ParseException {
+		this.buffer = buffer;
+		try {
+			int pos = position;
+			if (!started) {
+				pos = startDocument(pos, limit, last);
+				if (pos < 0) {
+					return position;
+				}
+			}
+
+			while (pos < limit) {
+				if (buffer.get(pos) == '<') {
+					int end = markup(pos, limit);
+					if (end < 0) {
+						break;
+					}
+					pos = end;
+				} else {
+					// Texts that are not needed are never kept for the next
+					// bytes
+					boolean needed = skipped == 0 && listener.isInText();
+					int end = indexOf((byte) '<', pos, limit);
+					if (end < 0) {
+						if (needed && !last) {
+							break;
+						}
+						end = limit;
+					}
+					if (needed) {
+						text(pos, end, true);
+					}
+					pos = end;
+				}
+			}
+
+			if (last && pos < limit)
+				throw new ParseException();
+
+			return pos;
+		} finally {
+			this.buffer = null;
+			this.attributeCount = 0;
+		}
+	}
+
+	/**
+	 * Starts a new document whose bytes are given by
+	 * {@link #scan(ByteBuffer, int, int, boolean)}.
+	 * 
+	 * @param listener
+	 *            The listener the contents are reported to.
+	 */
+	void start(PNMLEventListener listener) {
+		reset();
+		this.listener = listener;
+	}
+
+	/**
+	 * Determines whether an incomplete token may end within its bytes from
+	 * a position on, i.e., whether the bytes that were added to it may
+	 * complete it. It is a cheap test before the bytes are scanned again:
+	 * markup ends with a '&gt;' (comments, character data sections and
+	 * processing instructions with their end sequence) and texts end before
+	 * a '&lt;'.
+	 * 
+	 * @param bytes
+	 *            The bytes of the token.
+	 * @param from
+	 *            The position of the first added byte.
+	 * @param length
+	 *            The number of bytes.
+	 * @return Whether the token may be complete.
+	 */
+	static boolean mayEnd(byte[] bytes, int from, int length) {
+		if (length == 0) {
+			return false;
+		}
+		byte terminator = bytes[0] == '<' ? (byte) '>' : (byte) '<';
+		for (int i = Math.max(from, 1); i < length; i++) {
+			if (bytes[i] != terminator) {
+				continue;
+			}
+			if (terminator == '<') {
+				return true;
+			}
+			if (startsWith(bytes, length, CDATA)) {
+				if (endsWith(bytes, CDATA.length, i + 1, CDATA_END)) {
+					return true;
+				}
+			} else if (startsWith(bytes, length, COMMENT)) {
+				if (endsWith(bytes, COMMENT.length, i + 1, COMMENT_END)) {
+					return true;
+				}
+			} else if (bytes[1] == '?') {
+				if (endsWith(bytes, 2, i + 1, PI_END)) {
+					return true;
+				}
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Resets the scanner, so that it can scan the next document.
+	 */
+	void reset() {
+		listener = null;
+		charset = StandardCharsets.UTF_8;
+		started = false;
+		skipped = 0;
+		buffer = null;
+		attributeCount = 0;
+	}
+
+	@Override
+	public String get(String localName) throws ParseException {
+		int length = localName.length();
+		for (int a = 0; a < attributeCount; a++) {
+			int start = attributes[4 * a];
+			if (attributes[4 * a + 1] - start != length) {
+				continue;
+			}
+			boolean equal = true;
+			for (int i = 0; i < length && equal; i++) {
+				equal = buffer.get(start + i) == localName.charAt(i);
+			}
+			if (equal) {
+				String value = decode(attributes[4 * a + 2],
+						attributes[4 * a + 3], true);
+				// Normalize the white spaces of the attribute value
+				return value.replace('\t', ' ').replace('\n', ' ')
+						.replace('\r', ' ');
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Scans the start of the document: byte order marks of unsupported
+	 * encodings are rejected, the UTF-8 byte order mark is skipped.
+	 * 
+	 * @param pos
+	 *            The position of the first byte.
+	 * @param limit
+	 *            The position after the last byte.
+	 * @param last
+	 *            Whether the bytes are the last bytes of the document.
+	 * @return The position after the start (or -1 if there are not enough
+	 *         bytes yet).
+	 * @throws ParseException
+	 *             If the document is not encoded in an ASCII compatible
+	 *             encoding.
+	 */
+	private int startDocument(int pos, int limit, boolean last)
+			throws ParseException {
+		if (limit - pos < 4 && !last) {
+			return -1;
+		}
+		int b0 = limit - pos > 0 ? buffer.get(pos) & 0xFF : -1;
+		int b1 = limit - pos > 1 ? buffer.get(pos + 1) & 0xFF : -1;
+		int b2 = limit - pos > 2 ? buffer.get(pos + 2) & 0xFF : -1;
+
+		// UTF-16 and UTF-32 (with or without byte order mark)
+		if (b0 == 0xFE && b1 == 0xFF || b0 == 0xFF && b1 == 0xFE || b0 == 0
+				|| b1 == 0)
+			throw new ParseException();
+
+		started = true;
+		if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+			return pos + 3;
+		}
+		return pos;
+	}
+
+	/**
+	 * Scans the markup at the given position.
+	 * 
+	 * @param pos
+	 *            The position of the '&lt;'.
+	 * @param limit
+	 *            The position after the last byte.
+	 * @return The position after the markup (or -1 if it is incomplete).
+	 * @throws ParseException
+	 *             If the markup contains an error.
+	 */
+	private int markup(int pos, int limit) throws ParseException {
+		if (pos + 1 >= limit) {
+			return -1;
+		}
+		switch (buffer.get(pos + 1)) {
+		case '/': {
+			int end = indexOf((byte) '>', pos + 2, limit);
+			if (end < 0) {
+				return -1;
+			}
+			if (skipped > 0) {
+				skipped--;
+			}
+			if (skipped == 0) {
+				listener.endElement();
+			}
+			return end + 1;
+		}
+		case '?': {
+			int end = indexOf(PI_END, pos + 2, limit);
+			if (end < 0) {
+				return -1;
+			}
+			if (startsWith(pos, end, DECLARATION) == 1) {
+				declaration(pos + DECLARATION.length, end);
+			}
+			return end + PI_END.length;
+		}
+		case '!': {
+			int comment = startsWith(pos, limit, COMMENT);
+			if (comment == 1) {
+				int end = indexOf(COMMENT_END, pos + COMMENT.length, limit);
+				return end < 0 ? -1 : end + COMMENT_END.length;
+			}
+			int cdata = startsWith(pos, limit, CDATA);
+			if (cdata == 1) {
+				int end = indexOf(CDATA_END, pos + CDATA.length, limit);
+				if (end < 0) {
+					return -1;
+				}
+				if (skipped == 0 && listener.isInText()) {
+					text(pos + CDATA.length, end, false);
+				}
+				return end + CDATA_END.length;
+			}
+			if (comment < 0 || cdata < 0) {
+				return -1;
+			}
+			return doctype(pos + 2, limit);
+		}
+		default:
+			return skipped > 0 ? skipTag(pos, limit) : startTag(pos, limit);
+		}
+	}
+
+	/**
+	 * Scans a start tag and reports the element.
+	 * 
+	 * @param pos
+	 *            The position of the '&lt;'.
+	 * @param limit
+	 *            The position after the last byte.
+	 * @return The position after the tag (or -1 if it is incomplete).
+	 * @throws ParseException
+	 *             If the tag contains an error.
+	 */
+	private int startTag(int pos, int limit) throws ParseException {
+		// The name
+		int i = pos + 1;
+		int localName = i;
+		while (true) {
+			if (i >= limit) {
+				return -1;
+			}
+			byte b = buffer.get(i);
+			if (b == ':') {
+				localName = i + 1;
+			} else if (isSpace(b) || b == '/' || b == '>') {
+				break;
+			}
+			i++;
+		}
+		int nameEnd = i;
+
+		// The attributes
+		attributeCount = 0;
+		boolean empty;
+		while (true) {
+			i = skipSpaces(i, limit);
+			if (i >= limit) {
+				return -1;
+			}
+			byte b = buffer.get(i);
+			if (b == '>') {
+				empty = false;
+				i++;
+				break;
+			} else if (b == '/') {
+				if (i + 1 >= limit) {
+					return -1;
+				}
+				if (buffer.get(i + 1) != '>')
+					throw new ParseException();
+				empty = true;
+				i += 2;
+				break;
+			}
+
+			int attribute = i;
+			boolean prefixed = false;
+			while (true) {
+				if (i >= limit) {
+					return -1;
+				}
+				b = buffer.get(i);
+				if (b == ':') {
+					prefixed = true;
+				} else if (b == '=' || isSpace(b)) {
+					break;
+				} else if (b == '>' || b == '/')
+					throw new ParseException();
+				i++;
+			}
+			int attributeEnd = i;
+
+			i = skipSpaces(i, limit);
+			if (i >= limit) {
+				return -1;
+			}
+			if (buffer.get(i) != '=')
+				throw new ParseException();
+			i = skipSpaces(i + 1, limit);
+			if (i >= limit) {
+				return -1;
+			}
+			byte quote = buffer.get(i);
+			if (quote != '"' && quote != '\'')
+				throw new ParseException();
+			int value = i + 1;
+			int valueEnd = indexOf(quote, value, limit);
+			if (valueEnd < 0) {
+				return -1;
+			}
+			i = valueEnd + 1;
+
+			if (!prefixed) {
+				if (4 * attributeCount == attributes.length) {
+					attributes = Arrays.copyOf(attributes,
+							attributes.length * 2);
+				}
+				attributes[4 * attributeCount] = attribute;
+				attributes[4 * attributeCount + 1] = attributeEnd;
+				attributes[4 * attributeCount + 2] = value;
+				attributes[4 * attributeCount + 3] = valueEnd;
+				attributeCount++;
+			}
+		}
+
+		boolean needed = listener.startElement(element(localName, nameEnd),
+				this);
+		attributeCount = 0;
+		if (empty) {
+			listener.endElement();
+		} else if (!needed) {
+			skipped = 1;
+		}
+		return i;
+	}
+
+	/**
+	 * Skips a start tag within a skipped element. Only the depth is counted,
+	 * the name and the attributes are not looked at.
+	 * 
+	 * @param pos
+	 *            The position of the '&lt;'.
+	 * @param limit
+	 *            The position after the last byte.
+	 * @return The position after the tag (or -1 if it is incomplete).
+	 */
+	private int skipTag(int pos, int limit) {
+		byte quote = 0;
+		for (int i = pos + 1; i < limit; i++) {
+			byte b = buffer.get(i);
+			if (quote != 0) {
+				if (b == quote) {
+					quote = 0;
+				}
+			} else if (b == '"' || b == '\'') {
+				quote = b;
+			} else if (b == '>') {
+				if (buffer.get(i - 1) != '/') {
+					skipped++;
+				}
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Scans a document type declaration (it is ignored).
+	 * 
+	 * @param pos
+	 *            The position after the '&lt;!'.
+	 * @param limit
+	 *            The position after the last byte.
+	 * @return The position after the declaration (or -1 if it is
+	 *         incomplete).
+	 */
+	private int doctype(int pos, int limit) {
+		int brackets = 0;
+		byte quote = 0;
+		for (int i = pos; i < limit; i++) {
+			byte b = buffer.get(i);
+			if (quote != 0) {
+				if (b == quote) {
+					quote = 0;
+				}
+			} else if (b == '"' || b == '\'') {
+				quote = b;
+			} else if (b == '[') {
+				brackets++;
+			} else if (b == ']') {
+				brackets--;
+			} else if (b == '>' && brackets == 0) {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Scans the XML declaration and takes over its encoding.
+	 * 
+	 * @param pos
+	 *            The position after the '&lt;?xml'.
+	 * @param end
+	 *            The position of the '?&gt;'.
+	 * @throws ParseException
+	 *             If the encoding is not supported.
+	 */
+	private void declaration(int pos, int end) throws ParseException {
+		int i = indexOf(ENCODING, pos, end);
+		if (i < 0) {
+			return;
+		}
+		i = skipSpaces(i + ENCODING.length, end);
+		if (i >= end || buffer.get(i) != '=')
+			throw new ParseException();
+		i = skipSpaces(i + 1, end);
+		if (i >= end)
+			throw new ParseException();
+		int valueEnd = indexOf(buffer.get(i), i + 1, end);
+		if (valueEnd < 0)
+			throw new ParseException();
+
+		String name = decode(i + 1, valueEnd, false);
+		Charset encoding;
+		try {
+			encoding = Charset.forName(name);
+		} catch (IllegalArgumentException e) {
+			throw new ParseException();
+		}
+		if (!Arrays.equals(MARKUP.getBytes(encoding),
+				MARKUP.getBytes(StandardCharsets.US_ASCII)))
+			throw new ParseException();
+		charset = encoding;
+	}
+
+	/**
+	 * Reports the characters of a text to the listener.
+	 * 
+	 * @param start
+	 *            The position of the first byte.
+	 * @param end
+	 *            The position after the last byte.
+	 * @param references
+	 *            Whether the text contains references (it is no character
+	 *            data section).
+	 * @throws ParseException
+	 *             If the text contains an error.
+	 */
+	private void text(int start, int end, boolean references)
+			throws ParseException {
+		int length = end - start;
+		if (chars.length < length) {
+			chars = new char[Math.max(length, chars.length * 2)];
+		}
+
+		// Plain ASCII texts are copied directly
+		int i = 0;
+		for (; i < length; i++) {
+			byte b = buffer.get(start + i);
+			if (b < 0 || b == '&' || b == '\r') {
+				break;
+			}
+			chars[i] = (char) b;
+		}
+		if (i == length) {
+			listener.characters(chars, 0, length);
+			return;
+		}
+
+		String text = decode(start, end, references);
+		if (text.indexOf('\r') >= 0) {
+			// Normalize the line breaks
+			text = text.replace("\r\n", "\n").replace('\r', '\n');
+		}
+		if (chars.length < text.length()) {
+			chars = new char[text.length()];
+		}
+		text.getChars(0, text.length(), chars, 0);
+		listener.characters(chars, 0, text.length());
+	}
+
+	/**
+	 * Decodes bytes of the document into a string.
+	 * 
+	 * @param start
+	 *            The position of the first byte.
+	 * @param end
+	 *            The position after the last byte.
+	 * @param references
+	 *            Whether entity and character references are resolved.
+	 * @return The string.
+	 * @throws ParseException
+	 *             If a reference cannot be resolved.
+	 */
+	private String decode(int start, int end, boolean references)
+			throws ParseException {
+		int length = end - start;
+		if (bytes.length < length) {
+			bytes = new byte[Math.max(length, bytes.length * 2)];
+		}
+		boolean ascii = true;
+		for (int i = 0; i < length; i++) {
+			byte b = buffer.get(start + i);
+			bytes[i] = b;
+			ascii &= b >= 0;
+		}
+		String value = new String(bytes, 0, length,
+				ascii ? StandardCharsets.ISO_8859_1 : charset);
+		if (references && value.indexOf('&') >= 0) {
+			return resolve(value);
+		}
+		return value;
+	}
+
+	/**
+	 * Resolves the predefined entity references and the character references
+	 * of a string.
+	 * 
+	 * @param value
+	 *            The string.
+	 * @return The string without references.
+	 * @throws ParseException
+	 *             If a reference is unknown.
+	 */
+	private static String resolve(String value) throws ParseException {
+		StringBuilder resolved = new StringBuilder(value.length());
+		int i = 0;
+		for (int amp = value.indexOf('&'); amp >= 0; amp = value.indexOf(
+				'&', i)) {
+			int semicolon = value.indexOf(';', amp);
+			if (semicolon < 0)
+				throw new ParseException();
+			resolved.append(value, i, amp);
+
+			String name = value.substring(amp + 1, semicolon);
+			if (name.equals("lt")) {
+				resolved.append('<');
+			} else if (name.equals("gt")) {
+				resolved.append('>');
+			} else if (name.equals("amp")) {
+				resolved.append('&');
+			} else if (name.equals("quot")) {
+				resolved.append('"');
+			} else if (name.equals("apos")) {
+				resolved.append('\'');
+			} else if (name.startsWith("#")) {
+				try {
+					resolved.appendCodePoint(name.startsWith("#x") ? Integer
+							.parseInt(name.substring(2), 16) : Integer
+							.parseInt(name.substring(1)));
+				} catch (IllegalArgumentException e) {
+					throw new ParseException();
+				}
+			} else
+				throw new ParseException();
+
+			i = semicolon + 1;
+		}
+		resolved.append(value, i, value.length());
+		return resolved.toString();
+	}
+
+	/**
+	 * Looks up the PNML element of a local name.
+	 * 
+	 * @param start
+	 *            The position of the local name.
+	 * @param end
+	 *            The position after the local name.
+	 * @return The element (UNKNOWN if the name is no PNML element).
+	 */
+	private PNMLElement element(int start, int end) {
+		int length = end - start;
+		for (int e = 0; e < NAME_BYTES.length; e++) {
+			byte[] name = NAME_BYTES[e];
+			if (name.length != length) {
+				continue;
+			}
+			// The names consist of letters, so the case is the bit 0x20
+			int i = 0;
+			while (i < length
+					&& (buffer.get(start + i) | 0x20) == (name[i] | 0x20)) {
+				i++;
+			}
+			if (i == length) {
+				return ELEMENTS[e];
+			}
+		}
+		return PNMLElement.UNKNOWN;
+	}
+
+	/**
+	 * Determines whether the bytes at a position start with a prefix.
+	 * 
+	 * @param pos
+	 *            The position.
+	 * @param limit
+	 *            The position after the last byte.
+	 * @param prefix
+	 *            The prefix.
+	 * @return 1 if they start with the prefix, 0 if they do not, and -1 if
+	 *         there are not enough bytes to decide it.
+	 */
+	private int startsWith(int pos, int limit, byte[] prefix) {
+		for (int i = 0; i < prefix.length; i++) {
+			if (pos + i >= limit) {
+				return -1;
+			}
+			if (buffer.get(pos + i) != prefix[i]) {
+				return 0;
+			}
+		}
+		return 1;
+	}
+
+	/**
+	 * Determines whether bytes start with a prefix.
+	 * 
+	 * @param bytes
+	 *            The bytes.
+	 * @param length
+	 *            The number of bytes.
+	 * @param prefix
+	 *            The prefix.
+	 * @return Whether they start with the prefix.
+	 */
+	private static boolean startsWith(byte[] bytes, int length, byte[] prefix) {
+		if (length < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (bytes[i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Determines whether bytes end with a suffix that starts at a position
+	 * or after it.
+	 * 
+	 * @param bytes
+	 *            The bytes.
+	 * @param from
+	 *            The first position of the suffix.
+	 * @param length
+	 *            The number of bytes.
+	 * @param suffix
+	 *            The suffix.
+	 * @return Whether they end with the suffix.
+	 */
+	private static boolean endsWith(byte[] bytes, int from, int length,
+			byte[] suffix) {
+		int start = length - suffix.length;
+		if (start < from) {
+			return false;
+		}
+		for (int i = 0; i < suffix.length; i++) {
+			if (bytes[start + i] != suffix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Finds a byte.
+	 * 
+	 * @param b
+	 *            The byte.
+	 * @param from
+	 *            The position to start with.
+	 * @param limit
+	 *            The position after the last byte.
+	 * @return The position of the byte (or -1 if it is not found).
+	 */
+	private int indexOf(byte b, int from, int limit) {
+		for (int i = from; i < limit; i++) {
+			if (buffer.get(i) == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds a sequence of bytes.
+	 * 
+	 * @param sequence
+	 *            The sequence.
+	 * @param from
+	 *            The position to start with.
+	 * @param limit
+	 *            The position after the last byte.
+	 * @return The position of the sequence (or -1 if it is not found).
+	 */
+	private int indexOf(byte[] sequence, int from, int limit) {
+		for (int i = indexOf(sequence[0], from, limit); i >= 0; i = indexOf(
+				sequence[0], i + 1, limit)) {
+			if (startsWith(i, limit, sequence) == 1) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Skips white spaces.
+	 * 
+	 * @param from
+	 *            The position to start with.
+	 * @param limit
+	 *            The position after the last byte.
+	 * @return The position of the first byte that is no white space (or the
+	 *         limit).
+	 */
+	private int skipSpaces(int from, int limit) {
+		int i = from;
+		while (i < limit && isSpace(buffer.get(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Determines whether a byte is an XML white space.
+	 * 
+	 * @param b
+	 *            The byte.
+	 * @return Whether it is a white space.
+	 */
+	private static boolean isSpace(byte b) {
+		return b == ' ' || b == '\n' || b == '\t' || b == '\r';
+	}
+
+	/**
+	 * Get the ASCII bytes of a string.
+	 * 
+	 * @param string
+	 *            The string.
+	 * @return The bytes.
+	 */
+	private static byte[] bytes(String string) {
+		return string.getBytes(StandardCharsets.US_ASCII);
+	}
+}
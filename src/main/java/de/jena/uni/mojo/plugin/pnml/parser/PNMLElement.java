@@ -0,0 +1,210 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+import java.util.Locale;
+
+/**
+ * The PNML elements the parser knows. Each local name of the xml document is
+ * looked up once into one of these tokens, so that the parser never compares
+ * strings itself.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public enum PNMLElement {
+
+	/**
+	 * The document element.
+	 */
+	PNML,
+
+	/**
+	 * A petri net.
+	 */
+	NET,
+
+	/**
+	 * A page of a petri net. Pages may contain pages.
+	 */
+	PAGE,
+
+	/**
+	 * A place.
+	 */
+	PLACE,
+
+	/**
+	 * A transition.
+	 */
+	TRANSITION,
+
+	/**
+	 * An arc.
+	 */
+	ARC,
+
+	/**
+	 * A reference to a place (on another page).
+	 */
+	REFERENCE_PLACE,
+
+	/**
+	 * A reference to a transition (on another page).
+	 */
+	REFERENCE_TRANSITION,
+
+	/**
+	 * The name of a node.
+	 */
+	NAME,
+
+	/**
+	 * The initial marking of a place.
+	 */
+	INITIAL_MARKING,
+
+	/**
+	 * The inscription of an arc.
+	 */
+	INSCRIPTION,
+
+	/**
+	 * The text of a name, marking or inscription.
+	 */
+	TEXT,
+
+	/**
+	 * Any other element (it is ignored together with its content).
+	 */
+	UNKNOWN;
+
+	/**
+	 * Determines whether this element may appear within the given parent
+	 * element. Elements that may not appear are handled as unknown.
+	 * 
+	 * @param parent
+	 *            The parent element (or null for the document element).
+	 * @return Whether this element is allowed within the parent.
+	 */
+	public boolean isChildOf(PNMLElement parent) {
+		if (parent == null) {
+			return this == PNML;
+		}
+		switch (parent) {
+		case PNML:
+			return this == NET;
+		case NET:
+		case PAGE:
+			return this == PAGE || this == PLACE || this == TRANSITION
+					|| this == ARC || this == REFERENCE_PLACE
+					|| this == REFERENCE_TRANSITION;
+		case PLACE:
+			return this == NAME || this == INITIAL_MARKING;
+		case TRANSITION:
+			return this == NAME;
+		case ARC:
+			return this == INSCRIPTION;
+		case NAME:
+		case INITIAL_MARKING:
+		case INSCRIPTION:
+			return this == TEXT;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Looks up the element with the given local name. The names are matched
+	 * case-insensitively, but the exact spelling is found first.
+	 * 
+	 * @param localName
+	 *            The local name of the xml element.
+	 * @return The element (UNKNOWN if the name is no PNML element).
+	 */
+	public static PNMLElement of(String localName) {
+		switch (localName) {
+		case "pnml":
+			return PNML;
+		case "net":
+			return NET;
+		case "page":
+			return PAGE;
+		case "place":
+			return PLACE;
+		case "transition":
+			return TRANSITION;
+		case "arc":
+			return ARC;
+		case "referencePlace":
+			return REFERENCE_PLACE;
+		case "referenceTransition":
+			return REFERENCE_TRANSITION;
+		case "name":
+			return NAME;
+		case "initialMarking":
+			return INITIAL_MARKING;
+		case "inscription":
+			return INSCRIPTION;
+		case "text":
+			return TEXT;
+		default:
+			return ofIgnoreCase(localName);
+		}
+	}
+
+	/**
+	 * Looks up the element with the given local name in any spelling.
+	 * 
+	 * @param localName
+	 *            The local name of the xml element.
+	 * @return The element (UNKNOWN if the name is no PNML element).
+	 */
+	private static PNMLElement ofIgnoreCase(String localName) {
+		// Lower case names are returned as they are
+		switch (localName.toLowerCase(Locale.ENGLISH)) {
+		case "pnml":
+			return PNML;
+		case "net":
+			return NET;
+		case "page":
+			return PAGE;
+		case "place":
+			return PLACE;
+		case "transition":
+			return TRANSITION;
+		case "arc":
+			return ARC;
+		case "referenceplace":
+			return REFERENCE_PLACE;
+		case "referencetransition":
+			return REFERENCE_TRANSITION;
+		case "name":
+			return NAME;
+		case "initialmarking":
+			return INITIAL_MARKING;
+		case "inscription":
+			return INSCRIPTION;
+		case "text":
+			return TEXT;
+		default:
+			return UNKNOWN;
+		}
+	}
+}
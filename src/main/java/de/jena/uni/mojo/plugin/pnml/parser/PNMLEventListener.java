@@ -0,0 +1,81 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+/**
+ * Receives the elements and texts of a PNML document from a
+ * {@link PNMLEventSource}. The {@link PNMLParser} is the listener of its
+ * event source and interprets the events.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public interface PNMLEventListener {
+
+	/**
+	 * An element starts. If the content of the element is not needed, e.g.,
+	 * for graphics or tool specific information, the event source skips the
+	 * content by counting the depth of the elements within it: it neither
+	 * looks up their names nor decodes their texts, and it reports only the
+	 * end of the element afterwards.
+	 * 
+	 * @param element
+	 *            The PNML element of the local name of the element (see
+	 *            {@link PNMLElement#of(String)}).
+	 * @param attributes
+	 *            The attributes of the element. They can only be read during
+	 *            this call.
+	 * @return Whether the content of the element is needed.
+	 * @throws ParseException
+	 *             If the element cannot be handled.
+	 */
+	boolean startElement(PNMLElement element, PNMLAttributes attributes)
+			throws ParseException;
+
+	/**
+	 * The current element ends.
+	 * 
+	 * @throws ParseException
+	 *             If there is no open element.
+	 */
+	void endElement() throws ParseException;
+
+	/**
+	 * Whether the characters of the current element are needed. Event
+	 * sources should not decode or report characters otherwise.
+	 * 
+	 * @return Whether the characters are needed.
+	 */
+	boolean isInText();
+
+	/**
+	 * Characters of the current element (with normalized line breaks and
+	 * resolved references). The characters of an element may be reported
+	 * in several parts.
+	 * 
+	 * @param characters
+	 *            The array of the characters. It can only be read during
+	 *            this call.
+	 * @param start
+	 *            The position of the first character.
+	 * @param length
+	 *            The number of characters.
+	 */
+	void characters(char[] characters, int start, int length);
+}
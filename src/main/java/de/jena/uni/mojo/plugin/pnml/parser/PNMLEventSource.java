@@ -0,0 +1,70 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * The XML backend of a {@link PNMLParser}. It reads a PNML document and
+ * reports its elements and texts to a {@link PNMLEventListener}. The
+ * backends are the XML stream readers of StAX implementations (see
+ * {@link StAXEventSource}) and the byte level scanner of the plugin. Further
+ * backends can be given by their class name (see
+ * {@link PNMLParserPool#createEventSource(String)}).
+ * 
+ * An event source is used by one parser, so it needs not to be thread-safe.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public interface PNMLEventSource {
+
+	/**
+	 * Reads the document of the input stream and reports its events. The
+	 * stream is not closed.
+	 * 
+	 * @param input
+	 *            The input stream of the (uncompressed) document.
+	 * @param listener
+	 *            The listener.
+	 * @throws IOException
+	 *             If the stream cannot be read.
+	 * @throws ParseException
+	 *             If the document contains an error or the listener fails.
+	 */
+	void parse(InputStream input, PNMLEventListener listener)
+			throws IOException, ParseException;
+
+	/**
+	 * Reads the document of the file and reports its events.
+	 * 
+	 * @param path
+	 *            The path of the (uncompressed) file.
+	 * @param listener
+	 *            The listener.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 * @throws ParseException
+	 *             If the document contains an error or the listener fails.
+	 */
+	void parse(Path path, PNMLEventListener listener) throws IOException,
+			ParseException;
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+/**
+ * Receives the contents of a PNML document from the {@link PNMLParser}. The
+ * parser only reports elements at a valid position: names and initial
+ * markings belong to the last reported place or transition, inscriptions to
+ * the last reported arc. Places, transitions and arcs belong to the last
+ * reported net; a document may contain several nets. The pages of a net are
+ * not reported, their contents belong to the net.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public interface PNMLHandler {
+
+	/**
+	 * A new net starts.
+	 * 
+	 * @param id
+	 *            The id of the net.
+	 * @throws ParseException
+	 *             If the net cannot be handled.
+	 */
+	void net(String id) throws ParseException;
+
+	/**
+	 * A new place of the current net starts.
+	 * 
+	 * @param id
+	 *            The id of the place.
+	 * @throws ParseException
+	 *             If the place cannot be handled.
+	 */
+	void place(String id) throws ParseException;
+
+	/**
+	 * A new transition of the current net starts.
+	 * 
+	 * @param id
+	 *            The id of the transition.
+	 * @throws ParseException
+	 *             If the transition cannot be handled.
+	 */
+	void transition(String id) throws ParseException;
+
+	/**
+	 * A reference node of the current net (a reference place or a reference
+	 * transition). It stands for the node it refers to, i.e., arcs that are
+	 * connected to the reference are connected to that node. The referred
+	 * node may be a reference itself and it may be reported later.
+	 * 
+	 * @param id
+	 *            The id of the reference node.
+	 * @param ref
+	 *            The id of the node it refers to.
+	 * @throws ParseException
+	 *             If the reference cannot be handled.
+	 */
+	void reference(String id, String ref) throws ParseException;
+
+	/**
+	 * A new arc of the current net starts. Its nodes may be reported later.
+	 * 
+	 * @param id
+	 *            The id of the arc.
+	 * @param source
+	 *            The id of the source node.
+	 * @param target
+	 *            The id of the target node.
+	 * @throws ParseException
+	 *             If the arc cannot be handled.
+	 */
+	void arc(String id, String source, String target) throws ParseException;
+
+	/**
+	 * The name of the current place or transition.
+	 * 
+	 * @param name
+	 *            The name.
+	 * @throws ParseException
+	 *             If the name cannot be handled.
+	 */
+	void name(String name) throws ParseException;
+
+	/**
+	 * The initial marking of the current place.
+	 * 
+	 * @param marking
+	 *            The initial marking.
+	 * @throws ParseException
+	 *             If the marking cannot be handled.
+	 */
+	void initialMarking(int marking) throws ParseException;
+
+	/**
+	 * The inscription of the current arc.
+	 * 
+	 * @param inscription
+	 *            The inscription.
+	 * @throws ParseException
+	 *             If the inscription cannot be handled.
+	 */
+	void inscription(int inscription) throws ParseException;
+
+	/**
+	 * The current net ends. The nodes of the net are not visible in the
+	 * next net.
+	 * 
+	 * @throws ParseException
+	 *             If the net is incomplete, e.g., an arc refers to a node
+	 *             that does not exist.
+	 */
+	void endNet() throws ParseException;
+
+	/**
+	 * The document ends.
+	 * 
+	 * @throws ParseException
+	 *             If the document is incomplete, e.g., it has no net.
+	 */
+	void endDocument() throws ParseException;
+}
@@ -18,399 +18,526 @@
  */
 package de.jena.uni.mojo.plugin.pnml.parser;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.NoSuchElementException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
-import de.jena.uni.mojo.plugin.pnml.petrinet.model.Arc;
-import de.jena.uni.mojo.plugin.pnml.petrinet.model.PNode;
 import de.jena.uni.mojo.plugin.pnml.petrinet.model.PetriNet;
-import de.jena.uni.mojo.plugin.pnml.petrinet.model.Place;
-import de.jena.uni.mojo.plugin.pnml.petrinet.model.Transition;
 
 /**
  * This is a simple (inofficial) PNML file parser. Since PNML is XML based, we
  * read each file as an XML stream and interpret each information.
  * 
+ * The parser is a small state machine: The local name of each start element
+ * is looked up once into a {@link PNMLElement} and the stack of open elements
+ * decides what the element means. Elements that are unknown or that appear at
+ * a place where they do not belong are ignored together with their content;
+ * the event source skips their content without looking at it.
+ * Pages are flattened: their nodes and arcs belong to the net, and reference
+ * nodes are reported, so that the handler can resolve them to the nodes they
+ * refer to.
+ * The meaningful elements are reported to a {@link PNMLHandler}, by default to
+ * a {@link PetriNetBuilder}.
+ * 
+ * The events of the document come from the {@link PNMLEventSource} of the
+ * parser, i.e., from its XML backend. By default, the backend is the StAX
+ * implementation of the shared xml input factory (see
+ * {@link PNMLParserPool#createEventSource(String)} for the other backends).
+ * XML streams can always be parsed directly.
+ * 
  * @author Dipl.-Inf. Thomas M. Prinz
  * 
  */
 public class PNMLParser {
 
 	/**
-	 * An array list of petri nets which were parsed.
+	 * The builder of the petri nets.
 	 */
-	private final ArrayList<PetriNet> nets = new ArrayList<PetriNet>();
+	private final PetriNetBuilder builder = new PetriNetBuilder();
 
 	/**
-	 * A map that stores for each id of a node a corresponding petri net node.
+	 * The handler of the document that is currently parsed.
 	 */
-	private final HashMap<String, PNode> nodes = new HashMap<String, PNode>();
+	private PNMLHandler handler;
 
 	/**
-	 * A list of temporary arcs between the nodes.
+	 * The stack of the open elements.
 	 */
-	private final ArrayList<TemporaryArc> tempArcs = new ArrayList<TemporaryArc>();
+	private PNMLElement[] open = new PNMLElement[16];
 
 	/**
-	 * Starts to parse the petri net which is given by the XML stream.
-	 * 
-	 * @param stream
-	 *            The XML stream.
-	 * @return A petri net.
-	 * @throws XMLStreamException
-	 *             If the XML stream contains an error.
-	 * @throws ParseException
-	 *             If the PNML file contains an error.
+	 * The number of open elements.
 	 */
-	public PetriNet parse(XMLStreamReader stream) throws XMLStreamException,
-			ParseException {
+	private int depth = 0;
 
-		// Parse the file till the end is reached
-		try {
-			while (stream.hasNext()) {
-				next(stream);
+	/**
+	 * The characters of the current text element.
+	 */
+	private char[] text = new char[64];
 
-				if ("pnml".equalsIgnoreCase(stream.getLocalName())) {
-					next(stream);
-					nets.add(parsePNML(stream));
-				}
-			}
-		} catch (NoSuchElementException ex) {
-			// ex.printStackTrace();
-		} catch (XMLStreamException ex) {
-			ex.printStackTrace();
-		} catch (ParseException ex) {
-			ex.printStackTrace();
-		}
+	/**
+	 * The number of characters of the current text element.
+	 */
+	private int textLength = 0;
 
-		if (nets.size() > 1)
-			throw new ParseException();
+	/**
+	 * The event source of the documents.
+	 */
+	private final PNMLEventSource source;
 
-		PetriNet net = nets.get(0);
+	/**
+	 * The listener that receives the events of the documents.
+	 */
+	private final PNMLEventListener listener = new PNMLEventListener() {
 
-		// Create real arcs
-		for (TemporaryArc temp : tempArcs) {
-			PNode source = nodes.get(temp.source);
-			PNode target = nodes.get(temp.target);
+		@Override
+		public boolean startElement(PNMLElement element,
+				PNMLAttributes attributes) throws ParseException {
+			return PNMLParser.this.startElement(element, attributes);
+		}
 
-			net.add(new Arc(temp.id, source, target, temp.marking));
+		@Override
+		public void endElement() throws ParseException {
+			PNMLParser.this.endElement();
+		}
 
-			source.successors.add(target);
-			target.predecessors.add(source);
+		@Override
+		public boolean isInText() {
+			return PNMLParser.this.isInText();
 		}
 
-		tempArcs.clear();
+		@Override
+		public void characters(char[] characters, int start, int length) {
+			if (textLength + length > text.length) {
+				text = Arrays.copyOf(text,
+						Math.max(textLength + length, text.length * 2));
+			}
+			System.arraycopy(characters, start, text, textLength, length);
+			textLength += length;
+		}
+	};
 
-		return net;
+	/**
+	 * The constructor defines a new parser that reads documents with the
+	 * shared xml input factory.
+	 */
+	public PNMLParser() {
+		this(new StAXEventSource(PNMLParserPool.getInputFactory()));
 	}
 
 	/**
-	 * Parses a PNML XML tag.
+	 * The constructor defines a new parser that reads documents with the
+	 * given event source.
 	 * 
-	 * @param stream
-	 *            The XML stream.
-	 * @return A petri net since in each PNML tag is a petri net.
-	 * @throws XMLStreamException
-	 *             If the XML stream contains an error.
-	 * @throws ParseException
-	 *             If the PNML file contains an error.
+	 * @param source
+	 *            The event source. It is used by this parser only.
 	 */
-	private PetriNet parsePNML(XMLStreamReader stream)
-			throws XMLStreamException, ParseException {
-		PetriNet petriNet = null;
+	public PNMLParser(PNMLEventSource source) {
+		this.source = source;
+	}
 
-		while ("net".equalsIgnoreCase(stream.getLocalName())) {
-			String id = stream.getAttributeValue(null, "id");
-			next(stream);
-			petriNet = parseNet(stream, id);
-		}
+	/**
+	 * Get the event source of the documents.
+	 * 
+	 * @return The event source.
+	 */
+	public PNMLEventSource getEventSource() {
+		return source;
+	}
 
-		return petriNet;
+	/**
+	 * Get the listener that receives the events of the documents (for
+	 * documents that are pushed, see {@link PNMLPushParser}).
+	 * 
+	 * @return The listener.
+	 */
+	PNMLEventListener getListener() {
+		return listener;
 	}
 
 	/**
-	 * Parses the net XML tag.
+	 * Starts to parse the petri net which is given by the XML stream. The
+	 * document must contain exactly one net.
 	 * 
 	 * @param stream
 	 *            The XML stream.
-	 * @param id
-	 *            The id of the net.
-	 * @return A petri net since each petri net is within its own net tag.
+	 * @return A petri net.
 	 * @throws XMLStreamException
 	 *             If the XML stream contains an error.
 	 * @throws ParseException
-	 *             If the PNML file contains an error.
+	 *             If the PNML file contains an error or more than one net.
 	 */
-	private PetriNet parseNet(XMLStreamReader stream, String id)
-			throws XMLStreamException, ParseException {
-		PetriNet petriNet = new PetriNet(id);
-
-		while ("place".equalsIgnoreCase(stream.getLocalName())
-				|| "transition".equalsIgnoreCase(stream.getLocalName())
-				|| "arc".equalsIgnoreCase(stream.getLocalName())) {
-
-			if ("place".equalsIgnoreCase(stream.getLocalName())) {
-				petriNet.add(parsePlace(petriNet, stream));
-			} else if ("transition".equalsIgnoreCase(stream.getLocalName())) {
-				petriNet.add(parseTransition(stream));
-			} else if ("arc".equalsIgnoreCase(stream.getLocalName())) {
-				parseArc(stream);
-			} else {
-				throw new ParseException();
-			}
-		}
+	public PetriNet parse(XMLStreamReader stream) throws XMLStreamException,
+			ParseException {
+		List<PetriNet> nets = parseAll(stream);
+		if (nets.size() != 1)
+			throw new ParseException();
 
-		return petriNet;
+		return nets.get(0);
 	}
 
 	/**
-	 * Parses an petri net arc.
+	 * Parses all petri nets of the document which is given by the XML
+	 * stream. Each net has its own nodes and arcs.
 	 * 
 	 * @param stream
 	 *            The XML stream.
+	 * @return The petri nets in the order of the document.
 	 * @throws XMLStreamException
 	 *             If the XML stream contains an error.
 	 * @throws ParseException
 	 *             If the PNML file contains an error.
 	 */
-	private void parseArc(XMLStreamReader stream) throws XMLStreamException,
-			ParseException {
-		// Parse the id of the arc
-		String id = stream.getAttributeValue(null, "id");
-
-		// Parse the source of the arc
-		String source = stream.getAttributeValue(null, "source");
-
-		// Parse the target of the arc
-		String target = stream.getAttributeValue(null, "target");
-
-		// Create a new arc
-		TemporaryArc temp = new TemporaryArc(id, source, target);
-
-		// Add the arc to the list
-		tempArcs.add(temp);
-
-		// Read the next symbol
-		next(stream);
-
-		while ("inscription".equalsIgnoreCase(stream.getLocalName())) {
-			next(stream);
-			temp.marking = parseInscription(stream);
-		}
+	public List<PetriNet> parseAll(XMLStreamReader stream)
+			throws XMLStreamException, ParseException {
+		parse(stream, builder);
+		return builder.getNets();
 	}
 
 	/**
-	 * Parses the inscription.
+	 * Parses the PNML document which is given by the XML stream and reports
+	 * its contents to the given handler.
 	 * 
 	 * @param stream
 	 *            The XML stream.
-	 * @return The parsed marking.
+	 * @param handler
+	 *            The handler.
 	 * @throws XMLStreamException
 	 *             If the XML stream contains an error.
 	 * @throws ParseException
 	 *             If the PNML file contains an error.
 	 */
-	private int parseInscription(XMLStreamReader stream)
+	public void parse(XMLStreamReader stream, PNMLHandler handler)
 			throws XMLStreamException, ParseException {
-		if ("text".equalsIgnoreCase(stream.getLocalName())) {
-			String marking = stream.getElementText();
-
-			// Read the next
-			next(stream);
-
-			return Integer.parseInt(marking);
-		} else {
-			throw new ParseException();
+		startDocument(handler);
+		try {
+			StAXEventSource.parse(stream, listener);
+			endDocument();
+		} finally {
+			this.handler = null;
 		}
 	}
 
 	/**
-	 * Parses a transition.
+	 * Parses all petri nets of the document of the input stream with the
+	 * event source of the parser (see {@link #parse(InputStream, PNMLHandler)}
+	 * ).
 	 * 
-	 * @param stream
-	 *            The XML stream.
-	 * @return A transition.
-	 * @throws XMLStreamException
-	 *             If the XML stream contains an error.
+	 * @param input
+	 *            The input stream of the document.
+	 * @return The petri nets in the order of the document.
+	 * @throws IOException
+	 *             If the stream cannot be read.
 	 * @throws ParseException
 	 *             If the PNML file contains an error.
 	 */
-	private Transition parseTransition(XMLStreamReader stream)
-			throws XMLStreamException, ParseException {
-		// Parse the id of the transition
-		String id = stream.getAttributeValue(null, "id");
-
-		// Create a new transition
-		Transition transition = new Transition(id);
-
-		// Add the node to the list
-		nodes.put(id, transition);
-
-		// Read the next symbol
-		next(stream);
+	public List<PetriNet> parseAll(InputStream input) throws IOException,
+			ParseException {
+		parse(input, builder);
+		return builder.getNets();
+	}
 
-		while ("name".equalsIgnoreCase(stream.getLocalName())) {
-			next(stream);
-			transition.setName(parseName(stream));
+	/**
+	 * Parses the document of the input stream with the event source of the
+	 * parser and reports its contents to the given handler. The stream is not
+	 * closed.
+	 * 
+	 * @param input
+	 *            The input stream of the (uncompressed) document.
+	 * @param handler
+	 *            The handler.
+	 * @throws IOException
+	 *             If the stream cannot be read.
+	 * @throws ParseException
+	 *             If the PNML file contains an error.
+	 */
+	public void parse(InputStream input, PNMLHandler handler)
+			throws IOException, ParseException {
+		startDocument(handler);
+		try {
+			source.parse(input, listener);
+			endDocument();
+		} finally {
+			this.handler = null;
 		}
-
-		return transition;
 	}
 
 	/**
-	 * Parses a place.
+	 * Parses all petri nets of the given file with the event source of the
+	 * parser (see {@link #parse(Path, PNMLHandler)}).
 	 * 
-	 * @param net
-	 *            The petri net this place belongs to.
-	 * @param stream
-	 *            The XML stream.
-	 * @return A place.
-	 * @throws XMLStreamException
-	 *             If the XML stream contains an error.
+	 * @param path
+	 *            The path of the file.
+	 * @return The petri nets in the order of the document.
+	 * @throws IOException
+	 *             If the file cannot be read.
 	 * @throws ParseException
 	 *             If the PNML file contains an error.
 	 */
-	private Place parsePlace(PetriNet net, XMLStreamReader stream)
-			throws XMLStreamException, ParseException {
-		// Parse the id of the place
-		String id = stream.getAttributeValue(null, "id");
-
-		// Create a new place
-		Place place = new Place(id);
+	public List<PetriNet> parseAll(Path path) throws IOException,
+			ParseException {
+		parse(path, builder);
+		return builder.getNets();
+	}
 
-		// Add the node to the list
-		nodes.put(id, place);
+	/**
+	 * Parses the given file with the event source of the parser and reports
+	 * its contents to the given handler. The byte level scanner memory maps
+	 * the file, the StAX backends read it as a stream.
+	 * 
+	 * @param path
+	 *            The path of the (uncompressed) file.
+	 * @param handler
+	 *            The handler.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 * @throws ParseException
+	 *             If the PNML file contains an error.
+	 */
+	public void parse(Path path, PNMLHandler handler) throws IOException,
+			ParseException {
+		startDocument(handler);
+		try {
+			source.parse(path, listener);
+			endDocument();
+		} finally {
+			this.handler = null;
+		}
+	}
 
-		// Read the next symbol
-		next(stream);
+	/**
+	 * Starts a new document.
+	 * 
+	 * @param handler
+	 *            The handler of the document.
+	 */
+	void startDocument(PNMLHandler handler) {
+		this.handler = handler;
+		Arrays.fill(open, 0, depth, null);
+		depth = 0;
+		textLength = 0;
+	}
 
-		while ("name".equalsIgnoreCase(stream.getLocalName())
-				|| "initialMarking".equalsIgnoreCase(stream.getLocalName())) {
+	/**
+	 * Ends the document.
+	 * 
+	 * @throws ParseException
+	 *             If the document is incomplete.
+	 */
+	void endDocument() throws ParseException {
+		if (depth != 0)
+			throw new ParseException();
 
-			if ("name".equalsIgnoreCase(stream.getLocalName())) {
-				next(stream);
-				place.setName(parseName(stream));
-			} else if ("initialMarking".equalsIgnoreCase(stream.getLocalName())) {
-				next(stream);
-				place.setMarking(parseMarking(stream));
+		handler.endDocument();
+	}
 
-				net.addInitial(place);
-			}
+	/**
+	 * Handles the start of an element.
+	 * 
+	 * @param element
+	 *            The element of the local name of the start element.
+	 * @param attributes
+	 *            The attributes of the start element.
+	 * @return Whether the content of the element is needed, i.e., whether
+	 *         it is a known element at a valid position.
+	 * @throws ParseException
+	 *             If the PNML file contains an error.
+	 */
+	private boolean startElement(PNMLElement element, PNMLAttributes attributes)
+			throws ParseException {
+		PNMLElement parent = depth == 0 ? null : open[depth - 1];
+		if (parent == PNMLElement.UNKNOWN || !element.isChildOf(parent)) {
+			element = PNMLElement.UNKNOWN;
 		}
 
-		return place;
+		if (depth == open.length) {
+			open = Arrays.copyOf(open, depth * 2);
+		}
+		open[depth++] = element;
+
+		switch (element) {
+		case NET:
+			handler.net(attributes.get("id"));
+			break;
+		case PLACE:
+			handler.place(attributes.get("id"));
+			break;
+		case TRANSITION:
+			handler.transition(attributes.get("id"));
+			break;
+		case REFERENCE_PLACE:
+		case REFERENCE_TRANSITION:
+			handler.reference(attributes.get("id"), attributes.get("ref"));
+			break;
+		case ARC:
+			handler.arc(attributes.get("id"), attributes.get("source"),
+					attributes.get("target"));
+			break;
+		case TEXT:
+			textLength = 0;
+			break;
+		case UNKNOWN:
+			return false;
+		default:
+			break;
+		}
+		return true;
 	}
 
 	/**
-	 * Parses the name of an PNML element.
+	 * Handles the end of the current element.
 	 * 
-	 * @param stream
-	 *            The XML stream.
-	 * @return The name of the element.
-	 * @throws XMLStreamException
-	 *             If the XML stream contains an error.
 	 * @throws ParseException
 	 *             If the PNML file contains an error.
 	 */
-	private String parseName(XMLStreamReader stream) throws XMLStreamException,
-			ParseException {
-		if ("text".equalsIgnoreCase(stream.getLocalName())) {
-			String name = stream.getElementText();
-
-			// Read the next
-			next(stream);
-
-			return name;
-		} else {
+	private void endElement() throws ParseException {
+		if (depth == 0)
 			throw new ParseException();
+
+		PNMLElement element = open[--depth];
+
+		switch (element) {
+		case NET:
+			handler.endNet();
+			break;
+		case TEXT:
+			text(open[depth - 1]);
+			break;
+		default:
+			break;
 		}
 	}
 
 	/**
-	 * Parses the marking of the place.
+	 * Whether the current element is a text element, i.e., whether its
+	 * characters are needed.
 	 * 
-	 * @param stream
-	 *            The XML stream.
-	 * @return The number of tokens on the place.
-	 * @throws XMLStreamException
-	 *             If the XML stream contains an error.
+	 * @return Whether the current element is a text element.
+	 */
+	private boolean isInText() {
+		return depth > 0 && open[depth - 1] == PNMLElement.TEXT;
+	}
+
+	/**
+	 * Handles the content of the current text element.
+	 * 
+	 * @param parent
+	 *            The element the text belongs to.
 	 * @throws ParseException
 	 *             If the PNML file contains an error.
 	 */
-	private int parseMarking(XMLStreamReader stream) throws XMLStreamException,
-			ParseException {
-		if ("text".equalsIgnoreCase(stream.getLocalName())) {
-			String marking = stream.getElementText();
+	private void text(PNMLElement parent) throws ParseException {
+		switch (parent) {
+		case NAME:
+			handler.name(new String(text, 0, textLength));
+			break;
+		case INITIAL_MARKING:
+			handler.initialMarking(parseNumber());
+			break;
+		case INSCRIPTION:
+			handler.inscription(parseNumber());
+			break;
+		default:
+			break;
+		}
+	}
 
-			// Read the next
-			next(stream);
+	/**
+	 * Parses the content of the current text element as number.
+	 * 
+	 * @return The number.
+	 * @throws ParseException
+	 *             If the text is no number.
+	 */
+	private int parseNumber() throws ParseException {
+		return parseNumber(text, 0, textLength);
+	}
 
-			return Integer.parseInt(marking);
-		} else {
+	/**
+	 * Parses characters as decimal number without creating a string. White
+	 * spaces before and after the number are ignored, the number may have a
+	 * sign.
+	 * 
+	 * @param characters
+	 *            The array of the characters.
+	 * @param start
+	 *            The position of the first character.
+	 * @param length
+	 *            The number of characters.
+	 * @return The number.
+	 * @throws ParseException
+	 *             If the characters are no number or the number does not fit
+	 *             into an int.
+	 */
+	static int parseNumber(char[] characters, int start, int length)
+			throws ParseException {
+		int i = start;
+		int end = start + length;
+		while (i < end && isSpace(characters[i])) {
+			i++;
+		}
+		while (end > i && isSpace(characters[end - 1])) {
+			end--;
+		}
+		if (i == end)
 			throw new ParseException();
+
+		boolean negative = characters[i] == '-';
+		if (negative || characters[i] == '+') {
+			i++;
+			if (i == end)
+				throw new ParseException();
+		}
+
+		// Accumulate negatively, so that the minimal int can be parsed
+		int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+		int minimum = limit / 10;
+		int number = 0;
+		for (; i < end; i++) {
+			int digit = characters[i] - '0';
+			if (digit < 0 || digit > 9 || number < minimum)
+				throw new ParseException();
+			number *= 10;
+			if (number < limit + digit)
+				throw new ParseException();
+			number -= digit;
 		}
+		return negative ? number : -number;
 	}
 
 	/**
-	 * Reads in the next XML element (tag).
+	 * Determines whether a character is an XML white space.
 	 * 
-	 * @param stream
-	 *            The XML stream
-	 * @throws XMLStreamException
-	 *             If the XML stream contains an error.
+	 * @param c
+	 *            The character.
+	 * @return Whether it is a white space.
 	 */
-	private void next(XMLStreamReader stream) throws XMLStreamException {
-		do {
-			stream.next();
-		} while (stream.isStartElement() == false);
+	private static boolean isSpace(char c) {
+		return c == ' ' || c == '\n' || c == '\t' || c == '\r';
 	}
 
 	/**
-	 * A temporary arc.
-	 * 
-	 * @author Dipl.-Inf. Thomas M. Prinz
+	 * Resets the parser, so that it can parse the next document. The maps
+	 * keep their capacity.
+	 */
+	public void reset() {
+		builder.reset();
+		Arrays.fill(open, 0, depth, null);
+		depth = 0;
+		textLength = 0;
+	}
+
+	/**
+	 * Get the number of nodes of the last parsed document.
 	 * 
+	 * @return The number of nodes.
 	 */
-	private class TemporaryArc {
-
-		/**
-		 * The id of the arc.
-		 */
-		public final String id;
-
-		/**
-		 * The source of the arc.
-		 */
-		public final String source;
-
-		/**
-		 * The target of the arc.
-		 */
-		public final String target;
-
-		/**
-		 * The marking on this arc.
-		 */
-		public int marking;
-
-		/**
-		 * The constructor of a simple temporary arc.
-		 * 
-		 * @param id
-		 *            The id.
-		 * @param source
-		 *            The source.
-		 * @param target
-		 *            The target.
-		 */
-		public TemporaryArc(String id, String source, String target) {
-			this.id = id;
-			this.source = source;
-			this.target = target;
-		}
+	int getNodeCount() {
+		return builder.getNodeCount();
 	}
 }
@@ -0,0 +1,298 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A thread-safe pool of PNML parsers together with a shared, preconfigured
+ * xml input factory. Looking up a new factory and creating new parsers is
+ * expensive compared to the parsing of small nets, so both are reused.
+ * 
+ * The parsers of a pool have the same XML backend (see
+ * {@link #createEventSource(String)}). There is a shared pool for each
+ * backend.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PNMLParserPool {
+
+	/**
+	 * The backend of the StAX implementation of the JDK (or the one that is
+	 * found by {@link XMLInputFactory#newInstance()}).
+	 */
+	public static final String STAX = "stax";
+
+	/**
+	 * The backend of the Woodstox StAX implementation
+	 * (com.fasterxml.woodstox:woodstox-core on the class path).
+	 */
+	public static final String WOODSTOX = "woodstox";
+
+	/**
+	 * The backend of the Aalto StAX implementation
+	 * (com.fasterxml:aalto-xml on the class path).
+	 */
+	public static final String AALTO = "aalto";
+
+	/**
+	 * The backend of the byte level scanner of the plugin. It memory maps
+	 * files and reads streams in chunks.
+	 */
+	public static final String SCANNER = "scanner";
+
+	/**
+	 * The shared xml input factory. It is configured once and never changed
+	 * afterwards, so it can create readers for many threads at once.
+	 */
+	private static final XMLInputFactory FACTORY = configure(XMLInputFactory
+			.newInstance());
+
+	/**
+	 * The shared xml input factories of the StAX implementations that are
+	 * given by their class name.
+	 */
+	private static final ConcurrentHashMap<String, XMLInputFactory> FACTORIES = new ConcurrentHashMap<String, XMLInputFactory>();
+
+	/**
+	 * The shared pools of the backends.
+	 */
+	private static final ConcurrentHashMap<String, PNMLParserPool> SHARED = new ConcurrentHashMap<String, PNMLParserPool>();
+
+	/**
+	 * The maximal number of idle parsers of the shared pools.
+	 */
+	private static final int SHARED_MAX_IDLE = Runtime.getRuntime()
+			.availableProcessors() * 2;
+
+	/**
+	 * Parsers that parsed larger nets are not kept, so that a single large
+	 * net does not hold its maps in the pool forever.
+	 */
+	private static final int MAX_RETAINED_NODES = 1 << 16;
+
+	/**
+	 * The idle parsers.
+	 */
+	private final ConcurrentLinkedQueue<PNMLParser> idle = new ConcurrentLinkedQueue<PNMLParser>();
+
+	/**
+	 * The number of idle parsers.
+	 */
+	private final AtomicInteger idleCount = new AtomicInteger();
+
+	/**
+	 * The maximal number of idle parsers.
+	 */
+	private final int maxIdle;
+
+	/**
+	 * The XML backend of the parsers.
+	 */
+	private final String backend;
+
+	/**
+	 * The constructor defines a new pool of parsers with the StAX backend.
+	 * 
+	 * @param maxIdle
+	 *            The maximal number of idle parsers kept by the pool.
+	 */
+	public PNMLParserPool(int maxIdle) {
+		this(STAX, maxIdle);
+	}
+
+	/**
+	 * The constructor defines a new pool of parsers with the given XML
+	 * backend.
+	 * 
+	 * @param backend
+	 *            The XML backend of the parsers (see
+	 *            {@link #createEventSource(String)}).
+	 * @param maxIdle
+	 *            The maximal number of idle parsers kept by the pool.
+	 */
+	public PNMLParserPool(String backend, int maxIdle) {
+		this.backend = backend;
+		this.maxIdle = maxIdle;
+	}
+
+	/**
+	 * Get the shared pool of parsers with the StAX backend.
+	 * 
+	 * @return The shared pool.
+	 */
+	public static PNMLParserPool getShared() {
+		return getShared(STAX);
+	}
+
+	/**
+	 * Get the shared pool of parsers with the given XML backend.
+	 * 
+	 * @param backend
+	 *            The XML backend (see {@link #createEventSource(String)}).
+	 * @return The shared pool.
+	 */
+	public static PNMLParserPool getShared(String backend) {
+		PNMLParserPool pool = SHARED.get(backend);
+		if (pool == null) {
+			pool = new PNMLParserPool(backend, SHARED_MAX_IDLE);
+			PNMLParserPool existing = SHARED.putIfAbsent(backend, pool);
+			if (existing != null) {
+				pool = existing;
+			}
+		}
+		return pool;
+	}
+
+	/**
+	 * Get the XML backend of the parsers.
+	 * 
+	 * @return The XML backend.
+	 */
+	public String getBackend() {
+		return backend;
+	}
+
+	/**
+	 * Get the shared xml input factory.
+	 * 
+	 * @return The shared xml input factory.
+	 */
+	public static XMLInputFactory getInputFactory() {
+		return FACTORY;
+	}
+
+	/**
+	 * Creates a new xml reader on the given stream with the shared factory.
+	 * The encoding is detected by the reader.
+	 * 
+	 * @param input
+	 *            The input stream.
+	 * @return A new xml reader.
+	 * @throws XMLStreamException
+	 *             If the reader cannot be created.
+	 */
+	public static XMLStreamReader createXMLStreamReader(InputStream input)
+			throws XMLStreamException {
+		return FACTORY.createXMLStreamReader(input);
+	}
+
+	/**
+	 * Creates a new event source of an XML backend. The backend is either
+	 * {@link #STAX}, {@link #WOODSTOX}, {@link #AALTO}, {@link #SCANNER}, the
+	 * class name of an {@link XMLInputFactory} or the class name of a
+	 * {@link PNMLEventSource} with a public constructor without parameters.
+	 * The xml input factories are shared.
+	 * 
+	 * @param backend
+	 *            The XML backend.
+	 * @return A new event source.
+	 * @throws IllegalArgumentException
+	 *             If the backend is unknown or not on the class path.
+	 */
+	public static PNMLEventSource createEventSource(String backend) {
+		if (backend.equals(STAX)) {
+			return new StAXEventSource(FACTORY);
+		} else if (backend.equals(SCANNER)) {
+			return new PNMLByteScanner();
+		} else if (backend.equals(WOODSTOX)) {
+			return createEventSource("com.ctc.wstx.stax.WstxInputFactory");
+		} else if (backend.equals(AALTO)) {
+			return createEventSource("com.fasterxml.aalto.stax.InputFactoryImpl");
+		}
+
+		XMLInputFactory factory = FACTORIES.get(backend);
+		if (factory != null) {
+			return new StAXEventSource(factory);
+		}
+
+		Object instance;
+		try {
+			instance = Class.forName(backend).getConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			throw new IllegalArgumentException("Unknown XML backend: "
+					+ backend, e);
+		}
+		if (instance instanceof PNMLEventSource) {
+			return (PNMLEventSource) instance;
+		} else if (instance instanceof XMLInputFactory) {
+			factory = configure((XMLInputFactory) instance);
+			XMLInputFactory existing = FACTORIES.putIfAbsent(backend, factory);
+			return new StAXEventSource(existing != null ? existing : factory);
+		}
+		throw new IllegalArgumentException("Unknown XML backend: " + backend);
+	}
+
+	/**
+	 * Takes an idle parser from the pool or creates a new one.
+	 * 
+	 * @return A parser that is used by the caller only.
+	 * @throws IllegalArgumentException
+	 *             If the backend of the pool is unknown.
+	 */
+	public PNMLParser borrow() {
+		PNMLParser parser = idle.poll();
+		if (parser == null) {
+			return new PNMLParser(createEventSource(backend));
+		}
+		idleCount.decrementAndGet();
+		return parser;
+	}
+
+	/**
+	 * Resets the given parser and gives it back to the pool. The caller must
+	 * not use the parser afterwards.
+	 * 
+	 * @param parser
+	 *            The parser.
+	 */
+	public void release(PNMLParser parser) {
+		if (parser.getNodeCount() > MAX_RETAINED_NODES) {
+			return;
+		}
+		parser.reset();
+		if (idleCount.incrementAndGet() <= maxIdle) {
+			idle.offer(parser);
+		} else {
+			idleCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Configures a shared xml input factory.
+	 * 
+	 * @param factory
+	 *            The xml input factory.
+	 * @return The xml input factory.
+	 */
+	private static XMLInputFactory configure(XMLInputFactory factory) {
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+				Boolean.FALSE);
+		return factory;
+	}
+}
@@ -0,0 +1,292 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A parser of PNML documents whose bytes are pushed in chunks, e.g., as they
+ * arrive from a socket. Each chunk is scanned at once by a
+ * {@link PNMLByteScanner}, so the contents of the document are reported to
+ * the handler progressively and no thread waits for the next chunk. Only the
+ * bytes of an incomplete token at the end of a chunk are kept until the next
+ * chunk arrives. The next chunk only gives the bytes that complete this
+ * token, its other bytes are scanned in place.
+ * 
+ * The document is complete when its root element ends. Like the byte level
+ * scanner, the parser supports documents in ASCII compatible encodings only.
+ * A push parser is not thread-safe, but the chunks may be pushed by
+ * different threads one after another.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PNMLPushParser {
+
+	/**
+	 * The initial size of the buffer of incomplete tokens.
+	 */
+	private static final int CARRY_SIZE = 1 << 12;
+
+	/**
+	 * The scanner of the chunks.
+	 */
+	private final PNMLByteScanner scanner = new PNMLByteScanner();
+
+	/**
+	 * The parser that interprets the events of the scanner.
+	 */
+	private final PNMLParser parser = new PNMLParser(scanner);
+
+	/**
+	 * The listener of the parser.
+	 */
+	private final PNMLEventListener events = parser.getListener();
+
+	/**
+	 * The listener that forwards the events of the scanner to the parser and
+	 * observes the end of the root element.
+	 */
+	private final PNMLEventListener listener = new PNMLEventListener() {
+
+		@Override
+		public boolean startElement(PNMLElement element,
+				PNMLAttributes attributes) throws ParseException {
+			// A document has a single root element
+			if (complete)
+				throw new ParseException();
+
+			depth++;
+			return events.startElement(element, attributes);
+		}
+
+		@Override
+		public void endElement() throws ParseException {
+			events.endElement();
+			if (--depth == 0) {
+				complete = true;
+			}
+		}
+
+		@Override
+		public boolean isInText() {
+			return events.isInText();
+		}
+
+		@Override
+		public void characters(char[] characters, int start, int length) {
+			events.characters(characters, start, length);
+		}
+	};
+
+	/**
+	 * The bytes of the incomplete token of the last chunk.
+	 */
+	private byte[] carry = new byte[CARRY_SIZE];
+
+	/**
+	 * The number of bytes of the incomplete token.
+	 */
+	private int carried = 0;
+
+	/**
+	 * The number of open elements.
+	 */
+	private int depth = 0;
+
+	/**
+	 * Whether the root element ended.
+	 */
+	private boolean complete = false;
+
+	/**
+	 * Whether the document ended.
+	 */
+	private boolean ended = false;
+
+	/**
+	 * The constructor defines a new push parser that reports the contents of
+	 * the document to the given handler.
+	 * 
+	 * @param handler
+	 *            The handler, e.g., a {@link PetriNetBuilder}.
+	 */
+	public PNMLPushParser(PNMLHandler handler) {
+		parser.startDocument(handler);
+		scanner.start(listener);
+	}
+
+	/**
+	 * Pushes the next chunk of the document. The remaining bytes of the
+	 * chunk are consumed, i.e., its position is set to its limit. The chunk
+	 * is not used after the call, so its buffer can be reused.
+	 * 
+	 * @param chunk
+	 *            The chunk.
+	 * @return Whether the document is complete, i.e., whether its root
+	 *         element ended.
+	 * @throws ParseException
+	 *             If the document contains an error or ended before.
+	 */
+	public boolean push(ByteBuffer chunk) throws ParseException {
+		if (ended)
+			throw new ParseException();
+
+		try {
+			// Complete the incomplete token of the last chunk with as few
+			// bytes of the chunk as possible
+			int appended = 0;
+			while (carried > 0 && chunk.hasRemaining()) {
+				int length = append(chunk, appended);
+				appended += length;
+
+				// Scan the token again only if the bytes may complete it
+				if (!PNMLByteScanner.mayEnd(carry, carried - length,
+						carried)) {
+					continue;
+				}
+
+				int consumed = scanner.scan(ByteBuffer.wrap(carry), 0,
+						carried, false);
+				if (consumed == 0) {
+					continue;
+				}
+				int unscanned = carried - consumed;
+				if (unscanned <= length) {
+					// The token is complete, give the bytes after it back
+					// to the chunk
+					chunk.position(chunk.position() - unscanned);
+					carried = 0;
+				} else {
+					carried = unscanned;
+					System.arraycopy(carry, consumed, carry, 0, carried);
+				}
+			}
+
+			if (carried == 0) {
+				// Scan the chunk directly and keep its incomplete token
+				int consumed = scanner.scan(chunk, chunk.position(),
+						chunk.limit(), false);
+				chunk.position(consumed);
+				carry(chunk);
+			}
+		} catch (ParseException e) {
+			// The document cannot be continued
+			abort();
+			throw e;
+		}
+		return complete;
+	}
+
+	/**
+	 * Ends the document since there are no more chunks. The handler is told
+	 * the end of the document. Bytes after the root element are ignored. The
+	 * parser cannot be used afterwards.
+	 * 
+	 * @throws ParseException
+	 *             If the document is incomplete or contains an error.
+	 */
+	public void end() throws ParseException {
+		if (ended)
+			return;
+
+		try {
+			if (!complete) {
+				scanner.scan(ByteBuffer.wrap(carry), 0, carried, true);
+			}
+			parser.endDocument();
+		} finally {
+			abort();
+		}
+	}
+
+	/**
+	 * Ends the document without telling the handler, e.g., if the connection
+	 * of the document is lost. The parser cannot be used afterwards.
+	 */
+	public void abort() {
+		ended = true;
+		scanner.reset();
+		parser.reset();
+		carry = null;
+		carried = 0;
+	}
+
+	/**
+	 * Whether the document is complete, i.e., whether its root element
+	 * ended.
+	 * 
+	 * @return Whether the document is complete.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Appends the next bytes of a chunk to the incomplete token: the bytes
+	 * up to the next '&lt;' or '&gt;' after the given number of bytes (or
+	 * all remaining bytes if there is none), since tokens end at such a
+	 * byte. The bytes that were appended before are given as the number, so
+	 * the appended bytes of a long token double each time and the token is
+	 * scanned again only a few times per chunk.
+	 * 
+	 * @param chunk
+	 *            The chunk.
+	 * @param skip
+	 *            The number of bytes that are appended at least.
+	 * @return The number of appended bytes.
+	 */
+	private int append(ByteBuffer chunk, int skip) {
+		int position = chunk.position();
+		int limit = chunk.limit();
+		int end = Math.min(position + skip, limit);
+		while (end < limit) {
+			byte b = chunk.get(end++);
+			if (b == '<' || b == '>') {
+				break;
+			}
+		}
+
+		int length = end - position;
+		if (carried + length > carry.length) {
+			carry = Arrays.copyOf(carry,
+					Math.max(carried + length, carry.length * 2));
+		}
+		chunk.get(carry, carried, length);
+		carried += length;
+		return length;
+	}
+
+	/**
+	 * Appends the remaining bytes of a chunk to the incomplete token.
+	 * 
+	 * @param chunk
+	 *            The chunk.
+	 */
+	private void carry(ByteBuffer chunk) {
+		int length = chunk.remaining();
+		if (carried + length > carry.length) {
+			carry = Arrays.copyOf(carry,
+					Math.max(carried + length, carry.length * 2));
+		}
+		chunk.get(carry, carried, length);
+		carried += length;
+	}
+}
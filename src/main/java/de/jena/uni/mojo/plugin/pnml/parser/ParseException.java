@@ -32,4 +32,21 @@ public class ParseException extends Exception {
 	 */
 	private static final long serialVersionUID = -619715216003721701L;
 
+	/**
+	 * The constructor defines a new parse exception.
+	 */
+	public ParseException() {
+	}
+
+	/**
+	 * The constructor defines a new parse exception that is caused by an
+	 * exception of the XML backend.
+	 * 
+	 * @param cause
+	 *            The cause.
+	 */
+	public ParseException(Throwable cause) {
+		super(cause);
+	}
+
 }
@@ -0,0 +1,286 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.Arc;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.PNode;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.PetriNet;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.Place;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.Transition;
+
+/**
+ * Builds {@link PetriNet}s from the contents of a PNML document. Since arcs
+ * may refer to nodes that come later in the net, the arcs are created when
+ * the net ends. Arcs of reference nodes are connected to the referred nodes.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PetriNetBuilder implements PNMLHandler {
+
+	/**
+	 * An array list of petri nets which were parsed.
+	 */
+	private final ArrayList<PetriNet> nets = new ArrayList<PetriNet>();
+
+	/**
+	 * A map that stores for each id of a node of the current net a
+	 * corresponding petri net node.
+	 */
+	private final HashMap<String, PNode> nodes = new HashMap<String, PNode>();
+
+	/**
+	 * A map that stores for each id of a reference node of the current net
+	 * the id of the node it refers to.
+	 */
+	private final HashMap<String, String> references = new HashMap<String, String>();
+
+	/**
+	 * A list of temporary arcs between the nodes.
+	 */
+	private final ArrayList<TemporaryArc> tempArcs = new ArrayList<TemporaryArc>();
+
+	/**
+	 * The net that is currently parsed.
+	 */
+	private PetriNet net;
+
+	/**
+	 * The place or transition that is currently parsed.
+	 */
+	private PNode node;
+
+	/**
+	 * The arc that is currently parsed.
+	 */
+	private TemporaryArc arc;
+
+	/**
+	 * The number of nodes of all nets.
+	 */
+	private int nodeCount = 0;
+
+	@Override
+	public void net(String id) {
+		net = new PetriNet(id);
+		nets.add(net);
+	}
+
+	@Override
+	public void place(String id) {
+		Place place = new Place(id);
+		nodes.put(place.id, place);
+		net.add(place);
+		node = place;
+		nodeCount++;
+	}
+
+	@Override
+	public void transition(String id) {
+		Transition transition = new Transition(id);
+		nodes.put(transition.id, transition);
+		net.add(transition);
+		node = transition;
+		nodeCount++;
+	}
+
+	@Override
+	public void reference(String id, String ref) throws ParseException {
+		if (id == null || ref == null)
+			throw new ParseException();
+
+		references.put(id, ref);
+	}
+
+	@Override
+	public void arc(String id, String source, String target) {
+		arc = new TemporaryArc(id, source, target);
+		tempArcs.add(arc);
+	}
+
+	@Override
+	public void name(String name) {
+		if (node instanceof Place) {
+			((Place) node).setName(name);
+		} else {
+			((Transition) node).setName(name);
+		}
+	}
+
+	@Override
+	public void initialMarking(int marking) {
+		Place place = (Place) node;
+		place.setMarking(marking);
+		net.addInitial(place);
+	}
+
+	@Override
+	public void inscription(int inscription) {
+		arc.marking = inscription;
+	}
+
+	@Override
+	public void endNet() throws ParseException {
+		// Resolve the reference nodes to the nodes they refer to
+		for (String reference : references.keySet()) {
+			nodes.put(reference, resolve(reference));
+		}
+
+		// Create real arcs
+		for (TemporaryArc temp : tempArcs) {
+			PNode source = nodes.get(temp.source);
+			PNode target = nodes.get(temp.target);
+
+			if (source == null || target == null)
+				throw new ParseException();
+
+			net.add(new Arc(temp.id, source, target, temp.marking));
+		}
+
+		nodes.clear();
+		references.clear();
+		tempArcs.clear();
+		net = null;
+		node = null;
+		arc = null;
+	}
+
+	/**
+	 * Resolves a reference node to the place or transition it refers to.
+	 * References may refer to references, but not in a cycle.
+	 * 
+	 * @param reference
+	 *            The id of the reference node.
+	 * @return The referred place or transition.
+	 * @throws ParseException
+	 *             If the reference does not end in a place or transition.
+	 */
+	private PNode resolve(String reference) throws ParseException {
+		String id = reference;
+		for (int steps = 0; steps <= references.size(); steps++) {
+			String ref = references.get(id);
+			if (ref == null) {
+				PNode resolved = nodes.get(id);
+				if (resolved == null)
+					throw new ParseException();
+				return resolved;
+			}
+			id = ref;
+		}
+		throw new ParseException();
+	}
+
+	@Override
+	public void endDocument() throws ParseException {
+		if (nets.isEmpty())
+			throw new ParseException();
+	}
+
+	/**
+	 * Get the first parsed petri net.
+	 * 
+	 * @return The petri net.
+	 */
+	public PetriNet getNet() {
+		return nets.get(0);
+	}
+
+	/**
+	 * Get the parsed petri nets in the order of the document. The list is
+	 * not changed by a reset of the builder.
+	 * 
+	 * @return The petri nets.
+	 */
+	public List<PetriNet> getNets() {
+		return new ArrayList<PetriNet>(nets);
+	}
+
+	/**
+	 * Resets the builder, so that it can build the net of the next document.
+	 * The maps keep their capacity.
+	 */
+	public void reset() {
+		nets.clear();
+		nodes.clear();
+		references.clear();
+		tempArcs.clear();
+		net = null;
+		node = null;
+		arc = null;
+		nodeCount = 0;
+	}
+
+	/**
+	 * Get the number of nodes of the last parsed document.
+	 * 
+	 * @return The number of nodes.
+	 */
+	int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * A temporary arc.
+	 * 
+	 * @author Dipl.-Inf. Thomas M. Prinz
+	 * 
+	 */
+	private class TemporaryArc {
+
+		/**
+		 * The id of the arc.
+		 */
+		public final String id;
+
+		/**
+		 * The source of the arc.
+		 */
+		public final String source;
+
+		/**
+		 * The target of the arc.
+		 */
+		public final String target;
+
+		/**
+		 * The marking on this arc.
+		 */
+		public int marking;
+
+		/**
+		 * The constructor of a simple temporary arc.
+		 * 
+		 * @param id
+		 *            The id.
+		 * @param source
+		 *            The source.
+		 * @param target
+		 *            The target.
+		 */
+		public TemporaryArc(String id, String source, String target) {
+			this.id = id;
+			this.source = source;
+			this.target = target;
+		}
+	}
+}
@@ -0,0 +1,262 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.CompactPetriNet;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.PetriNetTable;
+
+/**
+ * Builds a {@link PetriNetTable} for each net of a PNML document. The process
+ * element of each node is its id. Arcs are resolved as soon as they are
+ * reported, only arcs to nodes that come later in the net are kept until the
+ * net ends. Reference nodes get the number of the node they refer to, so that
+ * their arcs are arcs of that node.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PetriNetTableBuilder implements PNMLHandler {
+
+	/**
+	 * The tables of the parsed nets.
+	 */
+	private final ArrayList<PetriNetTable> tables = new ArrayList<PetriNetTable>();
+
+	/**
+	 * The table of the current net.
+	 */
+	private PetriNetTable table;
+
+	/**
+	 * The number of each node id of the current net.
+	 */
+	private final IdIndex ids = new IdIndex();
+
+	/**
+	 * The number of the current place or transition.
+	 */
+	private int node = -1;
+
+	/**
+	 * The number of the current arc.
+	 */
+	private int arc = -1;
+
+	/**
+	 * The numbers of the arcs with nodes that were not known yet.
+	 */
+	private int[] pendingArcs = new int[16];
+
+	/**
+	 * The source and target ids of the pending arcs.
+	 */
+	private String[] pendingIds = new String[32];
+
+	/**
+	 * The number of pending arcs.
+	 */
+	private int pendingCount = 0;
+
+	/**
+	 * The ids and referred ids of the reference nodes whose referred nodes
+	 * were not known yet.
+	 */
+	private String[] pendingReferences = new String[16];
+
+	/**
+	 * The number of pending reference nodes.
+	 */
+	private int pendingReferenceCount = 0;
+
+	@Override
+	public void net(String id) {
+		table = new PetriNetTable(id);
+		tables.add(table);
+	}
+
+	@Override
+	public void place(String id) {
+		node = table.addNode(CompactPetriNet.PLACE, "", id);
+		ids.put(id, node);
+	}
+
+	@Override
+	public void transition(String id) {
+		node = table.addNode(CompactPetriNet.TRANSITION, "", id);
+		ids.put(id, node);
+	}
+
+	@Override
+	public void reference(String id, String ref) throws ParseException {
+		if (id == null || ref == null)
+			throw new ParseException();
+
+		int referred = ids.get(ref);
+		if (referred >= 0) {
+			ids.put(id, referred);
+			return;
+		}
+
+		if (2 * pendingReferenceCount == pendingReferences.length) {
+			pendingReferences = Arrays.copyOf(pendingReferences,
+					pendingReferences.length * 2);
+		}
+		pendingReferences[2 * pendingReferenceCount] = id;
+		pendingReferences[2 * pendingReferenceCount + 1] = ref;
+		pendingReferenceCount++;
+	}
+
+	@Override
+	public void arc(String id, String source, String target) {
+		int s = ids.get(source);
+		int t = ids.get(target);
+		arc = table.addArc(s, t, 0);
+
+		if (s < 0 || t < 0) {
+			if (pendingCount == pendingArcs.length) {
+				pendingArcs = Arrays.copyOf(pendingArcs, pendingCount * 2);
+				pendingIds = Arrays.copyOf(pendingIds, pendingCount * 4);
+			}
+			pendingArcs[pendingCount] = arc;
+			pendingIds[2 * pendingCount] = source;
+			pendingIds[2 * pendingCount + 1] = target;
+			pendingCount++;
+		}
+	}
+
+	@Override
+	public void name(String name) {
+		table.setName(node, name);
+	}
+
+	@Override
+	public void initialMarking(int marking) {
+		table.getInitial().set(node);
+	}
+
+	@Override
+	public void inscription(int inscription) {
+		table.setWeight(arc, inscription);
+	}
+
+	@Override
+	public void endNet() throws ParseException {
+		resolveReferences();
+
+		// Resolve the pending arcs
+		for (int i = 0; i < pendingCount; i++) {
+			int source = ids.get(pendingIds[2 * i]);
+			int target = ids.get(pendingIds[2 * i + 1]);
+
+			if (source < 0 || target < 0)
+				throw new ParseException();
+
+			table.setSource(pendingArcs[i], source);
+			table.setTarget(pendingArcs[i], target);
+		}
+
+		Arrays.fill(pendingIds, 0, 2 * pendingCount, null);
+		pendingCount = 0;
+		ids.clear();
+		table = null;
+		node = -1;
+		arc = -1;
+	}
+
+	/**
+	 * Resolves the pending reference nodes. A reference may refer to a
+	 * pending reference, so the pending references are visited until none
+	 * of them can be resolved anymore.
+	 * 
+	 * @throws ParseException
+	 *             If a reference does not end in a place or transition.
+	 */
+	private void resolveReferences() throws ParseException {
+		int count = pendingReferenceCount;
+		boolean resolved = true;
+		while (count > 0 && resolved) {
+			resolved = false;
+			for (int i = 0; i < count; i++) {
+				int referred = ids.get(pendingReferences[2 * i + 1]);
+				if (referred < 0)
+					continue;
+
+				ids.put(pendingReferences[2 * i], referred);
+
+				// Move the last pending reference to this position
+				count--;
+				pendingReferences[2 * i] = pendingReferences[2 * count];
+				pendingReferences[2 * i + 1] = pendingReferences[2 * count + 1];
+				i--;
+				resolved = true;
+			}
+		}
+
+		Arrays.fill(pendingReferences, 0, 2 * pendingReferenceCount, null);
+		pendingReferenceCount = 0;
+
+		if (count > 0)
+			throw new ParseException();
+	}
+
+	@Override
+	public void endDocument() throws ParseException {
+		if (tables.isEmpty())
+			throw new ParseException();
+	}
+
+	/**
+	 * Get the table of the first parsed net.
+	 * 
+	 * @return The table.
+	 */
+	public PetriNetTable getTable() {
+		return tables.get(0);
+	}
+
+	/**
+	 * Get the tables of the parsed nets in the order of the document. The
+	 * list is not changed by a reset of the builder.
+	 * 
+	 * @return The tables.
+	 */
+	public List<PetriNetTable> getTables() {
+		return new ArrayList<PetriNetTable>(tables);
+	}
+
+	/**
+	 * Resets the builder, so that it can build the tables of the next
+	 * document.
+	 */
+	public void reset() {
+		tables.clear();
+		table = null;
+		ids.clear();
+		Arrays.fill(pendingIds, 0, 2 * pendingCount, null);
+		pendingCount = 0;
+		Arrays.fill(pendingReferences, 0, 2 * pendingReferenceCount, null);
+		pendingReferenceCount = 0;
+		node = -1;
+		arc = -1;
+	}
+}
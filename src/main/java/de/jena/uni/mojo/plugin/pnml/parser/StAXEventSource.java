@@ -0,0 +1,172 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * An event source that reads documents with the XML stream readers of a StAX
+ * implementation, e.g., the one of the JDK, Woodstox or Aalto.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class StAXEventSource implements PNMLEventSource {
+
+	/**
+	 * The size of the buffer between a file and the XML stream reader.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The factory of the XML stream readers.
+	 */
+	private final XMLInputFactory factory;
+
+	/**
+	 * The constructor defines a new StAX event source.
+	 * 
+	 * @param factory
+	 *            The configured factory of the XML stream readers. It must
+	 *            not be changed afterwards.
+	 */
+	public StAXEventSource(XMLInputFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Get the factory of the XML stream readers.
+	 * 
+	 * @return The factory.
+	 */
+	public XMLInputFactory getFactory() {
+		return factory;
+	}
+
+	@Override
+	public void parse(InputStream input, PNMLEventListener listener)
+			throws IOException, ParseException {
+		try {
+			XMLStreamReader stream = factory.createXMLStreamReader(input);
+			try {
+				parse(stream, listener);
+			} finally {
+				stream.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new ParseException(e);
+		}
+	}
+
+	@Override
+	public void parse(Path path, PNMLEventListener listener)
+			throws IOException, ParseException {
+		InputStream input = new BufferedInputStream(Files.newInputStream(path),
+				BUFFER_SIZE);
+		try {
+			parse(input, listener);
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Reads the document of an XML stream reader and reports its events. The
+	 * reader is not closed.
+	 * 
+	 * @param stream
+	 *            The XML stream reader.
+	 * @param listener
+	 *            The listener.
+	 * @throws XMLStreamException
+	 *             If the XML stream contains an error.
+	 * @throws ParseException
+	 *             If the listener fails.
+	 */
+	public static void parse(final XMLStreamReader stream,
+			PNMLEventListener listener) throws XMLStreamException,
+			ParseException {
+		PNMLAttributes attributes = new PNMLAttributes() {
+			@Override
+			public String get(String localName) {
+				return stream.getAttributeValue(null, localName);
+			}
+		};
+
+		// Parse the file till the end is reached
+		while (stream.hasNext()) {
+			switch (stream.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				if (!listener.startElement(
+						PNMLElement.of(stream.getLocalName()), attributes)) {
+					skip(stream);
+					listener.endElement();
+				}
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				listener.endElement();
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+				if (listener.isInText()) {
+					listener.characters(stream.getTextCharacters(),
+							stream.getTextStart(), stream.getTextLength());
+				}
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Skips the content of the current element by counting the depth of the
+	 * elements within it. The end of the element is skipped as well.
+	 * 
+	 * @param stream
+	 *            The XML stream reader at the start of the element.
+	 * @throws XMLStreamException
+	 *             If the XML stream contains an error.
+	 */
+	private static void skip(XMLStreamReader stream)
+			throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			switch (stream.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				depth++;
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				depth--;
+				break;
+			default:
+				break;
+			}
+		}
+	}
+}
@@ -99,17 +99,4 @@ public class Arc {
 	public String toString() {
 		return source.id + "->" + target.id;
 	}
-
-	/**
-	 * A static to string method.
-	 * 
-	 * @param source
-	 *            The source node.
-	 * @param target
-	 *            The target node.
-	 * @return A string representation.
-	 */
-	public static String toString(PNode source, PNode target) {
-		return source.id + "->" + target.id;
-	}
 }
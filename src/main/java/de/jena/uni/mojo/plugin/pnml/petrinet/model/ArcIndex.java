@@ -0,0 +1,239 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.petrinet.model;
+
+import java.util.Arrays;
+
+/**
+ * A hash multimap from a pair of node indices to the positions of arcs (a
+ * pair of nodes can be connected by parallel arcs). It uses open addressing
+ * with linear probing on primitive arrays, so neither keys nor values are
+ * boxed.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+class ArcIndex {
+
+	/**
+	 * The marker of free slots (keys of node indices are never negative).
+	 */
+	private static final long FREE = -1L;
+
+	/**
+	 * The keys of the slots.
+	 */
+	private long[] keys;
+
+	/**
+	 * The values of the slots.
+	 */
+	private int[] values;
+
+	/**
+	 * The number of entries.
+	 */
+	private int size;
+
+	/**
+	 * The constructor creates an empty index.
+	 */
+	ArcIndex() {
+		allocate(16);
+	}
+
+	/**
+	 * Creates the key of an arc.
+	 * 
+	 * @param source
+	 *            The index of the source node.
+	 * @param target
+	 *            The index of the target node.
+	 * @return The key.
+	 */
+	static long key(int source, int target) {
+		return ((long) source << 32) | (target & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Get the first value of a key.
+	 * 
+	 * @param key
+	 *            The key.
+	 * @return The value (or -1 if there is none).
+	 */
+	int get(long key) {
+		int mask = keys.length - 1;
+		for (int slot = slot(key, mask);; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return values[slot];
+			} else if (keys[slot] == FREE) {
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Adds a value to a key. Existing values of the key are kept.
+	 * 
+	 * @param key
+	 *            The key.
+	 * @param value
+	 *            The value.
+	 */
+	void put(long key, int value) {
+		if ((size + 1) * 2 > keys.length) {
+			rehash(keys.length * 2);
+		}
+		int mask = keys.length - 1;
+		int slot = slot(key, mask);
+		while (keys[slot] != FREE) {
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		size++;
+	}
+
+	/**
+	 * Replaces a single value of a key.
+	 * 
+	 * @param key
+	 *            The key.
+	 * @param oldValue
+	 *            The value to replace.
+	 * @param newValue
+	 *            The new value.
+	 * @return Whether the old value was found.
+	 */
+	boolean replace(long key, int oldValue, int newValue) {
+		int mask = keys.length - 1;
+		for (int slot = slot(key, mask); keys[slot] != FREE; slot = (slot + 1)
+				& mask) {
+			if (keys[slot] == key && values[slot] == oldValue) {
+				values[slot] = newValue;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the first value of a key.
+	 * 
+	 * @param key
+	 *            The key.
+	 * @return The removed value (or -1 if there is none).
+	 */
+	int remove(long key) {
+		int mask = keys.length - 1;
+		int slot = slot(key, mask);
+		while (keys[slot] != key) {
+			if (keys[slot] == FREE) {
+				return -1;
+			}
+			slot = (slot + 1) & mask;
+		}
+		int value = values[slot];
+		size--;
+
+		// Shift the following entries back, so that no probe chain breaks
+		int free = slot;
+		for (slot = (slot + 1) & mask; keys[slot] != FREE; slot = (slot + 1)
+				& mask) {
+			int home = slot(keys[slot], mask);
+			if (((slot - home) & mask) >= ((slot - free) & mask)) {
+				keys[free] = keys[slot];
+				values[free] = values[slot];
+				free = slot;
+			}
+		}
+		keys[free] = FREE;
+
+		return value;
+	}
+
+	/**
+	 * Enlarges the tables, so that the given number of additional entries
+	 * can be put without rehashing.
+	 * 
+	 * @param entries
+	 *            The number of additional entries.
+	 */
+	void reserve(int entries) {
+		int capacity = keys.length;
+		while ((size + entries) * 2L > capacity) {
+			capacity *= 2;
+		}
+		if (capacity > keys.length) {
+			rehash(capacity);
+		}
+	}
+
+	/**
+	 * Removes all entries and releases the memory.
+	 */
+	void clear() {
+		allocate(16);
+	}
+
+	/**
+	 * Determines the home slot of a key.
+	 * 
+	 * @param key
+	 *            The key.
+	 * @param mask
+	 *            The mask of the table size.
+	 * @return The slot.
+	 */
+	private static int slot(long key, int mask) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	/**
+	 * Allocates empty tables.
+	 * 
+	 * @param capacity
+	 *            The number of slots (a power of two).
+	 */
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		Arrays.fill(keys, FREE);
+		size = 0;
+	}
+
+	/**
+	 * Moves all entries into larger tables.
+	 * 
+	 * @param capacity
+	 *            The new number of slots (a power of two).
+	 */
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != FREE) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,470 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.petrinet.model;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A frozen petri net in a compressed sparse row representation. The nodes are
+ * numbered densely from 0 to {@link #getNodeCount()} - 1. The successors of a
+ * node u are the targets at the positions {@link #getSuccessorOffset(int)
+ * getSuccessorOffset(u)} to getSuccessorOffset(u + 1) - 1, the predecessors
+ * are stored the same way. Each position has also the weight of the arc.
+ * 
+ * Since the net cannot be changed, all arrays are shared and never copied.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class CompactPetriNet {
+
+	/**
+	 * The kind of places.
+	 */
+	public static final byte PLACE = 0;
+
+	/**
+	 * The kind of transitions.
+	 */
+	public static final byte TRANSITION = 1;
+
+	/**
+	 * The kind of transitions with or semantics.
+	 */
+	public static final byte OR_TRANSITION = 2;
+
+	/**
+	 * The id of the petri net (since it is final, it can be public).
+	 */
+	public final String id;
+
+	/**
+	 * The kind of each node.
+	 */
+	private final byte[] kinds;
+
+	/**
+	 * The name of each node.
+	 */
+	private final String[] names;
+
+	/**
+	 * The process element of each node (the element the workflow graph node
+	 * refers to).
+	 */
+	private final Object[] elements;
+
+	/**
+	 * The initial places.
+	 */
+	private final BitSet initial;
+
+	/**
+	 * The start of the successors of each node (plus the end of the last).
+	 */
+	private final int[] successorOffsets;
+
+	/**
+	 * The successors of all nodes.
+	 */
+	private final int[] successors;
+
+	/**
+	 * The weights of the arcs to the successors.
+	 */
+	private final int[] successorWeights;
+
+	/**
+	 * The start of the predecessors of each node (plus the end of the last).
+	 */
+	private final int[] predecessorOffsets;
+
+	/**
+	 * The predecessors of all nodes.
+	 */
+	private final int[] predecessors;
+
+	/**
+	 * The weights of the arcs from the predecessors.
+	 */
+	private final int[] predecessorWeights;
+
+	/**
+	 * The constructor takes over all arrays.
+	 * 
+	 * @param id
+	 *            The id of the net.
+	 * @param kinds
+	 *            The kind of each node.
+	 * @param names
+	 *            The name of each node.
+	 * @param elements
+	 *            The process element of each node.
+	 * @param initial
+	 *            The initial places.
+	 * @param successorOffsets
+	 *            The successor offsets.
+	 * @param successors
+	 *            The successors.
+	 * @param successorWeights
+	 *            The successor weights.
+	 * @param predecessorOffsets
+	 *            The predecessor offsets.
+	 * @param predecessors
+	 *            The predecessors.
+	 * @param predecessorWeights
+	 *            The predecessor weights.
+	 */
+	private CompactPetriNet(String id, byte[] kinds, String[] names,
+			Object[] elements, BitSet initial, int[] successorOffsets,
+			int[] successors, int[] successorWeights,
+			int[] predecessorOffsets, int[] predecessors,
+			int[] predecessorWeights) {
+		this.id = id;
+		this.kinds = kinds;
+		this.names = names;
+		this.elements = elements;
+		this.initial = initial;
+		this.successorOffsets = successorOffsets;
+		this.successors = successors;
+		this.successorWeights = successorWeights;
+		this.predecessorOffsets = predecessorOffsets;
+		this.predecessors = predecessors;
+		this.predecessorWeights = predecessorWeights;
+	}
+
+	/**
+	 * Builds a compact net from nodes and a list of arcs. The given arrays are
+	 * taken over (except the arc arrays).
+	 * 
+	 * @param id
+	 *            The id of the net.
+	 * @param kinds
+	 *            The kind of each node.
+	 * @param names
+	 *            The name of each node.
+	 * @param elements
+	 *            The process element of each node.
+	 * @param initial
+	 *            The initial places.
+	 * @param arcCount
+	 *            The number of arcs.
+	 * @param sources
+	 *            The source of each arc.
+	 * @param targets
+	 *            The target of each arc.
+	 * @param weights
+	 *            The weight of each arc.
+	 * @return The compact net.
+	 */
+	public static CompactPetriNet build(String id, byte[] kinds,
+			String[] names, Object[] elements, BitSet initial, int arcCount,
+			int[] sources, int[] targets, int[] weights) {
+		int nodeCount = kinds.length;
+
+		int[] successorOffsets = offsets(nodeCount, arcCount, sources);
+		int[] predecessorOffsets = offsets(nodeCount, arcCount, targets);
+
+		int[] successors = new int[arcCount];
+		int[] successorWeights = new int[arcCount];
+		int[] predecessors = new int[arcCount];
+		int[] predecessorWeights = new int[arcCount];
+
+		// Fill the rows in the order of the arcs
+		int[] nextSuccessor = new int[nodeCount];
+		int[] nextPredecessor = new int[nodeCount];
+		System.arraycopy(successorOffsets, 0, nextSuccessor, 0, nodeCount);
+		System.arraycopy(predecessorOffsets, 0, nextPredecessor, 0, nodeCount);
+		for (int a = 0; a < arcCount; a++) {
+			int s = nextSuccessor[sources[a]]++;
+			successors[s] = targets[a];
+			successorWeights[s] = weights[a];
+
+			int p = nextPredecessor[targets[a]]++;
+			predecessors[p] = sources[a];
+			predecessorWeights[p] = weights[a];
+		}
+
+		return new CompactPetriNet(id, kinds, names, elements, initial,
+				successorOffsets, successors, successorWeights,
+				predecessorOffsets, predecessors, predecessorWeights);
+	}
+
+	/**
+	 * Builds a compact copy of the given petri net. The petri net is not
+	 * changed. The process element of each node is the petri net node.
+	 * 
+	 * @param net
+	 *            The petri net.
+	 * @return The compact net.
+	 */
+	public static CompactPetriNet of(PetriNet net) {
+		// Renumber the nodes densely (removed nodes leave gaps)
+		int[] numbers = new int[net.getNodeCount()];
+		int nodeCount = 0;
+		for (int i = 0; i < numbers.length; i++) {
+			numbers[i] = net.getNode(i) == null ? -1 : nodeCount++;
+		}
+
+		byte[] kinds = new byte[nodeCount];
+		String[] names = new String[nodeCount];
+		Object[] elements = new Object[nodeCount];
+		BitSet initial = new BitSet(nodeCount);
+		for (int i = 0; i < numbers.length; i++) {
+			PNode node = net.getNode(i);
+			if (node == null) {
+				continue;
+			}
+			int u = numbers[i];
+			elements[u] = node;
+			if (node instanceof Place) {
+				kinds[u] = PLACE;
+				names[u] = ((Place) node).getName();
+			} else {
+				Transition transition = (Transition) node;
+				kinds[u] = transition.isOrTransition() ? OR_TRANSITION
+						: TRANSITION;
+				names[u] = transition.getName();
+			}
+		}
+		for (Place place : net.getInitialPlaces()) {
+			initial.set(numbers[place.getIndex()]);
+		}
+
+		List<Arc> arcs = net.getArcs();
+		int arcCount = arcs.size();
+		int[] sources = new int[arcCount];
+		int[] targets = new int[arcCount];
+		int[] weights = new int[arcCount];
+		for (int a = 0; a < arcCount; a++) {
+			Arc arc = arcs.get(a);
+			sources[a] = numbers[arc.source.getIndex()];
+			targets[a] = numbers[arc.target.getIndex()];
+			weights[a] = arc.marking;
+		}
+
+		return build(net.id, kinds, names, elements, initial, arcCount,
+				sources, targets, weights);
+	}
+
+	/**
+	 * Builds a copy of this net whose process elements are the ids of the
+	 * nodes, i.e., petri net nodes are replaced by their ids. The copy shares
+	 * all other arrays with this net.
+	 * 
+	 * @return The copy.
+	 */
+	public CompactPetriNet withIds() {
+		Object[] ids = new Object[elements.length];
+		for (int u = 0; u < elements.length; u++) {
+			Object element = elements[u];
+			ids[u] = element instanceof PNode ? ((PNode) element).id : String
+					.valueOf(element);
+		}
+		return new CompactPetriNet(id, kinds, names, ids, initial,
+				successorOffsets, successors, successorWeights,
+				predecessorOffsets, predecessors, predecessorWeights);
+	}
+
+	/**
+	 * Counts the arcs per node and determines the row offsets.
+	 * 
+	 * @param nodeCount
+	 *            The number of nodes.
+	 * @param arcCount
+	 *            The number of arcs.
+	 * @param ends
+	 *            The node of each arc the rows are built for.
+	 * @return The offsets (with nodeCount + 1 entries).
+	 */
+	private static int[] offsets(int nodeCount, int arcCount, int[] ends) {
+		int[] offsets = new int[nodeCount + 1];
+		for (int a = 0; a < arcCount; a++) {
+			offsets[ends[a] + 1]++;
+		}
+		for (int u = 0; u < nodeCount; u++) {
+			offsets[u + 1] += offsets[u];
+		}
+		return offsets;
+	}
+
+	/**
+	 * Get the number of nodes.
+	 * 
+	 * @return The number of nodes.
+	 */
+	public int getNodeCount() {
+		return kinds.length;
+	}
+
+	/**
+	 * Get the number of arcs.
+	 * 
+	 * @return The number of arcs.
+	 */
+	public int getArcCount() {
+		return successors.length;
+	}
+
+	/**
+	 * Get the kind of a node.
+	 * 
+	 * @param node
+	 *            The node.
+	 * @return {@link #PLACE}, {@link #TRANSITION} or {@link #OR_TRANSITION}.
+	 */
+	public byte getKind(int node) {
+		return kinds[node];
+	}
+
+	/**
+	 * Whether a node is a place.
+	 * 
+	 * @param node
+	 *            The node.
+	 * @return Whether the node is a place.
+	 */
+	public boolean isPlace(int node) {
+		return kinds[node] == PLACE;
+	}
+
+	/**
+	 * Whether a node is an initial place.
+	 * 
+	 * @param node
+	 *            The node.
+	 * @return Whether the node is an initial place.
+	 */
+	public boolean isInitial(int node) {
+		return initial.get(node);
+	}
+
+	/**
+	 * Get the name of a node.
+	 * 
+	 * @param node
+	 *            The node.
+	 * @return The name.
+	 */
+	public String getName(int node) {
+		return names[node];
+	}
+
+	/**
+	 * Get the process element of a node.
+	 * 
+	 * @param node
+	 *            The node.
+	 * @return The process element.
+	 */
+	public Object getElement(int node) {
+		return elements[node];
+	}
+
+	/**
+	 * Get the position of the first successor of a node. The successors of
+	 * the last node end at getSuccessorOffset(getNodeCount()).
+	 * 
+	 * @param node
+	 *            The node (or the number of nodes).
+	 * @return The position.
+	 */
+	public int getSuccessorOffset(int node) {
+		return successorOffsets[node];
+	}
+
+	/**
+	 * Get the successor at a position.
+	 * 
+	 * @param position
+	 *            The position.
+	 * @return The successor.
+	 */
+	public int getSuccessor(int position) {
+		return successors[position];
+	}
+
+	/**
+	 * Get the weight of the arc to the successor at a position.
+	 * 
+	 * @param position
+	 *            The position.
+	 * @return The weight.
+	 */
+	public int getSuccessorWeight(int position) {
+		return successorWeights[position];
+	}
+
+	/**
+	 * Get the number of successors of a node.
+	 * 
+	 * @param node
+	 *            The node.
+	 * @return The number of successors.
+	 */
+	public int getSuccessorCount(int node) {
+		return successorOffsets[node + 1] - successorOffsets[node];
+	}
+
+	/**
+	 * Get the position of the first predecessor of a node. The predecessors
+	 * of the last node end at getPredecessorOffset(getNodeCount()).
+	 * 
+	 * @param node
+	 *            The node (or the number of nodes).
+	 * @return The position.
+	 */
+	public int getPredecessorOffset(int node) {
+		return predecessorOffsets[node];
+	}
+
+	/**
+	 * Get the predecessor at a position.
+	 * 
+	 * @param position
+	 *            The position.
+	 * @return The predecessor.
+	 */
+	public int getPredecessor(int position) {
+		return predecessors[position];
+	}
+
+	/**
+	 * Get the weight of the arc from the predecessor at a position.
+	 * 
+	 * @param position
+	 *            The position.
+	 * @return The weight.
+	 */
+	public int getPredecessorWeight(int position) {
+		return predecessorWeights[position];
+	}
+
+	/**
+	 * Get the number of predecessors of a node.
+	 * 
+	 * @param node
+	 *            The node.
+	 * @return The number of predecessors.
+	 */
+	public int getPredecessorCount(int node) {
+		return predecessorOffsets[node + 1] - predecessorOffsets[node];
+	}
+}
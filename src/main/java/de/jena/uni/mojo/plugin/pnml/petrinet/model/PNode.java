@@ -49,6 +49,12 @@ public abstract class PNode implements Comparable<PNode> {
 	 */
 	public boolean visited = false;
 
+	/**
+	 * The dense index of this node within its petri net (or -1 if the node
+	 * was not added to a net yet).
+	 */
+	int index = -1;
+
 	/**
 	 * The constructor.
 	 * 
@@ -59,6 +65,17 @@ public abstract class PNode implements Comparable<PNode> {
 		this.id = id;
 	}
 
+	/**
+	 * Get the index of this node within its petri net. The indices of a net
+	 * are 0 to {@link PetriNet#getNodeCount()} - 1, so that they can index
+	 * plain arrays and bit sets.
+	 * 
+	 * @return The index (or -1 if the node was not added to a net yet).
+	 */
+	public int getIndex() {
+		return index;
+	}
+
 	@Override
 	public int compareTo(PNode node) {
 		return this.id.compareTo(node.id);
@@ -19,8 +19,8 @@
 package de.jena.uni.mojo.plugin.pnml.petrinet.model;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -43,25 +43,47 @@ public class PetriNet {
 	 */
 	private final ArrayList<Transition> transitions = new ArrayList<Transition>();
 
+	/**
+	 * All nodes by their index (removed nodes leave a null entry).
+	 */
+	private final ArrayList<PNode> indexedNodes = new ArrayList<PNode>();
+
 	/**
 	 * A final list of arcs.
 	 */
 	private final ArrayList<Arc> arcs = new ArrayList<Arc>();
 
 	/**
-	 * A map that maps each name of an arc to its arc.
+	 * An index that maps the source and target node of each arc to its
+	 * position in the list of arcs.
 	 */
-	private final HashMap<String, Arc> arcMap = new HashMap<String, Arc>();
+	private final ArcIndex arcIndex = new ArcIndex();
 
 	/**
 	 * The initial places of the petri net.
 	 */
-	private HashSet<Place> initialPlaces = new HashSet<Place>();
+	private final LinkedHashSet<Place> initialPlaces = new LinkedHashSet<Place>();
+
+	/**
+	 * The places without incoming arcs.
+	 */
+	private final LinkedHashSet<Place> startPlaces = new LinkedHashSet<Place>();
+
+	/**
+	 * The transitions without incoming arcs.
+	 */
+	private final LinkedHashSet<Transition> startTransitions = new LinkedHashSet<Transition>();
 
 	/**
-	 * The end nodes of this petri net.
+	 * The end nodes of this petri net, i.e., the places without outgoing
+	 * arcs.
 	 */
-	private HashSet<Place> endNodes = new HashSet<Place>();
+	private final LinkedHashSet<Place> endNodes = new LinkedHashSet<Place>();
+
+	/**
+	 * The transitions without outgoing arcs.
+	 */
+	private final LinkedHashSet<Transition> endTransitions = new LinkedHashSet<Transition>();
 
 	/**
 	 * Is the petri closed or open?
@@ -90,7 +112,10 @@ public class PetriNet {
 	 *            The place to add.
 	 */
 	public void add(Place place) {
+		index(place);
 		places.add(place);
+		updateStart(place);
+		updateEnd(place);
 	}
 
 	/**
@@ -100,7 +125,10 @@ public class PetriNet {
 	 *            The transition to add.
 	 */
 	public void add(Transition transition) {
+		index(transition);
 		transitions.add(transition);
+		updateStart(transition);
+		updateEnd(transition);
 	}
 
 	/**
@@ -127,32 +155,229 @@ public class PetriNet {
 	public void remove(PNode node) {
 		if (node instanceof Place) {
 			places.remove(node);
+			startPlaces.remove(node);
+			endNodes.remove(node);
+			initialPlaces.remove(node);
 		} else {
 			transitions.remove(node);
+			startTransitions.remove(node);
+			endTransitions.remove(node);
+		}
+		indexedNodes.set(node.index, null);
+	}
+
+	/**
+	 * Updates whether the given node is a start node, i.e., a node without
+	 * incoming arcs.
+	 * 
+	 * @param node
+	 *            The node.
+	 */
+	private void updateStart(PNode node) {
+		boolean start = node.predecessors.isEmpty();
+		if (node instanceof Place) {
+			if (start) {
+				startPlaces.add((Place) node);
+			} else {
+				startPlaces.remove(node);
+			}
+		} else {
+			if (start) {
+				startTransitions.add((Transition) node);
+			} else {
+				startTransitions.remove(node);
+			}
+		}
+	}
+
+	/**
+	 * Updates whether the given node is an end node, i.e., a node without
+	 * outgoing arcs.
+	 * 
+	 * @param node
+	 *            The node.
+	 */
+	private void updateEnd(PNode node) {
+		boolean end = node.successors.isEmpty();
+		if (node instanceof Place) {
+			if (end) {
+				endNodes.add((Place) node);
+			} else {
+				endNodes.remove(node);
+			}
+		} else {
+			if (end) {
+				endTransitions.add((Transition) node);
+			} else {
+				endTransitions.remove(node);
+			}
 		}
 	}
 
 	/**
-	 * Add an arc.
+	 * Assigns the next free index to the given node.
+	 * 
+	 * @param node
+	 *            The node that is added to this net.
+	 */
+	private void index(PNode node) {
+		node.index = indexedNodes.size();
+		indexedNodes.add(node);
+	}
+
+	/**
+	 * Reserves memory for the given number of additional nodes and arcs, so
+	 * that adding them does not need to grow the lists and the arc index
+	 * step by step.
+	 * 
+	 * @param nodes
+	 *            The number of additional places and transitions.
+	 * @param arcs
+	 *            The number of additional arcs.
+	 */
+	public void reserve(int nodes, int arcs) {
+		indexedNodes.ensureCapacity(indexedNodes.size() + nodes);
+		this.arcs.ensureCapacity(this.arcs.size() + arcs);
+		arcIndex.reserve(arcs);
+	}
+
+	/**
+	 * Get the number of indices used by the nodes of this net. Each node has
+	 * an index smaller than this number.
+	 * 
+	 * @return The number of indices.
+	 */
+	public int getNodeCount() {
+		return indexedNodes.size();
+	}
+
+	/**
+	 * Get the node with the given index.
+	 * 
+	 * @param index
+	 *            The index.
+	 * @return The node (or null if the node was removed).
+	 */
+	public PNode getNode(int index) {
+		return indexedNodes.get(index);
+	}
+
+	/**
+	 * Add an arc. Its nodes must have been added to this net before. The
+	 * successors of the source and the predecessors of the target are
+	 * updated.
 	 * 
 	 * @param arc
 	 *            The arc to add.
 	 */
 	public void add(Arc arc) {
+		PNode source = arc.source;
+		PNode target = arc.target;
+		if (source.index < 0 || target.index < 0) {
+			throw new IllegalStateException("The nodes of arc " + arc
+					+ " are not part of the net.");
+		}
+		arcIndex.put(ArcIndex.key(source.index, target.index), arcs.size());
 		arcs.add(arc);
-		arcMap.put(arc.toString(), arc);
+
+		source.successors.add(target);
+		target.predecessors.add(source);
+		if (source.successors.size() == 1) {
+			updateEnd(source);
+		}
+		if (target.predecessors.size() == 1) {
+			updateStart(target);
+		}
 	}
 
 	/**
-	 * Remove the arc with the given id.
+	 * Get the arc between the given nodes.
 	 * 
-	 * @param id
-	 *            The id of the arc to remove.
+	 * @param source
+	 *            The source node.
+	 * @param target
+	 *            The target node.
+	 * @return The arc (or null if there is none).
+	 */
+	public Arc getArc(PNode source, PNode target) {
+		int position = arcIndex.get(ArcIndex.key(source.index, target.index));
+		return position < 0 ? null : arcs.get(position);
+	}
+
+	/**
+	 * Remove the arc between the given nodes. The arc itself is removed in
+	 * constant time (the last arc takes its position), the successors of the
+	 * source and the predecessors of the target are updated. If there are
+	 * parallel arcs between the nodes, only one of them is removed.
+	 * 
+	 * @param source
+	 *            The source node of the arc to remove.
+	 * @param target
+	 *            The target node of the arc to remove.
+	 * @return The removed arc (or null if there is none).
+	 */
+	public Arc removeArc(PNode source, PNode target) {
+		int position = arcIndex.remove(ArcIndex.key(source.index,
+				target.index));
+		if (position < 0) {
+			return null;
+		}
+
+		Arc arc = arcs.get(position);
+		int last = arcs.size() - 1;
+		Arc moved = arcs.remove(last);
+		if (position != last) {
+			arcs.set(position, moved);
+
+			// Update the index entry of the moved arc
+			arcIndex.replace(
+					ArcIndex.key(moved.source.index, moved.target.index),
+					last, position);
+		}
+
+		source.successors.remove(target);
+		target.predecessors.remove(source);
+		if (source.successors.isEmpty()) {
+			updateEnd(source);
+		}
+		if (target.predecessors.isEmpty()) {
+			updateStart(target);
+		}
+
+		return arc;
+	}
+
+	/**
+	 * Moves all outgoing arcs of a node to another node, i.e., each arc from
+	 * the node to a successor is replaced by an arc with the same id and
+	 * marking from the other node to this successor. Afterwards, the node
+	 * has no successors. The arcs keep their positions, so the time is
+	 * linear in the number of moved arcs (and the predecessors of the
+	 * successors).
+	 * 
+	 * @param node
+	 *            The node whose arcs are moved.
+	 * @param target
+	 *            The new source node of the arcs.
 	 */
-	public void removeArc(String id) {
-		Arc arc = arcMap.remove(id);
+	public void moveSuccessors(PNode node, PNode target) {
+		if (target.index < 0) {
+			throw new IllegalStateException("The node " + target
+					+ " is not part of the net.");
+		}
+		for (PNode suc : node.successors) {
+			int position = arcIndex.remove(ArcIndex.key(node.index, suc.index));
+			Arc arc = arcs.get(position);
+			arcs.set(position, new Arc(arc.id, target, suc, arc.marking));
+			arcIndex.put(ArcIndex.key(target.index, suc.index), position);
 
-		arcs.remove(arc);
+			suc.predecessors.set(suc.predecessors.indexOf(node), target);
+		}
+		target.successors.addAll(node.successors);
+		node.successors.clear();
+
+		updateEnd(node);
+		updateEnd(target);
 	}
 
 	/**
@@ -195,20 +420,39 @@ public class PetriNet {
 	}
 
 	/**
-	 * Get the end nodes.
+	 * Get the end nodes, i.e., the places without outgoing arcs.
 	 * 
-	 * @return A set of end nodes.
+	 * @return A read-only view of the end nodes.
 	 */
 	public Set<Place> getEndNodes() {
-		if (!endNodes.isEmpty()) {
-			endNodes = new HashSet<Place>();
-		}
-		for (Place p : places) {
-			if (p.successors.isEmpty()) {
-				endNodes.add(p);
-			}
-		}
-		return endNodes;
+		return Collections.unmodifiableSet(endNodes);
+	}
+
+	/**
+	 * Get the transitions without outgoing arcs.
+	 * 
+	 * @return A read-only view of the transitions.
+	 */
+	public Set<Transition> getEndTransitions() {
+		return Collections.unmodifiableSet(endTransitions);
+	}
+
+	/**
+	 * Get the places without incoming arcs.
+	 * 
+	 * @return A read-only view of the places.
+	 */
+	public Set<Place> getStartPlaces() {
+		return Collections.unmodifiableSet(startPlaces);
+	}
+
+	/**
+	 * Get the transitions without incoming arcs.
+	 * 
+	 * @return A read-only view of the transitions.
+	 */
+	public Set<Transition> getStartTransitions() {
+		return Collections.unmodifiableSet(startTransitions);
 	}
 
 	/**
@@ -221,13 +465,50 @@ public class PetriNet {
 		initialPlaces.add(place);
 	}
 
+	/**
+	 * Removes all initial places.
+	 */
+	public void clearInitial() {
+		initialPlaces.clear();
+	}
+
 	/**
 	 * Get the initial places.
 	 * 
-	 * @return The initial places.
+	 * @return A read-only view of the initial places.
 	 */
-	public HashSet<Place> getInitialPlaces() {
-		return initialPlaces;
+	public Set<Place> getInitialPlaces() {
+		return Collections.unmodifiableSet(initialPlaces);
+	}
+
+	/**
+	 * Freezes this petri net into its compact representation. Afterwards,
+	 * the compact net is the only representation of the arcs: the arcs and
+	 * the predecessor and successor lists of the nodes are released, so this
+	 * net must not be used anymore except for its nodes.
+	 * 
+	 * @return The compact petri net.
+	 */
+	public CompactPetriNet freeze() {
+		CompactPetriNet compact = CompactPetriNet.of(this);
+
+		for (PNode node : indexedNodes) {
+			if (node != null) {
+				node.predecessors.clear();
+				node.predecessors.trimToSize();
+				node.successors.clear();
+				node.successors.trimToSize();
+			}
+		}
+		arcs.clear();
+		arcs.trimToSize();
+		arcIndex.clear();
+		startPlaces.clear();
+		startTransitions.clear();
+		endNodes.clear();
+		endTransitions.clear();
+
+		return compact;
 	}
 
 	/**
@@ -286,7 +567,7 @@ public class PetriNet {
 		s += "\tTransitions: " + transitions + "\n";
 		s += "\tArcs: " + arcs + "\n";
 		s += "\tInitial: " + initialPlaces + "\n";
-		s += "\tEnd: " + getEndNodes() + "\n";
+		s += "\tEnd: " + endNodes + "\n";
 
 		return s;
 	}
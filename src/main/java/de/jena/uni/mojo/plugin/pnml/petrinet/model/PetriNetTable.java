@@ -0,0 +1,335 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.petrinet.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A petri net in primitive tables: The nodes are numbered from 0 to
+ * {@link #getNodeCount()} - 1 and have a kind, a name and a process element,
+ * the arcs are numbered from 0 to {@link #getArcCount()} - 1 and have a
+ * source, a target and a weight. Nodes and arcs can only be added, the arcs
+ * can be redirected. Compared to a {@link PetriNet}, there are no objects per
+ * node or arc, and a table can be turned into a {@link CompactPetriNet}
+ * directly.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PetriNetTable {
+
+	/**
+	 * The id of the petri net (since it is final, it can be public).
+	 */
+	public final String id;
+
+	/**
+	 * The kind of each node (see {@link CompactPetriNet#PLACE}).
+	 */
+	private byte[] kinds = new byte[16];
+
+	/**
+	 * The name of each node.
+	 */
+	private String[] names = new String[16];
+
+	/**
+	 * The process element of each node.
+	 */
+	private Object[] elements = new Object[16];
+
+	/**
+	 * The initial places.
+	 */
+	private final BitSet initial = new BitSet();
+
+	/**
+	 * The number of nodes.
+	 */
+	private int nodeCount = 0;
+
+	/**
+	 * The number of places.
+	 */
+	private int placeCount = 0;
+
+	/**
+	 * The source of each arc.
+	 */
+	private int[] sources = new int[16];
+
+	/**
+	 * The target of each arc.
+	 */
+	private int[] targets = new int[16];
+
+	/**
+	 * The weight of each arc.
+	 */
+	private int[] weights = new int[16];
+
+	/**
+	 * The number of arcs.
+	 */
+	private int arcCount = 0;
+
+	/**
+	 * The constructor needs the id of this petri net.
+	 * 
+	 * @param id
+	 *            The id of the petri net.
+	 */
+	public PetriNetTable(String id) {
+		this.id = id;
+	}
+
+	/**
+	 * Adds a node.
+	 * 
+	 * @param kind
+	 *            The kind of the node (see {@link CompactPetriNet#PLACE}).
+	 * @param name
+	 *            The name of the node.
+	 * @param element
+	 *            The process element of the node.
+	 * @return The number of the node.
+	 */
+	public int addNode(byte kind, String name, Object element) {
+		if (nodeCount == kinds.length) {
+			int capacity = nodeCount * 2;
+			kinds = Arrays.copyOf(kinds, capacity);
+			names = Arrays.copyOf(names, capacity);
+			elements = Arrays.copyOf(elements, capacity);
+		}
+		kinds[nodeCount] = kind;
+		names[nodeCount] = name;
+		elements[nodeCount] = element;
+		if (kind == CompactPetriNet.PLACE) {
+			placeCount++;
+		}
+		return nodeCount++;
+	}
+
+	/**
+	 * Adds an arc.
+	 * 
+	 * @param source
+	 *            The number of the source node.
+	 * @param target
+	 *            The number of the target node.
+	 * @param weight
+	 *            The weight.
+	 * @return The number of the arc.
+	 */
+	public int addArc(int source, int target, int weight) {
+		if (arcCount == sources.length) {
+			int capacity = arcCount * 2;
+			sources = Arrays.copyOf(sources, capacity);
+			targets = Arrays.copyOf(targets, capacity);
+			weights = Arrays.copyOf(weights, capacity);
+		}
+		sources[arcCount] = source;
+		targets[arcCount] = target;
+		weights[arcCount] = weight;
+		return arcCount++;
+	}
+
+	/**
+	 * Get the number of nodes.
+	 * 
+	 * @return The number of nodes.
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Get the number of places.
+	 * 
+	 * @return The number of places.
+	 */
+	public int getPlaceCount() {
+		return placeCount;
+	}
+
+	/**
+	 * Get the number of arcs.
+	 * 
+	 * @return The number of arcs.
+	 */
+	public int getArcCount() {
+		return arcCount;
+	}
+
+	/**
+	 * Get the kind of a node.
+	 * 
+	 * @param node
+	 *            The number of the node.
+	 * @return The kind.
+	 */
+	public byte getKind(int node) {
+		return kinds[node];
+	}
+
+	/**
+	 * Whether a node is a place.
+	 * 
+	 * @param node
+	 *            The number of the node.
+	 * @return Whether the node is a place.
+	 */
+	public boolean isPlace(int node) {
+		return kinds[node] == CompactPetriNet.PLACE;
+	}
+
+	/**
+	 * Set the name of a node.
+	 * 
+	 * @param node
+	 *            The number of the node.
+	 * @param name
+	 *            The name.
+	 */
+	public void setName(int node, String name) {
+		names[node] = name;
+	}
+
+	/**
+	 * Get the process element of a node.
+	 * 
+	 * @param node
+	 *            The number of the node.
+	 * @return The process element.
+	 */
+	public Object getElement(int node) {
+		return elements[node];
+	}
+
+	/**
+	 * Get the initial places.
+	 * 
+	 * @return The initial places (the set can be changed).
+	 */
+	public BitSet getInitial() {
+		return initial;
+	}
+
+	/**
+	 * Get the source of an arc.
+	 * 
+	 * @param arc
+	 *            The number of the arc.
+	 * @return The number of the source node.
+	 */
+	public int getSource(int arc) {
+		return sources[arc];
+	}
+
+	/**
+	 * Set the source of an arc.
+	 * 
+	 * @param arc
+	 *            The number of the arc.
+	 * @param source
+	 *            The number of the new source node.
+	 */
+	public void setSource(int arc, int source) {
+		sources[arc] = source;
+	}
+
+	/**
+	 * Get the target of an arc.
+	 * 
+	 * @param arc
+	 *            The number of the arc.
+	 * @return The number of the target node.
+	 */
+	public int getTarget(int arc) {
+		return targets[arc];
+	}
+
+	/**
+	 * Set the target of an arc.
+	 * 
+	 * @param arc
+	 *            The number of the arc.
+	 * @param target
+	 *            The number of the new target node.
+	 */
+	public void setTarget(int arc, int target) {
+		targets[arc] = target;
+	}
+
+	/**
+	 * Set the weight of an arc.
+	 * 
+	 * @param arc
+	 *            The number of the arc.
+	 * @param weight
+	 *            The weight.
+	 */
+	public void setWeight(int arc, int weight) {
+		weights[arc] = weight;
+	}
+
+	/**
+	 * Reserves memory for the given number of additional nodes and arcs.
+	 * 
+	 * @param nodes
+	 *            The number of additional nodes.
+	 * @param arcs
+	 *            The number of additional arcs.
+	 */
+	public void reserve(int nodes, int arcs) {
+		if (nodeCount + nodes > kinds.length) {
+			int capacity = nodeCount + nodes;
+			kinds = Arrays.copyOf(kinds, capacity);
+			names = Arrays.copyOf(names, capacity);
+			elements = Arrays.copyOf(elements, capacity);
+		}
+		if (arcCount + arcs > sources.length) {
+			int capacity = arcCount + arcs;
+			sources = Arrays.copyOf(sources, capacity);
+			targets = Arrays.copyOf(targets, capacity);
+			weights = Arrays.copyOf(weights, capacity);
+		}
+	}
+
+	/**
+	 * Turns this table into a compact petri net. The table must not be used
+	 * afterwards, since the compact net takes over its arrays.
+	 * 
+	 * @return The compact petri net.
+	 */
+	public CompactPetriNet toCompact() {
+		if (kinds.length != nodeCount) {
+			kinds = Arrays.copyOf(kinds, nodeCount);
+			names = Arrays.copyOf(names, nodeCount);
+			elements = Arrays.copyOf(elements, nodeCount);
+		}
+		CompactPetriNet compact = CompactPetriNet.build(id, kinds, names,
+				elements, initial, arcCount, sources, targets, weights);
+		sources = null;
+		targets = null;
+		weights = null;
+		return compact;
+	}
+}
@@ -0,0 +1,470 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.petrinet.transformation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import de.jena.uni.mojo.Mojo;
+import de.jena.uni.mojo.plugin.pnml.parser.pnml.PetriNetContext;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.CompactPetriNet;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.PetriNetTable;
+
+/**
+ * Transforms and repairs a petri net table like the
+ * {@link PetriNetTransformation} (in its fused form): The numbers of
+ * predecessors and successors of all nodes are counted, all the steps are
+ * planned on these numbers and the new nodes and arcs are appended to the
+ * table at once. The nodes to split are split by redirecting their outgoing
+ * arcs in a single pass over all arcs.
+ * 
+ * The new nodes get the ids the {@link PetriNetTransformation} would give
+ * them as process elements.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PetriNetTableTransformation {
+
+	/**
+	 * The minimal number of nodes for determining the path nodes of several
+	 * end places in parallel.
+	 */
+	private static final int PARALLEL_THRESHOLD = 1 << 12;
+
+	/**
+	 * Transform and repair the petri net table (see
+	 * {@link PetriNetTransformation#transform(de.jena.uni.mojo.plugin.pnml.petrinet.model.PetriNet, PetriNetContext)}
+	 * ).
+	 * 
+	 * @param table
+	 *            The petri net table to transform.
+	 * @param context
+	 *            The context of the petri net.
+	 * @return The repaired petri net table.
+	 */
+	public PetriNetTable transform(PetriNetTable table, PetriNetContext context) {
+		return transform(table, context, Mojo.getCommand("SIMPLE_END_PLACE")
+				.asBooleanValue());
+	}
+
+	/**
+	 * Transform and repair the petri net table with an explicitly given end
+	 * place strategy.
+	 * 
+	 * @param table
+	 *            The petri net table to transform.
+	 * @param context
+	 *            The context of the petri net.
+	 * @param simpleEndPlace
+	 *            Whether the end places are combined by a simple or
+	 *            transition.
+	 * @return The repaired petri net table.
+	 */
+	public PetriNetTable transform(PetriNetTable table,
+			PetriNetContext context, boolean simpleEndPlace) {
+		// 1. Extend isolated places (the net has a single place)
+		if (table.getPlaceCount() == 1) {
+			int p = 0;
+			while (!table.isPlace(p)) {
+				p++;
+			}
+			int e = place(table, context);
+			int t = transition(table, context, CompactPetriNet.TRANSITION);
+			table.addArc(p, t, 1);
+			table.addArc(t, e, 1);
+		}
+
+		// Count the predecessors and successors
+		int count = table.getNodeCount();
+		int arcCount = table.getArcCount();
+		int[] predecessors = new int[count];
+		int[] successors = new int[count];
+		for (int a = 0; a < arcCount; a++) {
+			successors[table.getSource(a)]++;
+			predecessors[table.getTarget(a)]++;
+		}
+
+		// The end places (first) and the end transitions, and the start
+		// transitions
+		int endCount = 0;
+		int startCount = 0;
+		for (int v = 0; v < count; v++) {
+			if (successors[v] == 0) {
+				endCount++;
+			}
+			if (predecessors[v] == 0 && !table.isPlace(v)) {
+				startCount++;
+			}
+		}
+		int[] ends = new int[endCount];
+		int[] startTransitions = new int[startCount + 1];
+		int endPlaces = 0;
+		int endTransitions = endCount;
+		startCount = 0;
+		for (int v = 0; v < count; v++) {
+			if (table.isPlace(v)) {
+				if (successors[v] == 0) {
+					ends[endPlaces++] = v;
+				}
+			} else {
+				if (successors[v] == 0) {
+					ends[--endTransitions] = v;
+				}
+				if (predecessors[v] == 0) {
+					startTransitions[startCount++] = v;
+				}
+			}
+		}
+
+		// 4. Plan the arcs from transitions leaving the paths of an end node
+		// (pairs of transition and end node)
+		int[] pathArcs = new int[16];
+		int pathArcCount = 0;
+		if (!simpleEndPlace && endCount > 0) {
+			final int[] predecessorOffsets = offsets(predecessors);
+			final int[] predecessorNodes = new int[arcCount];
+			int[] successorOffsets = offsets(successors);
+			int[] successorNodes = new int[arcCount];
+			int[] nextPredecessor = Arrays.copyOf(predecessorOffsets, count);
+			int[] nextSuccessor = Arrays.copyOf(successorOffsets, count);
+			for (int a = 0; a < arcCount; a++) {
+				int source = table.getSource(a);
+				int target = table.getTarget(a);
+				predecessorNodes[nextPredecessor[target]++] = source;
+				successorNodes[nextSuccessor[source]++] = target;
+			}
+			nextPredecessor = null;
+			nextSuccessor = null;
+
+			BitSet[] pathNodes = determinePathNodes(count, ends,
+					predecessorOffsets, predecessorNodes);
+			for (int e = 0; e < endCount; e++) {
+				BitSet paths = pathNodes[e];
+				pathNodes[e] = null;
+				for (int x = paths.nextSetBit(0); x >= 0; x = paths
+						.nextSetBit(x + 1)) {
+					if (!table.isPlace(x)) {
+						continue;
+					}
+					for (int i = successorOffsets[x]; i < successorOffsets[x + 1]; i++) {
+						int suc = successorNodes[i];
+						if (!table.isPlace(suc) && !paths.get(suc)) {
+							if (pathArcCount + 2 > pathArcs.length) {
+								pathArcs = Arrays.copyOf(pathArcs,
+										pathArcs.length * 2);
+							}
+							pathArcs[pathArcCount++] = suc;
+							pathArcs[pathArcCount++] = e;
+						}
+					}
+				}
+			}
+			for (int i = 0; i < pathArcCount; i += 2) {
+				successors[pathArcs[i]]++;
+				if (pathArcs[i + 1] < endPlaces) {
+					predecessors[ends[pathArcs[i + 1]]]++;
+				}
+			}
+		}
+
+		// 3. and 4. Each end transition gets a new end place, each end place
+		// the combining transition as successor
+		for (int e = 0; e < endCount; e++) {
+			successors[ends[e]]++;
+		}
+
+		// Each transition without predecessors gets a new start place. If
+		// there are no end nodes, the combining transition has no
+		// predecessors, too
+		for (int i = 0; i < startCount; i++) {
+			predecessors[startTransitions[i]]++;
+		}
+		int newStarts = startCount + (endCount == 0 ? 1 : 0);
+
+		// 2. and 5. Initial places with predecessors or several successors
+		// get a new start place, the others are connected directly
+		BitSet initial = table.getInitial();
+		for (int v = 0; v < count; v++) {
+			if (table.isPlace(v) && predecessors[v] == 0) {
+				initial.set(v);
+			}
+		}
+		BitSet extended = new BitSet(count);
+		for (int p = initial.nextSetBit(0); p >= 0; p = initial
+				.nextSetBit(p + 1)) {
+			if (predecessors[p] > 0 || successors[p] > 1) {
+				extended.set(p);
+			}
+			predecessors[p]++;
+		}
+		int initialCount = initial.cardinality();
+		int extendedCount = extended.cardinality();
+
+		// 6. Plan the nodes to split
+		int[] plan = new int[16];
+		int planned = 0;
+		for (int v = 0; v < count; v++) {
+			if (predecessors[v] > 1 && successors[v] > 1) {
+				if (planned == plan.length) {
+					plan = Arrays.copyOf(plan, planned * 2);
+				}
+				plan[planned++] = v;
+			}
+		}
+		predecessors = null;
+		successors = null;
+
+		// Apply all the steps in a single batch
+		table.reserve(endCount - endPlaces + 2 + newStarts + 2
+				* extendedCount + 2 + 2 * planned, endCount - endPlaces
+				+ pathArcCount / 2 + endCount + 1 + newStarts + 2
+				* extendedCount + 1 + initialCount + newStarts + 2 * planned);
+
+		// 3. Add places after transitions without outgoing arcs
+		for (int e = endPlaces; e < endCount; e++) {
+			int p = place(table, context);
+			table.addArc(ends[e], p, 1);
+			ends[e] = p;
+		}
+
+		// 4. Combine different end places to a single one
+		int trans = transition(table, context,
+				simpleEndPlace ? CompactPetriNet.OR_TRANSITION
+						: CompactPetriNet.TRANSITION);
+		for (int i = 0; i < pathArcCount; i += 2) {
+			table.addArc(pathArcs[i], ends[pathArcs[i + 1]], 1);
+		}
+		for (int e = 0; e < endCount; e++) {
+			table.addArc(ends[e], trans, 1);
+		}
+		int end = place(table, context);
+		table.addArc(trans, end, 1);
+
+		// Places before transitions without incoming arcs
+		if (endCount == 0) {
+			startTransitions[startCount++] = trans;
+		}
+		int[] start = new int[initialCount + newStarts];
+		int starts = 0;
+		for (int i = 0; i < startCount; i++) {
+			int s = place(table, context);
+			table.addArc(s, startTransitions[i], 1);
+			start[starts++] = s;
+		}
+
+		// 5. Combine different initial places to a single one
+		for (int p = initial.nextSetBit(0); p >= 0; p = initial
+				.nextSetBit(p + 1)) {
+			if (extended.get(p)) {
+				int s = place(table, context);
+				int t = transition(table, context, CompactPetriNet.TRANSITION);
+				table.addArc(s, t, 1);
+				table.addArc(t, p, 1);
+				start[starts++] = s;
+			} else {
+				start[starts++] = p;
+			}
+		}
+		int s = place(table, context);
+		int t = transition(table, context, CompactPetriNet.TRANSITION);
+		table.addArc(s, t, 1);
+		for (int i = 0; i < starts; i++) {
+			table.addArc(t, start[i], 1);
+		}
+		initial.clear();
+		initial.set(s);
+
+		// 6. Split nodes with more than one incoming AND outcoming arc: The
+		// new node of the same type takes over all the outgoing arcs
+		if (planned > 0) {
+			int[] splitTo = new int[count];
+			int[] middle = new int[planned];
+			for (int i = 0; i < planned; i++) {
+				int node = plan[i];
+				int place = place(table, context);
+				int transition = transition(table, context,
+						CompactPetriNet.TRANSITION);
+				if (table.isPlace(node)) {
+					splitTo[node] = place + 1;
+					middle[i] = transition;
+				} else {
+					splitTo[node] = transition + 1;
+					middle[i] = place;
+				}
+			}
+			arcCount = table.getArcCount();
+			for (int a = 0; a < arcCount; a++) {
+				int source = table.getSource(a);
+				int to = source < count ? splitTo[source] : 0;
+				if (to > 0) {
+					table.setSource(a, to - 1);
+				}
+			}
+			for (int i = 0; i < planned; i++) {
+				table.addArc(plan[i], middle[i], 1);
+				table.addArc(middle[i], splitTo[plan[i]] - 1, 1);
+			}
+		}
+
+		return table;
+	}
+
+	/**
+	 * Adds a new place.
+	 * 
+	 * @param table
+	 *            The petri net table.
+	 * @param context
+	 *            The petri net context.
+	 * @return The number of the place.
+	 */
+	private static int place(PetriNetTable table, PetriNetContext context) {
+		return table.addNode(CompactPetriNet.PLACE, "", "px"
+				+ context.placeCounter++);
+	}
+
+	/**
+	 * Adds a new transition.
+	 * 
+	 * @param table
+	 *            The petri net table.
+	 * @param context
+	 *            The petri net context.
+	 * @param kind
+	 *            The kind of the transition.
+	 * @return The number of the transition.
+	 */
+	private static int transition(PetriNetTable table,
+			PetriNetContext context, byte kind) {
+		return table.addNode(kind, "", "tx" + context.transitionCounter++);
+	}
+
+	/**
+	 * Determines the row offsets for the given numbers of entries per node.
+	 * 
+	 * @param degrees
+	 *            The number of entries of each node.
+	 * @return The offsets (plus the end of the last row).
+	 */
+	private static int[] offsets(int[] degrees) {
+		int[] offsets = new int[degrees.length + 1];
+		for (int v = 0; v < degrees.length; v++) {
+			offsets[v + 1] = offsets[v] + degrees[v];
+		}
+		return offsets;
+	}
+
+	/**
+	 * Determines the path nodes of the given end nodes, i.e., all nodes from
+	 * which an end node is reachable (including the end node). For large
+	 * nets, the end nodes are searched in parallel.
+	 * 
+	 * @param count
+	 *            The number of nodes.
+	 * @param ends
+	 *            The end nodes.
+	 * @param offsets
+	 *            The offsets of the predecessors of each node.
+	 * @param predecessors
+	 *            The predecessors.
+	 * @return The path nodes for each end node.
+	 */
+	private static BitSet[] determinePathNodes(final int count, int[] ends,
+			final int[] offsets, final int[] predecessors) {
+		BitSet[] pathNodes = new BitSet[ends.length];
+
+		if (ends.length < 2 || count < PARALLEL_THRESHOLD) {
+			for (int e = 0; e < ends.length; e++) {
+				pathNodes[e] = determinePathNodes(count, ends[e], offsets,
+						predecessors);
+			}
+			return pathNodes;
+		}
+
+		List<Callable<BitSet>> tasks = new ArrayList<Callable<BitSet>>();
+		for (final int end : ends) {
+			tasks.add(new Callable<BitSet>() {
+				@Override
+				public BitSet call() {
+					return determinePathNodes(count, end, offsets,
+							predecessors);
+				}
+			});
+		}
+
+		List<Future<BitSet>> results = ForkJoinPool.commonPool().invokeAll(
+				tasks);
+		try {
+			for (int e = 0; e < pathNodes.length; e++) {
+				pathNodes[e] = results.get(e).get();
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		} catch (ExecutionException ex) {
+			throw new IllegalStateException(ex.getCause());
+		}
+		return pathNodes;
+	}
+
+	/**
+	 * Determines the path nodes of a single end node by a breadth first
+	 * search over the predecessors.
+	 * 
+	 * @param count
+	 *            The number of nodes.
+	 * @param end
+	 *            The end node.
+	 * @param offsets
+	 *            The offsets of the predecessors of each node.
+	 * @param predecessors
+	 *            The predecessors.
+	 * @return The path nodes.
+	 */
+	private static BitSet determinePathNodes(int count, int end,
+			int[] offsets, int[] predecessors) {
+		BitSet reached = new BitSet(count);
+		int[] queue = new int[count];
+		int head = 0;
+		int tail = 0;
+
+		reached.set(end);
+		queue[tail++] = end;
+
+		while (head < tail) {
+			int node = queue[head++];
+			for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+				int pre = predecessors[i];
+				if (!reached.get(pre)) {
+					reached.set(pre);
+					queue[tail++] = pre;
+				}
+			}
+		}
+
+		return reached;
+	}
+}
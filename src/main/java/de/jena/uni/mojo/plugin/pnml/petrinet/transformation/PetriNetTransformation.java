@@ -18,9 +18,19 @@
  */
 package de.jena.uni.mojo.plugin.pnml.petrinet.transformation;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.Set;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import de.jena.uni.mojo.Mojo;
 import de.jena.uni.mojo.plugin.pnml.parser.pnml.PetriNetContext;
@@ -40,9 +50,37 @@ import de.jena.uni.mojo.plugin.pnml.petrinet.model.Transition;
 public class PetriNetTransformation {
 
 	/**
-	 * All path nodes (for combining different exit nodes to a single one).
+	 * The minimal number of nodes for determining the path nodes of several
+	 * end places in parallel.
 	 */
-	private HashMap<PNode, Set<PNode>> pathNodes = new HashMap<PNode, Set<PNode>>();
+	private static final int PARALLEL_THRESHOLD = 1 << 12;
+
+	/**
+	 * Whether the fused normalization is used.
+	 */
+	private boolean fused = false;
+
+	/**
+	 * Set whether the fused normalization is used. It scans the net once,
+	 * plans all the steps of the transformation and applies them in a
+	 * single batch instead of performing each step as a separate pass. The
+	 * transformed net has the same structure either way.
+	 * 
+	 * @param fused
+	 *            Whether the fused normalization is used.
+	 */
+	public void setFused(boolean fused) {
+		this.fused = fused;
+	}
+
+	/**
+	 * Whether the fused normalization is used.
+	 * 
+	 * @return Whether the fused normalization is used.
+	 */
+	public boolean isFused() {
+		return fused;
+	}
 
 	/**
 	 * Transform and repair the petri net by:
@@ -66,8 +104,32 @@ public class PetriNetTransformation {
 	 * @return The repaired petri net.
 	 */
 	public PetriNet transform(PetriNet net, PetriNetContext context) {
+		return transform(net, context, Mojo.getCommand("SIMPLE_END_PLACE")
+				.asBooleanValue());
+	}
+
+	/**
+	 * Transform and repair the petri net like {@link #transform(PetriNet,
+	 * PetriNetContext)}, but with an explicitly given end place strategy
+	 * instead of the global SIMPLE_END_PLACE command.
+	 * 
+	 * @param net
+	 *            The petri net to transform.
+	 * @param context
+	 *            The context of the petri net.
+	 * @param simpleEndPlace
+	 *            Whether the end places are combined by a simple or
+	 *            transition.
+	 * @return The repaired petri net.
+	 */
+	public PetriNet transform(PetriNet net, PetriNetContext context,
+			boolean simpleEndPlace) {
+		if (fused) {
+			return fusedTransform(net, context, simpleEndPlace);
+		}
+
 		repair(net, context);
-		if (Mojo.getCommand("SIMPLE_END_PLACE").asBooleanValue()) {
+		if (simpleEndPlace) {
 			simpleEndTransform(net, context);
 		} else {
 			endTransform(net, context);
@@ -81,6 +143,225 @@ public class PetriNetTransformation {
 		return net;
 	}
 
+	/**
+	 * Performs all the steps of {@link #transform(PetriNet, PetriNetContext,
+	 * boolean)} as a fused normalization. The start and end nodes are known
+	 * by the net. Since each step changes the number of predecessors and
+	 * successors of these nodes in a known way, the decisions of all the
+	 * steps are derived from the changed numbers, so that a single scan over
+	 * all nodes remains for finding the nodes to split. Afterwards, all the
+	 * new nodes and arcs are added in a single batch.
+	 * 
+	 * @param net
+	 *            The petri net.
+	 * @param context
+	 *            The petri net context.
+	 * @param simpleEndPlace
+	 *            Whether the end places are combined by a simple or
+	 *            transition.
+	 * @return The transformed petri net.
+	 */
+	private PetriNet fusedTransform(PetriNet net, PetriNetContext context,
+			boolean simpleEndPlace) {
+		// 1. Extend isolated places (the net has a single place)
+		if (net.getPlaces().size() == 1) {
+			extendSinglePlace(net, context);
+		}
+
+		// The start and end nodes
+		int count = net.getNodeCount();
+		List<Place> startPlaces = new ArrayList<Place>(net.getStartPlaces());
+		List<Transition> startTransitions = new ArrayList<Transition>(
+				net.getStartTransitions());
+		List<PNode> ends = new ArrayList<PNode>(net.getEndNodes());
+		List<Transition> endTransitions = new ArrayList<Transition>(
+				net.getEndTransitions());
+
+		// The planned numbers of predecessors and successors of the nodes
+		// changed by the steps
+		Map<PNode, int[]> degrees = new LinkedHashMap<PNode, int[]>();
+		BitSet changed = new BitSet(count);
+		int endPlaces = ends.size();
+
+		// 3. Each transition without successors gets a new end place. Its
+		// paths are the paths of the transition
+		for (Transition t : endTransitions) {
+			degrees(degrees, changed, t)[1]++;
+			ends.add(t);
+		}
+
+		// 4. Each end place gets the combining transition as successor
+		for (int e = 0; e < endPlaces; e++) {
+			degrees(degrees, changed, ends.get(e))[1]++;
+		}
+
+		// 4. Plan the arcs from transitions leaving the paths of an end node
+		// (pairs of transition and end node)
+		int[] pathArcs = new int[16];
+		int pathArcCount = 0;
+		if (!simpleEndPlace) {
+			BitSet[] pathNodes = determinePathNodes(net, ends);
+			for (int e = 0; e < ends.size(); e++) {
+				BitSet paths = pathNodes[e];
+				pathNodes[e] = null;
+				for (int i = paths.nextSetBit(0); i >= 0; i = paths
+						.nextSetBit(i + 1)) {
+					PNode pathNode = net.getNode(i);
+					if (pathNode instanceof Place) {
+						for (PNode suc : pathNode.successors) {
+							if (suc instanceof Transition
+									&& !paths.get(suc.getIndex())) {
+								if (pathArcCount + 2 > pathArcs.length) {
+									pathArcs = Arrays.copyOf(pathArcs,
+											pathArcs.length * 2);
+								}
+								pathArcs[pathArcCount++] = suc.getIndex();
+								pathArcs[pathArcCount++] = e;
+								degrees(degrees, changed, suc)[1]++;
+								if (e < endPlaces) {
+									degrees(degrees, changed, ends.get(e))[0]++;
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+
+		// Each transition without predecessors gets a new start place. If
+		// there are no end nodes, the combining transition has no
+		// predecessors, too
+		for (Transition t : startTransitions) {
+			degrees(degrees, changed, t)[0]++;
+		}
+		int newStarts = startTransitions.size() + (ends.isEmpty() ? 1 : 0);
+
+		// 2. and 5. Initial places with predecessors or several successors
+		// get a new start place, the others are connected directly
+		LinkedHashSet<Place> initial = new LinkedHashSet<Place>(
+				net.getInitialPlaces());
+		initial.addAll(startPlaces);
+		List<Place> start = new ArrayList<Place>();
+		List<Place> extended = new ArrayList<Place>();
+		for (Place p : initial) {
+			int[] degree = degrees(degrees, changed, p);
+			if (degree[0] > 0 || degree[1] > 1) {
+				extended.add(p);
+			} else {
+				start.add(p);
+			}
+			degree[0]++;
+		}
+
+		// 6. Plan the nodes to split (in a single scan)
+		int[] plan = new int[count];
+		int planned = planSplits(net, count, degrees, changed, plan);
+		degrees = null;
+
+		// Apply all the steps in a single batch
+		net.reserve(endTransitions.size() + 2 + newStarts + 2
+				* extended.size() + 2 + 2 * planned, endTransitions.size()
+				+ pathArcCount / 2 + ends.size() + 1 + newStarts + 2
+				* extended.size() + 1 + initial.size() + newStarts + 2
+				* planned);
+
+		// 3. Add places after transitions without outgoing arcs
+		Place[] endNodes = new Place[ends.size()];
+		for (int e = 0; e < ends.size(); e++) {
+			if (e < endPlaces) {
+				endNodes[e] = (Place) ends.get(e);
+			} else {
+				Place p = new Place(context.placeCounter++);
+				net.add(p);
+				net.add(new Arc(context.arcCounter++, ends.get(e), p, 1));
+				endNodes[e] = p;
+			}
+		}
+
+		// 4. Combine different end places to a single one
+		Transition trans = new Transition(context.transitionCounter++);
+		trans.setOrTransition(simpleEndPlace);
+		net.add(trans);
+		for (int i = 0; i < pathArcCount; i += 2) {
+			net.add(new Arc(context.arcCounter++, net.getNode(pathArcs[i]),
+					endNodes[pathArcs[i + 1]], 1));
+		}
+		for (Place end : endNodes) {
+			net.add(new Arc(context.arcCounter++, end, trans, 1));
+		}
+		Place end = new Place(context.placeCounter++);
+		net.add(end);
+		net.add(new Arc(context.arcCounter++, trans, end, 1));
+
+		// Places before transitions without incoming arcs
+		if (ends.isEmpty()) {
+			startTransitions.add(trans);
+		}
+		for (Transition t : startTransitions) {
+			Place s = new Place(context.placeCounter++);
+			s.setMarking(1);
+			net.add(s);
+			net.add(new Arc(context.arcCounter++, s, t, 1));
+			start.add(s);
+		}
+
+		// 5. Combine different initial places to a single one
+		for (Place p : extended) {
+			Place s = new Place(context.placeCounter++);
+			s.setMarking(1);
+			Transition t = new Transition(context.transitionCounter++);
+			net.add(s);
+			net.add(t);
+			net.add(new Arc(context.arcCounter++, s, t, 1));
+			net.add(new Arc(context.arcCounter++, t, p, 1));
+			p.setMarking(0);
+			start.add(s);
+		}
+		Place s = new Place(context.placeCounter++);
+		Transition t = new Transition(context.transitionCounter++);
+		net.add(s);
+		net.add(t);
+		net.add(new Arc(context.arcCounter++, s, t, 1));
+		for (Place st : start) {
+			net.add(new Arc(context.arcCounter++, t, st, 1));
+		}
+		net.clearInitial();
+		net.addInitial(s);
+
+		// 6. Split nodes with more than one incoming AND outcoming arc
+		for (int i = 0; i < planned; i++) {
+			split(net, context, net.getNode(plan[i]));
+		}
+
+		net.setClosed(true);
+
+		return net;
+	}
+
+	/**
+	 * Get the planned number of predecessors and successors of a node. At
+	 * first, these are the current numbers.
+	 * 
+	 * @param degrees
+	 *            The planned numbers of the changed nodes.
+	 * @param changed
+	 *            The indices of the changed nodes.
+	 * @param node
+	 *            The node.
+	 * @return The number of predecessors and successors (at index 0 and 1).
+	 */
+	private static int[] degrees(Map<PNode, int[]> degrees, BitSet changed,
+			PNode node) {
+		int[] degree = degrees.get(node);
+		if (degree == null) {
+			degree = new int[] { node.predecessors.size(),
+					node.successors.size() };
+			degrees.put(node, degree);
+			changed.set(node.getIndex());
+		}
+		return degree;
+	}
+
 	/**
 	 * Performs the steps:
 	 * 
@@ -98,47 +379,47 @@ public class PetriNetTransformation {
 	 */
 	private PetriNet repair(PetriNet net, PetriNetContext context) {
 		if (net.getPlaces().size() == 1) {
-			// The net has only one place with an initial marking
-			Place p = net.getPlaces().get(0);
-			// Create a new end place
-			Place e = new Place(context.placeCounter++);
-			// And a new transition
-			Transition t = new Transition(context.transitionCounter++);
-
-			p.successors.add(t);
-			t.predecessors.add(p);
-			e.predecessors.add(t);
-			t.successors.add(e);
-
-			// Change the model
-			net.add(e);
-			net.add(t);
-			net.add(new Arc(context.arcCounter++, p, t, 1));
-			net.add(new Arc(context.arcCounter++, t, e, 1));
+			extendSinglePlace(net, context);
 		}
-		for (Place p : net.getPlaces()) {
-			if (p.predecessors.isEmpty()) {
-				// Add it as an initial place
-				net.addInitial(p);
-			}
+		for (Place p : net.getStartPlaces()) {
+			// Add it as an initial place
+			net.addInitial(p);
 		}
-		for (Transition t : net.getTransitions()) {
-			if (t.successors.isEmpty()) {
-				// Add a place as final place
-				Place p = new Place(context.placeCounter++);
-
-				t.successors.add(p);
-				p.predecessors.add(t);
+		for (Transition t : new ArrayList<Transition>(net.getEndTransitions())) {
+			// Add a place as final place
+			Place p = new Place(context.placeCounter++);
 
-				// Change the model
-				net.add(p);
-				net.add(new Arc(context.arcCounter++, t, p, 1));
-			}
+			// Change the model
+			net.add(p);
+			net.add(new Arc(context.arcCounter++, t, p, 1));
 		}
 
 		return net;
 	}
 
+	/**
+	 * Extends the only place of a net by a transition and a new end place.
+	 * 
+	 * @param net
+	 *            The petri net with a single place.
+	 * @param context
+	 *            The petri net context.
+	 */
+	private void extendSinglePlace(PetriNet net, PetriNetContext context) {
+		// The net has only one place with an initial marking
+		Place p = net.getPlaces().get(0);
+		// Create a new end place
+		Place e = new Place(context.placeCounter++);
+		// And a new transition
+		Transition t = new Transition(context.transitionCounter++);
+
+		// Change the model
+		net.add(e);
+		net.add(t);
+		net.add(new Arc(context.arcCounter++, p, t, 1));
+		net.add(new Arc(context.arcCounter++, t, e, 1));
+	}
+
 	/**
 	 * Places a place before each transition without incoming edges.
 	 * 
@@ -153,20 +434,16 @@ public class PetriNetTransformation {
 		// Take a look at every transition
 		// if one transition has no predecessor
 		// insert a new place
-		for (Transition trans : net.getTransitions()) {
-			if (trans.predecessors.isEmpty()) {
-				// Create a new start place
-				Place s = new Place(context.placeCounter++);
-				s.setMarking(1);
-
-				s.successors.add(trans);
-				trans.predecessors.add(s);
+		for (Transition trans : new ArrayList<Transition>(
+				net.getStartTransitions())) {
+			// Create a new start place
+			Place s = new Place(context.placeCounter++);
+			s.setMarking(1);
 
-				// Change the model
-				net.add(s);
-				net.add(new Arc(context.arcCounter++, s, trans, 1));
-				net.addInitial(s);
-			}
+			// Change the model
+			net.add(s);
+			net.add(new Arc(context.arcCounter++, s, trans, 1));
+			net.addInitial(s);
 		}
 		return net;
 	}
@@ -197,10 +474,6 @@ public class PetriNetTransformation {
 
 				// Create a new transition
 				Transition trans = new Transition(context.transitionCounter++);
-				trans.predecessors.add(s);
-				trans.successors.add(p);
-				s.successors.add(trans);
-				p.predecessors.add(trans);
 
 				// Update the model
 				net.add(s);
@@ -217,22 +490,16 @@ public class PetriNetTransformation {
 		// Now create one single start place
 		Place s = new Place(context.placeCounter++);
 		Transition trans = new Transition(context.transitionCounter++);
-		trans.predecessors.add(s);
-		s.successors.add(trans);
-		net.add(new Arc(context.arcCounter++, s, trans, 1));
 		net.add(s);
 		net.add(trans);
+		net.add(new Arc(context.arcCounter++, s, trans, 1));
 
 		for (Place st : start) {
-			// Create a new transition
-			trans.successors.add(st);
-			st.predecessors.add(trans);
-
 			net.add(new Arc(context.arcCounter++, trans, st, 1));
 		}
 
-		net.getInitialPlaces().clear();
-		net.getInitialPlaces().add(s);
+		net.clearInitial();
+		net.addInitial(s);
 
 		return net;
 	}
@@ -251,28 +518,18 @@ public class PetriNetTransformation {
 		// Create a new transition
 		Transition trans = new Transition(context.transitionCounter++);
 		trans.setOrTransition(true);
+		net.add(trans);
 
 		// Connect all end places with the transition
-		for (Place end : net.getEndNodes()) {
-			end.successors.add(trans);
-			trans.predecessors.add(end);
-
+		for (Place end : new ArrayList<Place>(net.getEndNodes())) {
 			net.add(new Arc(context.arcCounter++, end, trans, 1));
 		}
 
-		net.add(trans);
-
 		// New end place
 		Place end = new Place(context.placeCounter++);
-		trans.successors.add(end);
-		end.predecessors.add(trans);
-
 		net.add(end);
 		net.add(new Arc(context.arcCounter++, trans, end, 1));
 
-		net.getEndNodes().clear();
-		net.getEndNodes().add(end);
-
 		return net;
 	}
 
@@ -288,12 +545,12 @@ public class PetriNetTransformation {
 	 * @return The petri net with a single end place.
 	 */
 	private PetriNet endTransform(PetriNet net, PetriNetContext context) {
-		// Determine all the nodes lying on the path
-		// to the node
-		determinePathNodes(net);
-
 		// Get the end nodes
-		Set<Place> ends = net.getEndNodes();
+		List<Place> endList = new ArrayList<Place>(net.getEndNodes());
+
+		// Determine all the nodes lying on the path
+		// to the end nodes
+		BitSet[] pathNodes = determinePathNodes(net, endList);
 
 		// For every end node, take a look to the nodes lying
 		// on the path between the start and the end node.
@@ -301,19 +558,19 @@ public class PetriNetTransformation {
 		// isn't on this path, then we have to create a fork
 		// after this split and put it to the end node.
 		// After all, the end node is translated to a merge.
-		for (Place end : ends) {
+		for (int e = 0; e < endList.size(); e++) {
+			Place end = endList.get(e);
+
 			// Get the nodes on the path
-			Set<PNode> paths = pathNodes.get(end);
+			BitSet paths = pathNodes[e];
 
-			for (PNode pathNode : paths) {
+			for (int i = paths.nextSetBit(0); i >= 0; i = paths
+					.nextSetBit(i + 1)) {
+				PNode pathNode = net.getNode(i);
 				if (pathNode instanceof Place) {
 					for (PNode suc : pathNode.successors) {
 						if (suc instanceof Transition) {
-							if (!paths.contains(suc)) {
-								// Update the nodes
-								suc.successors.add(end);
-								end.predecessors.add(suc);
-
+							if (!paths.get(suc.getIndex())) {
 								// Update the model
 								net.add(new Arc(context.arcCounter++, suc, end,
 										1));
@@ -326,22 +583,15 @@ public class PetriNetTransformation {
 
 		// Create a new transition
 		Transition trans = new Transition(context.transitionCounter++);
+		net.add(trans);
 
 		// Connect all end places with the transition
-		for (Place end : ends) {
-			end.successors.add(trans);
-			trans.predecessors.add(end);
-
+		for (Place end : endList) {
 			net.add(new Arc(context.arcCounter++, end, trans, 1));
 		}
 
-		net.add(trans);
-
 		// New end place
 		Place end = new Place(context.placeCounter++);
-		trans.successors.add(end);
-		end.predecessors.add(trans);
-
 		net.add(end);
 		net.add(new Arc(context.arcCounter++, trans, end, 1));
 
@@ -353,6 +603,11 @@ public class PetriNetTransformation {
 	 * 
 	 * 6. Split nodes with more than one incoming AND outcoming arc.
 	 * 
+	 * Splitting a node does not change the number of predecessors and
+	 * successors of other nodes, so the nodes to split are planned in a first
+	 * pass. Afterwards, the outgoing arcs of each planned node are moved at
+	 * once to the new node, which takes linear time in the degree of the node.
+	 * 
 	 * @param net
 	 *            The petri net.
 	 * @param context
@@ -360,149 +615,187 @@ public class PetriNetTransformation {
 	 * @return The petri net with unique node types.
 	 */
 	private PetriNet uniqueTypeTransform(PetriNet net, PetriNetContext context) {
+		// Plan: Determine the indices of the nodes with more than one
+		// predecessor and more than one successor
+		int count = net.getNodeCount();
+		int[] plan = new int[count];
+		int planned = planSplits(net, count, Collections
+				.<PNode, int[]> emptyMap(), new BitSet(), plan);
+
+		// Apply: Split the planned nodes
+		for (int i = 0; i < planned; i++) {
+			split(net, context, net.getNode(plan[i]));
+		}
 
-		// For all the nodes do:
-		for (PNode node : net.getNodes()) {
-			if (node instanceof Place) {
-				// Has the place more then one predecessor and more then one
-				// successor?
-				if (node.predecessors.size() > 1 && node.successors.size() > 1) {
-					// We create a new transition
-					Transition trans = new Transition(
-							context.transitionCounter++);
-
-					// Create a new place
-					Place place = new Place(context.placeCounter++);
-
-					// Add all the successors of the old place to the new
-					place.successors.addAll(node.successors);
-
-					// Update the arcs and successors
-					for (PNode suc : place.successors) {
-						suc.predecessors.remove(node);
-						net.removeArc(Arc.toString(node, suc));
-						suc.predecessors.add(place);
-						net.add(new Arc(context.arcCounter++, place, suc, 1));
-					}
+		return net;
+	}
 
-					// Connect the old place with the transition
-					node.successors.clear();
-					node.successors.add(trans);
-					trans.predecessors.add(node);
+	/**
+	 * Determines the nodes with more than one predecessor and more than one
+	 * successor. For changed nodes, the planned numbers of predecessors and
+	 * successors are used instead of the current ones.
+	 * 
+	 * @param net
+	 *            The petri net.
+	 * @param count
+	 *            The number of node indices to scan.
+	 * @param degrees
+	 *            The planned numbers of the changed nodes.
+	 * @param changed
+	 *            The indices of the changed nodes.
+	 * @param plan
+	 *            The array that takes the indices of the nodes to split.
+	 * @return The number of nodes to split.
+	 */
+	private static int planSplits(PetriNet net, int count,
+			Map<PNode, int[]> degrees, BitSet changed, int[] plan) {
+		int planned = 0;
+
+		// The unchanged nodes (the changed ones are looked up only if
+		// their current numbers would split them)
+		for (int i = 0; i < count; i++) {
+			PNode node = net.getNode(i);
+			if (node != null && node.predecessors.size() > 1
+					&& node.successors.size() > 1 && !changed.get(i)) {
+				plan[planned++] = i;
+			}
+		}
 
-					net.add(new Arc(context.arcCounter++, node, trans, 1));
+		// The changed nodes
+		for (Map.Entry<PNode, int[]> entry : degrees.entrySet()) {
+			int[] degree = entry.getValue();
+			if (degree[0] > 1 && degree[1] > 1) {
+				plan[planned++] = entry.getKey().getIndex();
+			}
+		}
+		return planned;
+	}
 
-					// Connect the transition with the new place
-					trans.successors.add(place);
-					place.predecessors.add(trans);
+	/**
+	 * Splits a node with more than one predecessor and more than one
+	 * successor into two nodes of the same type that are connected by a node
+	 * of the other type. The new node of the same type takes over all the
+	 * successors.
+	 * 
+	 * @param net
+	 *            The petri net.
+	 * @param context
+	 *            The petri net context.
+	 * @param node
+	 *            The node to split.
+	 */
+	private void split(PetriNet net, PetriNetContext context, PNode node) {
+		// We create a new transition
+		Transition trans = new Transition(context.transitionCounter++);
 
-					net.add(new Arc(context.arcCounter++, trans, place, 1));
+		// Create a new place
+		Place place = new Place(context.placeCounter++);
 
-					// Put the nodes to the model
-					net.add(place);
-					net.add(trans);
-				}
-			} else {
-				// Has the place more then one predecessor and more then one
-				// successor?
-				if (node.predecessors.size() > 1 && node.successors.size() > 1) {
-					// We create a new transition
-					Transition trans = new Transition(
-							context.transitionCounter++);
-
-					// Create a new place
-					Place place = new Place(context.placeCounter++);
-
-					// Add all the successors of the old transition to the new
-					trans.successors.addAll(node.successors);
-
-					// Update the arcs and successors
-					for (PNode suc : trans.successors) {
-						suc.predecessors.remove(node);
-						net.removeArc(Arc.toString(node, suc));
-						suc.predecessors.add(trans);
-						net.add(new Arc(context.arcCounter++, trans, suc, 1));
-					}
+		// Put the nodes to the model
+		net.add(place);
+		net.add(trans);
 
-					// Connect the old place with the transition
-					node.successors.clear();
-					node.successors.add(place);
-					place.predecessors.add(node);
+		if (node instanceof Place) {
+			// Move all the successors of the old place to the new
+			net.moveSuccessors(node, place);
 
-					net.add(new Arc(context.arcCounter++, node, place, 1));
+			// Connect the old place with the transition
+			net.add(new Arc(context.arcCounter++, node, trans, 1));
 
-					// Connect the transition with the new place
-					place.successors.add(trans);
-					trans.predecessors.add(place);
+			// Connect the transition with the new place
+			net.add(new Arc(context.arcCounter++, trans, place, 1));
+		} else {
+			// Move all the successors of the old transition to the new
+			net.moveSuccessors(node, trans);
 
-					net.add(new Arc(context.arcCounter++, place, trans, 1));
+			// Connect the old transition with the place
+			net.add(new Arc(context.arcCounter++, node, place, 1));
 
-					// Put the nodes to the model
-					net.add(place);
-					net.add(trans);
-				}
-			}
+			// Connect the place with the new transition
+			net.add(new Arc(context.arcCounter++, place, trans, 1));
 		}
-
-		return net;
 	}
 
 	/**
-	 * Determines the path nodes for the petri nets.
+	 * Determines the path nodes of the given end nodes, i.e., all nodes from
+	 * which an end node is reachable (including the end node). Each set is
+	 * found by a breadth first search over the predecessors. For large nets,
+	 * the end nodes are searched in parallel.
 	 * 
 	 * @param net
 	 *            The petri net.
-	 * @return false
+	 * @param ends
+	 *            The end nodes.
+	 * @return The indices of the path nodes for each end node.
 	 */
-	private boolean determinePathNodes(PetriNet net) {
-		boolean stable;
+	private BitSet[] determinePathNodes(final PetriNet net,
+			List<? extends PNode> ends) {
+		BitSet[] pathNodes = new BitSet[ends.size()];
 
-		/*
-		 * INITIALIZE
-		 */
-		for (PNode node : net.getNodes()) {
-			pathNodes.put(node, new HashSet<PNode>());
+		if (ends.size() < 2 || net.getNodeCount() < PARALLEL_THRESHOLD) {
+			for (int e = 0; e < pathNodes.length; e++) {
+				pathNodes[e] = determinePathNodes(net, ends.get(e));
+			}
+			return pathNodes;
 		}
 
-		do {
-			stable = true;
-
-			// Take a look at every node and determine the signal classes
-			for (PNode node : net.getNodes()) {
-
-				/*
-				 * OUT
-				 */
-
-				// A new hash set
-				HashSet<PNode> nef = new HashSet<PNode>();
-
-				for (PNode pre : node.predecessors) {
-					try {
-						nef.addAll(pathNodes.get(pre));
-					} catch (NullPointerException ex) {
-						System.out.println(pre + " " + pathNodes + " " + nef);
-						throw ex;
-					}
+		List<Callable<BitSet>> tasks = new ArrayList<Callable<BitSet>>();
+		for (final PNode end : ends) {
+			tasks.add(new Callable<BitSet>() {
+				@Override
+				public BitSet call() {
+					return determinePathNodes(net, end);
 				}
+			});
+		}
 
-				nef.add(node);
+		// The net is not changed while the tasks read it
+		List<Future<BitSet>> results = ForkJoinPool.commonPool().invokeAll(
+				tasks);
+		try {
+			for (int e = 0; e < pathNodes.length; e++) {
+				pathNodes[e] = results.get(e).get();
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		} catch (ExecutionException ex) {
+			throw new IllegalStateException(ex.getCause());
+		}
+		return pathNodes;
+	}
 
-				/*
-				 * Stable check
-				 */
-				if (pathNodes.get(node).size() == nef.size()) {
-					continue;
+	/**
+	 * Determines the path nodes of a single end node by a breadth first
+	 * search over the predecessors.
+	 * 
+	 * @param net
+	 *            The petri net.
+	 * @param end
+	 *            The end node.
+	 * @return The indices of the path nodes.
+	 */
+	private static BitSet determinePathNodes(PetriNet net, PNode end) {
+		BitSet reached = new BitSet(net.getNodeCount());
+		int[] queue = new int[net.getNodeCount()];
+		int head = 0;
+		int tail = 0;
+
+		reached.set(end.getIndex());
+		queue[tail++] = end.getIndex();
+
+		while (head < tail) {
+			PNode node = net.getNode(queue[head++]);
+			for (PNode pre : node.predecessors) {
+				int index = pre.getIndex();
+				if (!reached.get(index)) {
+					reached.set(index);
+					queue[tail++] = index;
 				}
-
-				// Unstable
-				stable = false;
-				pathNodes.get(node).addAll(nef);
 			}
+		}
 
-		} while (!stable);
-
-		return false;
+		return reached;
 	}
 
 }
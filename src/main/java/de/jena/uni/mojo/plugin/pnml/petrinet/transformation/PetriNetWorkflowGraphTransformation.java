@@ -19,20 +19,17 @@
 package de.jena.uni.mojo.plugin.pnml.petrinet.transformation;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 import de.jena.uni.mojo.model.WGNode;
 import de.jena.uni.mojo.model.WGNode.Type;
 import de.jena.uni.mojo.model.WorkflowGraph;
-import de.jena.uni.mojo.plugin.pnml.petrinet.model.Arc;
-import de.jena.uni.mojo.plugin.pnml.petrinet.model.PNode;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.CompactPetriNet;
 import de.jena.uni.mojo.plugin.pnml.petrinet.model.PetriNet;
-import de.jena.uni.mojo.plugin.pnml.petrinet.model.Place;
-import de.jena.uni.mojo.plugin.pnml.petrinet.model.Transition;
 
 /**
- * Transforms a petri net into a semantic equivalent workflow graph.
+ * Transforms a petri net into a semantic equivalent workflow graph. The
+ * transformation works on the compact representation of the net.
  * 
  * @author Dipl.-Inf. Thomas M. Prinz
  * 
@@ -45,9 +42,9 @@ public class PetriNetWorkflowGraphTransformation {
 	private final List<WGNode> ends = new ArrayList<WGNode>();
 
 	/**
-	 * A map that handles the transformation.
+	 * The workflow graph node of each petri net node (by its index).
 	 */
-	private final HashMap<PNode, WGNode> transformationMap = new HashMap<PNode, WGNode>();
+	private WGNode[] transformationMap;
 
 	/**
 	 * Transform the given petri net into a workflow graph.
@@ -57,127 +54,99 @@ public class PetriNetWorkflowGraphTransformation {
 	 * @return The semantic equivalent workflow graph.
 	 */
 	public WorkflowGraph transform(PetriNet net) {
+		return transform(CompactPetriNet.of(net));
+	}
+
+	/**
+	 * Transform the given compact petri net into a workflow graph.
+	 * 
+	 * @param net
+	 *            The compact petri net.
+	 * @return The semantic equivalent workflow graph.
+	 */
+	public WorkflowGraph transform(CompactPetriNet net) {
 		int nodeCounter = 0;
 		WorkflowGraph graph = new WorkflowGraph();
+		transformationMap = new WGNode[net.getNodeCount()];
 
 		// Transform every place and transition to a workflow process
 		// node
-		for (PNode pNode : net.getNodes()) {
-			if (pNode instanceof Place) {
+		for (int pNode = 0; pNode < net.getNodeCount(); pNode++) {
+			int predecessors = net.getPredecessorCount(pNode);
+			int successors = net.getSuccessorCount(pNode);
+			WGNode node = null;
+
+			if (net.isPlace(pNode)) {
 				// If the place has exact one predecessor and one successor
 				// it is activity
-				if (pNode.predecessors.size() == 1
-						&& pNode.successors.size() == 1) {
-					WGNode node = new WGNode(nodeCounter++, Type.ACTIVITY);
-					String name = ((Place) pNode).getName();
+				if (predecessors == 1 && successors == 1) {
+					node = new WGNode(nodeCounter++, Type.ACTIVITY);
+					String name = net.getName(pNode);
 					if (name.startsWith("$$")) {
 						name = name.substring(2);
 					}
 
-					node.addProcessElement(pNode);
 					node.setCode(name);
-
 					graph.addNode(node);
-
-					transformationMap.put(pNode, node);
-				} else if (pNode.predecessors.size() == 0
-						&& pNode.successors.size() == 1) {
-					if (net.getInitialPlaces().contains(pNode)) {
+				} else if (predecessors == 0 && successors == 1) {
+					if (net.isInitial(pNode)) {
 						// It's a start node
-						WGNode node = new WGNode(nodeCounter++, Type.START);
-
-						node.addProcessElement(pNode);
+						node = new WGNode(nodeCounter++, Type.START);
 						graph.setStart(node);
-
-						transformationMap.put(pNode, node);
-
 					} else {
-						WGNode node = new WGNode(nodeCounter++, Type.ACTIVITY);
-
-						node.addProcessElement(pNode);
+						node = new WGNode(nodeCounter++, Type.ACTIVITY);
 						graph.addNode(node);
-
-						transformationMap.put(pNode, node);
 					}
-
-				} else if (pNode.predecessors.size() == 1
-						&& pNode.successors.size() == 0) {
+				} else if (predecessors == 1 && successors == 0) {
 					// It's an end node
-					WGNode node = new WGNode(nodeCounter++, Type.ACTIVITY);
-
-					node.addProcessElement(pNode);
+					node = new WGNode(nodeCounter++, Type.ACTIVITY);
 					graph.addNode(node);
 					ends.add(node);
-
-					transformationMap.put(pNode, node);
-				} else if (pNode.predecessors.size() > 1) {
+				} else if (predecessors > 1) {
 					// It's a merge
-					WGNode node = new WGNode(nodeCounter++, Type.MERGE);
-
-					node.addProcessElement(pNode);
+					node = new WGNode(nodeCounter++, Type.MERGE);
 					graph.addNode(node);
-
-					transformationMap.put(pNode, node);
-				} else if (pNode.successors.size() > 1) {
+				} else if (successors > 1) {
 					// It's a split
-					WGNode node = new WGNode(nodeCounter++, Type.SPLIT);
-
-					node.addProcessElement(pNode);
+					node = new WGNode(nodeCounter++, Type.SPLIT);
 					graph.addNode(node);
-
-					transformationMap.put(pNode, node);
-				} else {
-
 				}
 			} else {
-				if (pNode.predecessors.size() > 1) {
+				boolean or = net.getKind(pNode) == CompactPetriNet.OR_TRANSITION;
+				if (predecessors > 1) {
 					// It's a join, however, when its semantics should be
 					// interpreted
 					// as an or-join, we have to handle it as a or-join node.
-					WGNode node;
-					if (!((Transition) pNode).isOrTransition()) {
-						node = new WGNode(nodeCounter++, Type.JOIN);
-					} else {
-						node = new WGNode(nodeCounter++, Type.OR_JOIN);
-					}
-
-					node.addProcessElement(pNode);
-					graph.addNode(node);
-
-					transformationMap.put(pNode, node);
-				} else if (pNode.successors.size() > 1) {
-					WGNode node;
-					if (!((Transition) pNode).isOrTransition()) {
-						node = new WGNode(nodeCounter++, Type.FORK);
-					} else {
-						node = new WGNode(nodeCounter++, Type.OR_FORK);
-					}
-
-					node.addProcessElement(pNode);
-					graph.addNode(node);
-
-					transformationMap.put(pNode, node);
+					node = new WGNode(nodeCounter++, or ? Type.OR_JOIN
+							: Type.JOIN);
+				} else if (successors > 1) {
+					node = new WGNode(nodeCounter++, or ? Type.OR_FORK
+							: Type.FORK);
 				} else {
 					// We translate them to an activity
 					// It's easier to handle
-					WGNode node = new WGNode(nodeCounter++, Type.ACTIVITY);
-
-					node.addProcessElement(pNode);
-					graph.addNode(node);
-
-					transformationMap.put(pNode, node);
+					node = new WGNode(nodeCounter++, Type.ACTIVITY);
 				}
+				graph.addNode(node);
+			}
+
+			if (node != null) {
+				node.addProcessElement(net.getElement(pNode));
+				transformationMap[pNode] = node;
 			}
 		}
 
 		// Transform the arcs
-		for (Arc arc : net.getArcs()) {
-			WGNode source = transformationMap.get(arc.source);
-			WGNode target = transformationMap.get(arc.target);
-
-			// Link the nodes
-			source.addSuccessor(target);
-			target.addPredecessor(source);
+		for (int pNode = 0; pNode < net.getNodeCount(); pNode++) {
+			WGNode source = transformationMap[pNode];
+			int end = net.getSuccessorOffset(pNode + 1);
+			for (int i = net.getSuccessorOffset(pNode); i < end; i++) {
+				WGNode target = transformationMap[net.getSuccessor(i)];
+
+				// Link the nodes
+				source.addSuccessor(target);
+				target.addPredecessor(source);
+			}
 		}
 
 		// Create an unique end node
@@ -0,0 +1,642 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.reader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import de.jena.uni.mojo.analysis.information.AnalysisInformation;
+import de.jena.uni.mojo.error.Annotation;
+import de.jena.uni.mojo.plugin.pnml.PNMLSourcePlugin;
+import de.jena.uni.mojo.reader.Reader;
+
+/**
+ * Analyzes many PNML files concurrently. Each file is read by its own
+ * {@link PNMLReader} of the plugin, the results are reported to a
+ * {@link Listener} as soon as a file is analyzed. The entries of ZIP archives
+ * are analyzed the same way without extracting them.
+ * 
+ * At most {@link #getMaxInFlight()} files are analyzed (and held in memory) at
+ * the same time; the producer of the files waits until an analysis is done.
+ * By default, the files are analyzed on virtual threads (if the Java runtime
+ * supports them) or on a thread pool with a thread for each processor.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PNMLBatchAnalysis {
+
+	/**
+	 * The plugin that creates the readers.
+	 */
+	private final PNMLSourcePlugin plugin;
+
+	/**
+	 * The executor of the analyses (or null if a default executor is created
+	 * for each batch).
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * The maximal number of files that are analyzed at the same time.
+	 */
+	private int maxInFlight = Runtime.getRuntime().availableProcessors() * 2;
+
+	/**
+	 * The factory of the analysis information of each file.
+	 */
+	private InformationFactory informationFactory = new InformationFactory() {
+		@Override
+		public AnalysisInformation create(File file) {
+			return new AnalysisInformation();
+		}
+	};
+
+	/**
+	 * The constructor defines a new batch analysis with the readers of the
+	 * given plugin.
+	 * 
+	 * @param plugin
+	 *            The plugin.
+	 */
+	public PNMLBatchAnalysis(PNMLSourcePlugin plugin) {
+		this.plugin = plugin;
+	}
+
+	/**
+	 * Get the executor of the analyses.
+	 * 
+	 * @return The executor or null if a default executor is used.
+	 */
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Set the executor of the analyses. The executor is not shut down by the
+	 * batch analysis. If it is null, a default executor is created for each
+	 * batch.
+	 * 
+	 * @param executor
+	 *            The executor (or null).
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Get the maximal number of files that are analyzed at the same time.
+	 * 
+	 * @return The maximal number of files.
+	 */
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	/**
+	 * Set the maximal number of files that are analyzed at the same time. It
+	 * bounds the memory of the batch.
+	 * 
+	 * @param maxInFlight
+	 *            The maximal number of files (at least 1).
+	 */
+	public void setMaxInFlight(int maxInFlight) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("maxInFlight < 1");
+		}
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Get the factory of the analysis information of each file.
+	 * 
+	 * @return The factory.
+	 */
+	public InformationFactory getInformationFactory() {
+		return informationFactory;
+	}
+
+	/**
+	 * Set the factory of the analysis information of each file.
+	 * 
+	 * @param informationFactory
+	 *            The factory.
+	 */
+	public void setInformationFactory(InformationFactory informationFactory) {
+		this.informationFactory = informationFactory;
+	}
+
+	/**
+	 * Analyzes all PNML files (including compressed ones, see
+	 * {@link PNMLCompression#isPNMLFileName(String)}) in the given directory
+	 * and its sub directories.
+	 * 
+	 * @param directory
+	 *            The directory.
+	 * @param listener
+	 *            The listener that gets the result of each file.
+	 * @return The number of analyzed files.
+	 * @throws IOException
+	 *             If the directory cannot be read.
+	 * @throws InterruptedException
+	 *             If the thread is interrupted while it waits.
+	 */
+	public int analyze(File directory, Listener listener) throws IOException,
+			InterruptedException {
+		final Batch batch = new Batch(listener);
+		try {
+			Files.walkFileTree(directory.toPath(), new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path path,
+						BasicFileAttributes attributes) throws IOException {
+					if (attributes.isRegularFile()
+							&& PNMLCompression.isPNMLFileName(path.getFileName()
+									.toString())) {
+						try {
+							batch.submit(path.toFile());
+						} catch (InterruptedException e) {
+							throw new VisitInterruptedException(e);
+						}
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (VisitInterruptedException e) {
+			batch.cancel();
+			throw (InterruptedException) e.getCause();
+		} catch (IOException | RuntimeException e) {
+			batch.cancel();
+			throw e;
+		}
+		return batch.await();
+	}
+
+	/**
+	 * Analyzes the given files.
+	 * 
+	 * @param files
+	 *            The files.
+	 * @param listener
+	 *            The listener that gets the result of each file.
+	 * @return The number of analyzed files.
+	 * @throws InterruptedException
+	 *             If the thread is interrupted while it waits.
+	 */
+	public int analyze(Iterable<File> files, Listener listener)
+			throws InterruptedException {
+		Batch batch = new Batch(listener);
+		try {
+			for (File file : files) {
+				batch.submit(file);
+			}
+		} catch (InterruptedException | RuntimeException e) {
+			batch.cancel();
+			throw e;
+		}
+		return batch.await();
+	}
+
+	/**
+	 * Analyzes the given files.
+	 * 
+	 * @param files
+	 *            The files.
+	 * @param listener
+	 *            The listener that gets the result of each file.
+	 * @return The number of analyzed files.
+	 * @throws InterruptedException
+	 *             If the thread is interrupted while it waits.
+	 */
+	public int analyze(File[] files, Listener listener)
+			throws InterruptedException {
+		return analyze(Arrays.asList(files), listener);
+	}
+
+	/**
+	 * Analyzes all PNML entries of a ZIP archive. The entries are streamed
+	 * from the archive into the readers, nothing is extracted. Since at most
+	 * {@link #getMaxInFlight()} entries are analyzed at the same time, the
+	 * memory does not depend on the size of the archive. The analysis
+	 * information of each entry is created for the archive.
+	 * 
+	 * @param archive
+	 *            The ZIP archive.
+	 * @param listener
+	 *            The listener that gets the result of each entry (see
+	 *            {@link PNMLBatchResult#getEntryName()}).
+	 * @return The number of analyzed entries.
+	 * @throws IOException
+	 *             If the archive cannot be read.
+	 * @throws InterruptedException
+	 *             If the thread is interrupted while it waits.
+	 */
+	public int analyzeZip(final File archive, Listener listener)
+			throws IOException, InterruptedException {
+		final ZipFile zip = new ZipFile(archive);
+		try {
+			Batch batch = new Batch(listener);
+			try {
+				Enumeration<? extends ZipEntry> entries = zip.entries();
+				while (entries.hasMoreElements()) {
+					ZipEntry entry = entries.nextElement();
+					if (entry.isDirectory()
+							|| !PNMLCompression.isPNMLFileName(entry.getName())) {
+						continue;
+					}
+					batch.submit(analysis(archive, entry, zip));
+				}
+			} catch (InterruptedException | RuntimeException e) {
+				batch.cancel();
+				throw e;
+			}
+			return batch.await();
+		} finally {
+			zip.close();
+		}
+	}
+
+	/**
+	 * Analyzes a single file.
+	 * 
+	 * @param file
+	 *            The file.
+	 * @return The result.
+	 */
+	private PNMLBatchResult analyze(File file) {
+		String processName = processName(file.getName());
+		try {
+			Reader reader = plugin.getReader(processName, file,
+					informationFactory.create(file), null);
+			List<Annotation> annotations = reader.analyze();
+			return new PNMLBatchResult(file, annotations,
+					((PNMLReader) reader).getGraphs(), null);
+		} catch (Exception e) {
+			return new PNMLBatchResult(file, null, null, e);
+		}
+	}
+
+	/**
+	 * Creates the analysis of an entry of a ZIP archive. The stream of the
+	 * entry is opened at once: the archive looks up an entry by its name
+	 * unless it is the entry that was enumerated last, so a later lookup
+	 * would find the first of several entries with the same name. The
+	 * streams of analyses that never run are closed with the archive.
+	 * 
+	 * @param archive
+	 *            The archive file.
+	 * @param entry
+	 *            The entry that was enumerated last.
+	 * @param zip
+	 *            The opened archive.
+	 * @return The analysis.
+	 */
+	private Analysis analysis(final File archive, final ZipEntry entry,
+			ZipFile zip) {
+		final InputStream in;
+		try {
+			in = zip.getInputStream(entry);
+		} catch (final IOException e) {
+			return new Analysis() {
+				@Override
+				public PNMLBatchResult run() {
+					return new PNMLBatchResult(archive, entry.getName(), null,
+							null, e);
+				}
+			};
+		}
+		return new Analysis() {
+			@Override
+			public PNMLBatchResult run() {
+				return analyze(archive, entry, in);
+			}
+		};
+	}
+
+	/**
+	 * Analyzes a single entry of a ZIP archive.
+	 * 
+	 * @param archive
+	 *            The archive file.
+	 * @param entry
+	 *            The entry.
+	 * @param in
+	 *            The stream of the entry (it is closed).
+	 * @return The result.
+	 */
+	private PNMLBatchResult analyze(File archive, ZipEntry entry,
+			InputStream in) {
+		String entryName = entry.getName();
+		String processName = processName(entryName.substring(entryName
+				.lastIndexOf('/') + 1));
+		try {
+			try {
+				PNMLReader reader = new PNMLReader(processName, in,
+						informationFactory.create(archive));
+				reader.setConfiguration(plugin.getConfiguration());
+				List<Annotation> annotations = reader.analyze();
+				return new PNMLBatchResult(archive, entryName, annotations,
+						reader.getGraphs(), null);
+			} finally {
+				in.close();
+			}
+		} catch (Exception e) {
+			return new PNMLBatchResult(archive, entryName, null, null, e);
+		}
+	}
+
+	/**
+	 * Determines the process name of a file name: the name without the PNML
+	 * extension (and the extension of its compression).
+	 * 
+	 * @param name
+	 *            The file name.
+	 * @return The process name.
+	 */
+	private static String processName(String name) {
+		for (int i = 0; i < 2; i++) {
+			int dot = name.lastIndexOf('.');
+			if (dot <= 0) {
+				break;
+			}
+			String extension = name.substring(dot);
+			name = name.substring(0, dot);
+			if (extension.equalsIgnoreCase(".pnml")) {
+				break;
+			}
+		}
+		return name;
+	}
+
+	/**
+	 * Creates the default executor: an executor that starts a virtual thread
+	 * for each task if the Java runtime has virtual threads, a thread pool
+	 * with a thread for each processor otherwise.
+	 * 
+	 * @return The executor.
+	 */
+	private static ExecutorService createDefaultExecutor() {
+		try {
+			Method method = Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (NoSuchMethodException | IllegalAccessException
+				| InvocationTargetException e) {
+			return Executors.newFixedThreadPool(Runtime.getRuntime()
+					.availableProcessors());
+		}
+	}
+
+	/**
+	 * A single batch of files.
+	 * 
+	 * @author Dipl.-Inf. Thomas M. Prinz
+	 * 
+	 */
+	private class Batch {
+
+		/**
+		 * The listener of the batch.
+		 */
+		private final Listener listener;
+
+		/**
+		 * The executor of the batch.
+		 */
+		private final ExecutorService executor;
+
+		/**
+		 * Whether the executor is owned (and shut down) by the batch.
+		 */
+		private final boolean owned;
+
+		/**
+		 * The permits of the files in flight.
+		 */
+		private final Semaphore inFlight;
+
+		/**
+		 * The number of permits.
+		 */
+		private final int permits;
+
+		/**
+		 * The number of submitted files.
+		 */
+		private int submitted = 0;
+
+		/**
+		 * Whether the batch is cancelled.
+		 */
+		private volatile boolean cancelled = false;
+
+		/**
+		 * The constructor defines a new batch.
+		 * 
+		 * @param listener
+		 *            The listener of the batch.
+		 */
+		public Batch(Listener listener) {
+			this.listener = listener;
+			this.owned = PNMLBatchAnalysis.this.executor == null;
+			this.executor = owned ? createDefaultExecutor()
+					: PNMLBatchAnalysis.this.executor;
+			this.permits = maxInFlight;
+			this.inFlight = new Semaphore(permits);
+		}
+
+		/**
+		 * Submits a file. It waits until there is a permit for the file.
+		 * 
+		 * @param file
+		 *            The file.
+		 * @throws InterruptedException
+		 *             If the thread is interrupted while it waits.
+		 */
+		public void submit(final File file) throws InterruptedException {
+			submit(new Analysis() {
+				@Override
+				public PNMLBatchResult run() {
+					return analyze(file);
+				}
+			});
+		}
+
+		/**
+		 * Submits the analysis of a file (or an entry of an archive). It
+		 * waits until there is a permit for the analysis.
+		 * 
+		 * @param analysis
+		 *            The analysis.
+		 * @throws InterruptedException
+		 *             If the thread is interrupted while it waits.
+		 */
+		public void submit(final Analysis analysis)
+				throws InterruptedException {
+			inFlight.acquire();
+			try {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							if (!cancelled) {
+								listener.analyzed(analysis.run());
+							}
+						} finally {
+							inFlight.release();
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				inFlight.release();
+				throw e;
+			}
+			submitted++;
+		}
+
+		/**
+		 * Waits until all submitted files are analyzed.
+		 * 
+		 * @return The number of analyzed files.
+		 * @throws InterruptedException
+		 *             If the thread is interrupted while it waits.
+		 */
+		public int await() throws InterruptedException {
+			try {
+				inFlight.acquire(permits);
+				inFlight.release(permits);
+			} catch (InterruptedException e) {
+				cancel();
+				throw e;
+			}
+			if (owned) {
+				executor.shutdown();
+			}
+			return submitted;
+		}
+
+		/**
+		 * Cancels the batch: The analyses that have not started yet are
+		 * skipped and the owned executor is stopped. It waits until the
+		 * running analyses are done, so that the resources they use (e.g.
+		 * an archive) can be closed afterwards.
+		 */
+		public void cancel() {
+			cancelled = true;
+			if (owned) {
+				// The analyses that never run do not release their permits
+				inFlight.release(executor.shutdownNow().size());
+			}
+			inFlight.acquireUninterruptibly(permits);
+		}
+	}
+
+	/**
+	 * The analysis of a single file or entry of an archive.
+	 * 
+	 * @author Dipl.-Inf. Thomas M. Prinz
+	 * 
+	 */
+	private interface Analysis {
+
+		/**
+		 * Analyzes the file or entry.
+		 * 
+		 * @return The result (it contains the exception if the analysis
+		 *         fails).
+		 */
+		PNMLBatchResult run();
+	}
+
+	/**
+	 * An exception that carries an interruption through a file visitor.
+	 * 
+	 * @author Dipl.-Inf. Thomas M. Prinz
+	 * 
+	 */
+	private static class VisitInterruptedException extends IOException {
+
+		/**
+		 * The serial version UID.
+		 */
+		private static final long serialVersionUID = 6043207468713215790L;
+
+		/**
+		 * The constructor defines a new exception.
+		 * 
+		 * @param cause
+		 *            The interruption.
+		 */
+		public VisitInterruptedException(InterruptedException cause) {
+			super(cause);
+		}
+	}
+
+	/**
+	 * A listener of a batch analysis. It is called by the threads of the
+	 * executor, so it must be thread-safe.
+	 * 
+	 * @author Dipl.-Inf. Thomas M. Prinz
+	 * 
+	 */
+	public interface Listener {
+
+		/**
+		 * A file was analyzed.
+		 * 
+		 * @param result
+		 *            The result of the file.
+		 */
+		void analyzed(PNMLBatchResult result);
+	}
+
+	/**
+	 * A factory of the analysis information of each file.
+	 * 
+	 * @author Dipl.-Inf. Thomas M. Prinz
+	 * 
+	 */
+	public interface InformationFactory {
+
+		/**
+		 * Creates the analysis information of a file.
+		 * 
+		 * @param file
+		 *            The file.
+		 * @return The analysis information.
+		 */
+		AnalysisInformation create(File file);
+	}
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.reader;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import de.jena.uni.mojo.error.Annotation;
+import de.jena.uni.mojo.model.WorkflowGraph;
+
+/**
+ * The result of the analysis of a single file of a batch (see
+ * {@link PNMLBatchAnalysis}).
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PNMLBatchResult {
+
+	/**
+	 * The analyzed file.
+	 */
+	private final File file;
+
+	/**
+	 * The name of the analyzed entry of the ZIP archive (or null if the file
+	 * is no archive).
+	 */
+	private final String entryName;
+
+	/**
+	 * The annotations of the analysis.
+	 */
+	private final List<Annotation> annotations;
+
+	/**
+	 * The workflow graphs of the file.
+	 */
+	private final List<WorkflowGraph> graphs;
+
+	/**
+	 * The exception that stopped the analysis (or null).
+	 */
+	private final Exception exception;
+
+	/**
+	 * The constructor defines a new result.
+	 * 
+	 * @param file
+	 *            The analyzed file.
+	 * @param annotations
+	 *            The annotations of the analysis (or null).
+	 * @param graphs
+	 *            The workflow graphs of the file (or null).
+	 * @param exception
+	 *            The exception that stopped the analysis (or null).
+	 */
+	public PNMLBatchResult(File file, List<Annotation> annotations,
+			List<WorkflowGraph> graphs, Exception exception) {
+		this(file, null, annotations, graphs, exception);
+	}
+
+	/**
+	 * The constructor defines a new result of an entry of a ZIP archive.
+	 * 
+	 * @param file
+	 *            The ZIP archive.
+	 * @param entryName
+	 *            The name of the analyzed entry (or null).
+	 * @param annotations
+	 *            The annotations of the analysis (or null).
+	 * @param graphs
+	 *            The workflow graphs of the entry (or null).
+	 * @param exception
+	 *            The exception that stopped the analysis (or null).
+	 */
+	public PNMLBatchResult(File file, String entryName,
+			List<Annotation> annotations, List<WorkflowGraph> graphs,
+			Exception exception) {
+		this.file = file;
+		this.entryName = entryName;
+		this.annotations = annotations == null ? Collections
+				.<Annotation> emptyList() : annotations;
+		this.graphs = graphs == null ? Collections.<WorkflowGraph> emptyList()
+				: graphs;
+		this.exception = exception;
+	}
+
+	/**
+	 * Get the analyzed file (or the ZIP archive of the analyzed entry).
+	 * 
+	 * @return The file.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Get the name of the analyzed entry if the file is a ZIP archive.
+	 * 
+	 * @return The name of the entry (or null if the file is no archive).
+	 */
+	public String getEntryName() {
+		return entryName;
+	}
+
+	/**
+	 * Get the annotations of the analysis. If the file cannot be parsed, they
+	 * contain a parse annotation.
+	 * 
+	 * @return The annotations.
+	 */
+	public List<Annotation> getAnnotations() {
+		return annotations;
+	}
+
+	/**
+	 * Get the workflow graphs of the file.
+	 * 
+	 * @return The workflow graphs (empty if the analysis failed).
+	 */
+	public List<WorkflowGraph> getGraphs() {
+		return graphs;
+	}
+
+	/**
+	 * Get the exception that stopped the analysis before the file was read,
+	 * e.g., if it cannot be opened.
+	 * 
+	 * @return The exception or null.
+	 */
+	public Exception getException() {
+		return exception;
+	}
+
+	/**
+	 * Whether the analysis succeeded, i.e., the file was read without
+	 * exceptions and annotations into at least one workflow graph.
+	 * 
+	 * @return Whether the analysis succeeded.
+	 */
+	public boolean isSuccessful() {
+		return exception == null && annotations.isEmpty() && !graphs.isEmpty();
+	}
+}
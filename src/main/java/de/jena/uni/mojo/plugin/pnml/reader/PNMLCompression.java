@@ -0,0 +1,256 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.reader;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decompresses compressed PNML documents while they are read. The
+ * compression is detected by the first bytes of the document, so that the
+ * document is never inflated completely or written to a temporary file.
+ * 
+ * Gzip is supported by the Java runtime. Xz and Zstandard need the libraries
+ * org.tukaani:xz and com.github.luben:zstd-jni on the class path. Other
+ * compressions that are detected (bzip2 and LZ4) are rejected.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public final class PNMLCompression {
+
+	/**
+	 * The file name extensions of PNML files (uncompressed and compressed).
+	 */
+	private static final String[] EXTENSIONS = { ".pnml", ".pnml.gz",
+			".pnml.xz", ".pnml.zst" };
+
+	/**
+	 * The first bytes of gzip streams.
+	 */
+	private static final byte[] GZIP = { 0x1F, (byte) 0x8B };
+
+	/**
+	 * The first bytes of xz streams.
+	 */
+	private static final byte[] XZ = { (byte) 0xFD, 0x37, 0x7A, 0x58, 0x5A,
+			0x00 };
+
+	/**
+	 * The first bytes of Zstandard frames.
+	 */
+	private static final byte[] ZSTD = { 0x28, (byte) 0xB5, 0x2F, (byte) 0xFD };
+
+	/**
+	 * The first bytes of the compressions that are not supported: bzip2 and
+	 * LZ4 frames.
+	 */
+	private static final byte[][] UNSUPPORTED = { { 0x42, 0x5A, 0x68 },
+			{ 0x04, 0x22, 0x4D, 0x18 } };
+
+	/**
+	 * The size of the buffer of the decompressors.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * There are no instances.
+	 */
+	private PNMLCompression() {
+	}
+
+	/**
+	 * Determines whether a file name is the name of a (compressed) PNML
+	 * file, i.e., it ends with .pnml, .pnml.gz, .pnml.xz or .pnml.zst.
+	 * 
+	 * @param name
+	 *            The file name.
+	 * @return Whether it is the name of a PNML file.
+	 */
+	public static boolean isPNMLFileName(String name) {
+		String lower = name.toLowerCase(Locale.ENGLISH);
+		for (String extension : EXTENSIONS) {
+			if (lower.endsWith(extension)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a stream of the uncompressed document. If the document is not
+	 * compressed, the returned stream reads the given stream. Closing the
+	 * returned stream closes the given one.
+	 * 
+	 * @param in
+	 *            The stream of the (compressed) document.
+	 * @return The stream of the uncompressed document.
+	 * @throws IOException
+	 *             If the stream cannot be read, its compression is not
+	 *             supported or the decompressor of its compression is not on
+	 *             the class path.
+	 */
+	public static InputStream decompress(InputStream in) throws IOException {
+		if (!in.markSupported()) {
+			in = new BufferedInputStream(in, BUFFER_SIZE);
+		}
+
+		// Read the first bytes and go back
+		byte[] magic = new byte[XZ.length];
+		in.mark(magic.length);
+		int length = read(in, magic);
+		in.reset();
+
+		if (startsWith(magic, length, GZIP)) {
+			return new GZIPInputStream(in, BUFFER_SIZE);
+		} else if (startsWith(magic, length, XZ)) {
+			return create("org.tukaani.xz.XZInputStream", in);
+		} else if (startsWith(magic, length, ZSTD)) {
+			return create("com.github.luben.zstd.ZstdInputStream", in);
+		} else if (isUnsupported(magic, length)) {
+			throw new IOException("Unsupported compression");
+		}
+		return in;
+	}
+
+	/**
+	 * Determines whether a file is compressed (in a format that is detected
+	 * by {@link #decompress(InputStream)}, supported or not).
+	 * 
+	 * @param file
+	 *            The file.
+	 * @return Whether the file is compressed.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	public static boolean isCompressed(File file) throws IOException {
+		byte[] magic = new byte[XZ.length];
+		int length;
+		InputStream in = Files.newInputStream(file.toPath());
+		try {
+			length = read(in, magic);
+		} finally {
+			in.close();
+		}
+		return startsWith(magic, length, GZIP) || startsWith(magic, length, XZ)
+				|| startsWith(magic, length, ZSTD)
+				|| isUnsupported(magic, length);
+	}
+
+	/**
+	 * Determines whether the first bytes are the ones of a compression that
+	 * is not supported.
+	 * 
+	 * @param bytes
+	 *            The first bytes.
+	 * @param length
+	 *            The number of the first bytes.
+	 * @return Whether the compression is not supported.
+	 */
+	private static boolean isUnsupported(byte[] bytes, int length) {
+		for (byte[] magic : UNSUPPORTED) {
+			if (startsWith(bytes, length, magic)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the first bytes of a stream.
+	 * 
+	 * @param in
+	 *            The stream.
+	 * @param magic
+	 *            The array of the first bytes.
+	 * @return The number of read bytes.
+	 * @throws IOException
+	 *             If the stream cannot be read.
+	 */
+	private static int read(InputStream in, byte[] magic) throws IOException {
+		int length = 0;
+		while (length < magic.length) {
+			int read = in.read(magic, length, magic.length - length);
+			if (read < 0) {
+				break;
+			}
+			length += read;
+		}
+		return length;
+	}
+
+	/**
+	 * Determines whether the first bytes start with the given magic bytes.
+	 * 
+	 * @param bytes
+	 *            The first bytes.
+	 * @param length
+	 *            The number of the first bytes.
+	 * @param magic
+	 *            The magic bytes.
+	 * @return Whether the first bytes start with the magic bytes.
+	 */
+	private static boolean startsWith(byte[] bytes, int length, byte[] magic) {
+		if (length < magic.length) {
+			return false;
+		}
+		for (int i = 0; i < magic.length; i++) {
+			if (bytes[i] != magic[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates a decompressor of an optional library.
+	 * 
+	 * @param className
+	 *            The class of the decompressing stream. It has a constructor
+	 *            with the compressed stream.
+	 * @param in
+	 *            The compressed stream.
+	 * @return The decompressing stream.
+	 * @throws IOException
+	 *             If the library is not on the class path or the stream
+	 *             cannot be read.
+	 */
+	private static InputStream create(String className, InputStream in)
+			throws IOException {
+		try {
+			return (InputStream) Class.forName(className)
+					.getConstructor(InputStream.class).newInstance(in);
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			throw new IOException("No decompressor on the class path: "
+					+ className, e);
+		}
+	}
+}
@@ -0,0 +1,375 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.reader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.jena.uni.mojo.model.WorkflowGraph;
+import de.jena.uni.mojo.plugin.pnml.PNMLConfiguration;
+
+/**
+ * An in-memory cache of the workflow graphs of PNML files. A file is
+ * identified by its canonical path, its modification time and its size, so
+ * that a changed file is read again. Since the graphs depend on how the file
+ * is read, the key also contains the read options (see
+ * {@link #options(PNMLConfiguration, boolean)}), so that a file that is read
+ * with other options is read again. The least recently used files are
+ * evicted if the cache has more than {@link #getMaxEntries()} files.
+ * 
+ * If several threads request the same file at the same time, the file is
+ * read only once and all threads get the same graphs. The lists of graphs
+ * are unmodifiable, but the graphs themselves are shared between all readers
+ * of the file, so they must not be changed.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PNMLGraphCache {
+
+	/**
+	 * The maximal number of files.
+	 */
+	private final int maxEntries;
+
+	/**
+	 * The graphs of the files in the order of their last use.
+	 */
+	private final LinkedHashMap<Key, List<WorkflowGraph>> entries;
+
+	/**
+	 * The loads of the files that are currently read.
+	 */
+	private final ConcurrentHashMap<Key, FutureTask<List<WorkflowGraph>>> loads = new ConcurrentHashMap<Key, FutureTask<List<WorkflowGraph>>>();
+
+	/**
+	 * The number of requests that were answered by the cache.
+	 */
+	private final AtomicLong hits = new AtomicLong();
+
+	/**
+	 * The number of requests that read the file.
+	 */
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * The number of evicted files.
+	 */
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * The constructor defines a new cache.
+	 * 
+	 * @param maxEntries
+	 *            The maximal number of files (at least 1).
+	 */
+	public PNMLGraphCache(final int maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("maxEntries < 1");
+		}
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<Key, List<WorkflowGraph>>(16, 0.75f,
+				true) {
+
+			/**
+			 * The serial version UID.
+			 */
+			private static final long serialVersionUID = -2379425014630541185L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<Key, List<WorkflowGraph>> eldest) {
+				if (size() > maxEntries) {
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Determines the read options of the key of a file: the normalization
+	 * mode, the direct transformation, the XML backend, whether there is a
+	 * cache of normalized nets (it changes the process elements, see
+	 * {@link PNMLConfiguration#getCacheDirectory()}) and the end place
+	 * strategy.
+	 * 
+	 * @param configuration
+	 *            The configuration of the reader.
+	 * @param simpleEndPlace
+	 *            Whether the end places are combined by a simple or
+	 *            transition.
+	 * @return The options.
+	 */
+	public static String options(PNMLConfiguration configuration,
+			boolean simpleEndPlace) {
+		return "fused=" + configuration.isFusedNormalization() + ";direct="
+				+ configuration.isDirectTransformation() + ";backend="
+				+ configuration.getXmlBackend() + ";netCache="
+				+ (configuration.getCacheDirectory() != null)
+				+ ";simpleEndPlace=" + simpleEndPlace;
+	}
+
+	/**
+	 * Get the graphs of a file. If the file is not cached with the given
+	 * options, it is read by the given loader. Concurrent requests of the
+	 * same file and options wait for the same load. If the loader returns
+	 * null (the file cannot be read), nothing is cached. The returned list is
+	 * unmodifiable.
+	 * 
+	 * @param file
+	 *            The file.
+	 * @param options
+	 *            The read options (see
+	 *            {@link #options(PNMLConfiguration, boolean)}).
+	 * @param loader
+	 *            The loader that reads the graphs of the file.
+	 * @return The graphs (or null if the file cannot be read).
+	 * @throws IOException
+	 *             If the file does not exist.
+	 * @throws Exception
+	 *             If the loader fails.
+	 */
+	public List<WorkflowGraph> get(File file, String options,
+			final Callable<List<WorkflowGraph>> loader) throws Exception {
+		Key key = Key.of(file, options);
+
+		List<WorkflowGraph> graphs;
+		synchronized (entries) {
+			graphs = entries.get(key);
+		}
+		if (graphs != null) {
+			hits.incrementAndGet();
+			return graphs;
+		}
+
+		FutureTask<List<WorkflowGraph>> load = new FutureTask<List<WorkflowGraph>>(
+				new Callable<List<WorkflowGraph>>() {
+					@Override
+					public List<WorkflowGraph> call() throws Exception {
+						List<WorkflowGraph> loaded = loader.call();
+						return loaded == null ? null : Collections
+								.unmodifiableList(loaded);
+					}
+				});
+		FutureTask<List<WorkflowGraph>> running = loads.putIfAbsent(key, load);
+		if (running != null) {
+			// Another thread reads the file
+			hits.incrementAndGet();
+			return await(running);
+		}
+
+		try {
+			// A load may have ended since the lookup
+			synchronized (entries) {
+				graphs = entries.get(key);
+			}
+			if (graphs != null) {
+				hits.incrementAndGet();
+				return graphs;
+			}
+
+			misses.incrementAndGet();
+			load.run();
+			graphs = await(load);
+			if (graphs != null) {
+				synchronized (entries) {
+					entries.put(key, graphs);
+				}
+			}
+			return graphs;
+		} finally {
+			loads.remove(key, load);
+		}
+	}
+
+	/**
+	 * Waits for a load.
+	 * 
+	 * @param load
+	 *            The load.
+	 * @return The graphs of the load.
+	 * @throws Exception
+	 *             If the load fails.
+	 */
+	private static List<WorkflowGraph> await(
+			FutureTask<List<WorkflowGraph>> load) throws Exception {
+		try {
+			return load.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof Exception ? (Exception) cause
+					: new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Removes all files from the cache. The counters are not reset.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * Get the maximal number of files.
+	 * 
+	 * @return The maximal number of files.
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Get the number of cached files.
+	 * 
+	 * @return The number of files.
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Get the number of requests that were answered without reading the
+	 * file (including requests that waited for the read of another request).
+	 * 
+	 * @return The number of hits.
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * Get the number of requests that read the file.
+	 * 
+	 * @return The number of misses.
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Get the number of files that were evicted.
+	 * 
+	 * @return The number of evictions.
+	 */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * The key of a file: its canonical path, modification time, size and the
+	 * read options.
+	 * 
+	 * @author Dipl.-Inf. Thomas M. Prinz
+	 * 
+	 */
+	private static final class Key {
+
+		/**
+		 * The canonical path.
+		 */
+		private final String path;
+
+		/**
+		 * The modification time.
+		 */
+		private final long modified;
+
+		/**
+		 * The size.
+		 */
+		private final long length;
+
+		/**
+		 * The read options.
+		 */
+		private final String options;
+
+		/**
+		 * The constructor defines a new key.
+		 * 
+		 * @param path
+		 *            The canonical path.
+		 * @param modified
+		 *            The modification time.
+		 * @param length
+		 *            The size.
+		 * @param options
+		 *            The read options.
+		 */
+		private Key(String path, long modified, long length, String options) {
+			this.path = path;
+			this.modified = modified;
+			this.length = length;
+			this.options = options;
+		}
+
+		/**
+		 * Determines the key of a file.
+		 * 
+		 * @param file
+		 *            The file.
+		 * @param options
+		 *            The read options.
+		 * @return The key.
+		 * @throws IOException
+		 *             If the file does not exist.
+		 */
+		private static Key of(File file, String options) throws IOException {
+			File canonical = file.getCanonicalFile();
+			if (!canonical.isFile()) {
+				throw new IOException("No file: " + file);
+			}
+			return new Key(canonical.getPath(), canonical.lastModified(),
+					canonical.length(), options);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return modified == other.modified && length == other.length
+					&& path.equals(other.path) && options.equals(other.options);
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = path.hashCode();
+			hash = 31 * hash + (int) (modified ^ (modified >>> 32));
+			hash = 31 * hash + (int) (length ^ (length >>> 32));
+			return 31 * hash + options.hashCode();
+		}
+	}
+}
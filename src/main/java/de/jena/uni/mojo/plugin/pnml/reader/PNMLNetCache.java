@@ -0,0 +1,480 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.reader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.jena.uni.mojo.plugin.pnml.PNMLConfiguration;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.CompactPetriNet;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.PNode;
+
+/**
+ * A persistent cache of normalized petri nets. Each entry is a file in the
+ * cache directory that stores the compact nets of a PNML file in a binary
+ * format. The key of an entry is a hash of the bytes of the PNML file and of
+ * the transformation options, so that changed files and options never hit an
+ * old entry. The process elements of the cached nets are the ids of the
+ * nodes.
+ * 
+ * The cache is bounded by the size of its files. If it becomes larger, the
+ * least recently used entries are deleted.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PNMLNetCache {
+
+	/**
+	 * The first bytes of each entry.
+	 */
+	private static final int MAGIC = 0x504E4D43;
+
+	/**
+	 * The version of the format of the entries. It is part of the key.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * The file extension of the entries.
+	 */
+	private static final String EXTENSION = ".net";
+
+	/**
+	 * The size of the buffers of the entry files.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The caches of the directories (so that the readers of a directory share
+	 * the size of the cache).
+	 */
+	private static final ConcurrentHashMap<File, PNMLNetCache> CACHES = new ConcurrentHashMap<File, PNMLNetCache>();
+
+	/**
+	 * The directory of the entries.
+	 */
+	private final File directory;
+
+	/**
+	 * The maximal size of all entries in bytes.
+	 */
+	private final long maxSize;
+
+	/**
+	 * The size of all entries in bytes (or -1 if it is not known yet).
+	 */
+	private long size = -1;
+
+	/**
+	 * The constructor defines a new cache.
+	 * 
+	 * @param directory
+	 *            The directory of the entries. It is created if necessary.
+	 * @param maxSize
+	 *            The maximal size of all entries in bytes.
+	 */
+	public PNMLNetCache(File directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Get the shared cache of a directory. The maximal size is the one of the
+	 * first request.
+	 * 
+	 * @param directory
+	 *            The directory of the entries.
+	 * @param maxSize
+	 *            The maximal size of all entries in bytes.
+	 * @return The cache.
+	 */
+	public static PNMLNetCache getShared(File directory, long maxSize) {
+		File key = directory.getAbsoluteFile();
+		PNMLNetCache cache = CACHES.get(key);
+		if (cache == null) {
+			PNMLNetCache created = new PNMLNetCache(key, maxSize);
+			cache = CACHES.putIfAbsent(key, created);
+			if (cache == null) {
+				cache = created;
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Determines the key of a PNML file for the given options.
+	 * 
+	 * @param file
+	 *            The PNML file.
+	 * @param configuration
+	 *            The configuration of the reader.
+	 * @param simpleEndPlace
+	 *            Whether the end places are combined by a simple or
+	 *            transition.
+	 * @return The key.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	public static String key(File file, PNMLConfiguration configuration,
+			boolean simpleEndPlace) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		byte[] buffer = new byte[BUFFER_SIZE];
+		InputStream in = Files.newInputStream(file.toPath());
+		try {
+			for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+				digest.update(buffer, 0, read);
+			}
+		} finally {
+			in.close();
+		}
+
+		String options = "v" + VERSION + ";fused="
+				+ configuration.isFusedNormalization() + ";direct="
+				+ configuration.isDirectTransformation() + ";simpleEndPlace="
+				+ simpleEndPlace;
+		digest.update(options.getBytes(StandardCharsets.UTF_8));
+
+		StringBuilder key = new StringBuilder(64);
+		for (byte b : digest.digest()) {
+			key.append(Character.forDigit((b >> 4) & 0xF, 16));
+			key.append(Character.forDigit(b & 0xF, 16));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Get the nets of an entry. A hit marks the entry as recently used. A
+	 * broken entry is deleted, so that it is written again.
+	 * 
+	 * @param key
+	 *            The key of the entry.
+	 * @return The nets (or null if there is no readable entry).
+	 */
+	public List<CompactPetriNet> get(String key) {
+		File entry = new File(directory, key + EXTENSION);
+		if (!entry.isFile()) {
+			return null;
+		}
+		long length = entry.length();
+
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(
+					Files.newInputStream(entry.toPath()), BUFFER_SIZE));
+			List<CompactPetriNet> nets;
+			try {
+				nets = read(in, length);
+			} finally {
+				in.close();
+			}
+			entry.setLastModified(System.currentTimeMillis());
+			return nets;
+		} catch (NoSuchFileException e) {
+			// The entry was evicted in the meantime
+			return null;
+		} catch (IOException | RuntimeException e) {
+			// The entry is broken
+			if (entry.delete()) {
+				grow(-length);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the nets of an entry. Afterwards, the least recently used
+	 * entries are evicted if the cache is too large. A failure to write the
+	 * entry is ignored, the cache is only an optimization.
+	 * 
+	 * @param key
+	 *            The key of the entry.
+	 * @param nets
+	 *            The nets.
+	 */
+	public void put(String key, List<CompactPetriNet> nets) {
+		File entry = new File(directory, key + EXTENSION);
+		File temp = null;
+		try {
+			Files.createDirectories(directory.toPath());
+			temp = File.createTempFile(key, ".tmp", directory);
+
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(temp
+							.toPath()), BUFFER_SIZE));
+			try {
+				write(out, nets);
+			} finally {
+				out.close();
+			}
+
+			long length = temp.length();
+			long replaced = entry.length();
+			Files.move(temp.toPath(), entry.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			temp = null;
+
+			grow(length - replaced);
+		} catch (IOException e) {
+			// The entry is not cached
+		} finally {
+			if (temp != null) {
+				temp.delete();
+			}
+		}
+	}
+
+	/**
+	 * Adds the change of the size by a new, replaced or deleted entry and
+	 * evicts the least recently used entries if the cache is too large.
+	 * 
+	 * @param length
+	 *            The change of the size (negative if an entry was deleted).
+	 */
+	private synchronized void grow(long length) {
+		if (size < 0) {
+			// Count the existing entries (including the new one) once
+			size = 0;
+			for (File entry : entries()) {
+				size += entry.length();
+			}
+		} else {
+			size += length;
+		}
+
+		if (size <= maxSize) {
+			return;
+		}
+
+		File[] entries = entries();
+		Arrays.sort(entries, new Comparator<File>() {
+			@Override
+			public int compare(File a, File b) {
+				return Long.compare(a.lastModified(), b.lastModified());
+			}
+		});
+
+		size = 0;
+		for (File entry : entries) {
+			size += entry.length();
+		}
+		for (int i = 0; i < entries.length && size > maxSize; i++) {
+			long entryLength = entries[i].length();
+			if (entries[i].delete()) {
+				size -= entryLength;
+			}
+		}
+	}
+
+	/**
+	 * Get the entry files of the cache directory.
+	 * 
+	 * @return The entry files.
+	 */
+	private File[] entries() {
+		File[] entries = directory.listFiles();
+		if (entries == null) {
+			return new File[0];
+		}
+		int count = 0;
+		for (File entry : entries) {
+			if (entry.getName().endsWith(EXTENSION)) {
+				entries[count++] = entry;
+			}
+		}
+		return Arrays.copyOf(entries, count);
+	}
+
+	/**
+	 * Writes nets in the binary format.
+	 * 
+	 * @param out
+	 *            The output.
+	 * @param nets
+	 *            The nets.
+	 * @throws IOException
+	 *             If the output cannot be written.
+	 */
+	private static void write(DataOutputStream out, List<CompactPetriNet> nets)
+			throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(nets.size());
+		for (CompactPetriNet net : nets) {
+			writeString(out, net.id);
+
+			int nodeCount = net.getNodeCount();
+			out.writeInt(nodeCount);
+			for (int u = 0; u < nodeCount; u++) {
+				out.writeByte(net.getKind(u));
+				out.writeBoolean(net.isInitial(u));
+				writeString(out, net.getName(u));
+				Object element = net.getElement(u);
+				writeString(out, element instanceof PNode ? ((PNode) element).id
+						: String.valueOf(element));
+			}
+
+			// The arcs are the successor rows
+			out.writeInt(net.getArcCount());
+			for (int u = 0; u < nodeCount; u++) {
+				int end = net.getSuccessorOffset(u + 1);
+				for (int s = net.getSuccessorOffset(u); s < end; s++) {
+					out.writeInt(u);
+					out.writeInt(net.getSuccessor(s));
+					out.writeInt(net.getSuccessorWeight(s));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads nets in the binary format.
+	 * 
+	 * @param in
+	 *            The input.
+	 * @param length
+	 *            The length of the input in bytes. The counts of the input
+	 *            are checked against it before arrays are allocated.
+	 * @return The nets.
+	 * @throws IOException
+	 *             If the input cannot be read or has a wrong format.
+	 */
+	private static List<CompactPetriNet> read(DataInputStream in, long length)
+			throws IOException {
+		if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+			throw new IOException("No cache entry");
+		}
+		// A net takes at least 9 bytes, a node 4 bytes and an arc 12 bytes
+		int netCount = count(in, length / 9);
+		List<CompactPetriNet> nets = new ArrayList<CompactPetriNet>(netCount);
+		for (int n = 0; n < netCount; n++) {
+			String id = readString(in);
+
+			int nodeCount = count(in, length / 4);
+			byte[] kinds = new byte[nodeCount];
+			String[] names = new String[nodeCount];
+			Object[] elements = new Object[nodeCount];
+			BitSet initial = new BitSet(nodeCount);
+			for (int u = 0; u < nodeCount; u++) {
+				kinds[u] = in.readByte();
+				if (kinds[u] < CompactPetriNet.PLACE
+						|| kinds[u] > CompactPetriNet.OR_TRANSITION) {
+					throw new IOException("Broken cache entry");
+				}
+				if (in.readBoolean()) {
+					initial.set(u);
+				}
+				names[u] = readString(in);
+				elements[u] = readString(in);
+			}
+
+			int arcCount = count(in, length / 12);
+			int[] sources = new int[arcCount];
+			int[] targets = new int[arcCount];
+			int[] weights = new int[arcCount];
+			for (int a = 0; a < arcCount; a++) {
+				sources[a] = in.readInt();
+				targets[a] = in.readInt();
+				weights[a] = in.readInt();
+				if (sources[a] < 0 || sources[a] >= nodeCount
+						|| targets[a] < 0 || targets[a] >= nodeCount) {
+					throw new IOException("Broken cache entry");
+				}
+			}
+
+			nets.add(CompactPetriNet.build(id, kinds, names, elements,
+					initial, arcCount, sources, targets, weights));
+		}
+		return nets;
+	}
+
+	/**
+	 * Reads a count and checks that it is not negative and not larger than
+	 * the given maximum.
+	 * 
+	 * @param in
+	 *            The input.
+	 * @param max
+	 *            The maximum.
+	 * @return The count.
+	 * @throws IOException
+	 *             If the input cannot be read or the count is out of range.
+	 */
+	private static int count(DataInputStream in, long max) throws IOException {
+		int count = in.readInt();
+		if (count < 0 || count > max) {
+			throw new IOException("Broken cache entry");
+		}
+		return count;
+	}
+
+	/**
+	 * Writes a string that may be null.
+	 * 
+	 * @param out
+	 *            The output.
+	 * @param string
+	 *            The string (or null).
+	 * @throws IOException
+	 *             If the output cannot be written.
+	 */
+	private static void writeString(DataOutputStream out, String string)
+			throws IOException {
+		out.writeBoolean(string != null);
+		if (string != null) {
+			out.writeUTF(string);
+		}
+	}
+
+	/**
+	 * Reads a string that may be null.
+	 * 
+	 * @param in
+	 *            The input.
+	 * @return The string (or null).
+	 * @throws IOException
+	 *             If the input cannot be read.
+	 */
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
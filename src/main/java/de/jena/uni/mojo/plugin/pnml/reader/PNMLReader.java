@@ -18,23 +18,40 @@
  */
 package de.jena.uni.mojo.plugin.pnml.reader;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLStreamReader;
-
+import de.jena.uni.mojo.Mojo;
 import de.jena.uni.mojo.analysis.information.AnalysisInformation;
 import de.jena.uni.mojo.error.Annotation;
 import de.jena.uni.mojo.error.ParseAnnotation;
 import de.jena.uni.mojo.model.WorkflowGraph;
+import de.jena.uni.mojo.plugin.pnml.PNMLConfiguration;
+import de.jena.uni.mojo.plugin.pnml.parser.PNMLHandler;
 import de.jena.uni.mojo.plugin.pnml.parser.PNMLParser;
+import de.jena.uni.mojo.plugin.pnml.parser.PNMLParserPool;
+import de.jena.uni.mojo.plugin.pnml.parser.PNMLPushParser;
+import de.jena.uni.mojo.plugin.pnml.parser.ParseException;
+import de.jena.uni.mojo.plugin.pnml.parser.PetriNetBuilder;
+import de.jena.uni.mojo.plugin.pnml.parser.PetriNetTableBuilder;
 import de.jena.uni.mojo.plugin.pnml.parser.pnml.PetriNetContext;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.CompactPetriNet;
 import de.jena.uni.mojo.plugin.pnml.petrinet.model.PetriNet;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.PetriNetTable;
+import de.jena.uni.mojo.plugin.pnml.petrinet.transformation.PetriNetTableTransformation;
 import de.jena.uni.mojo.plugin.pnml.petrinet.transformation.PetriNetTransformation;
 import de.jena.uni.mojo.plugin.pnml.petrinet.transformation.PetriNetWorkflowGraphTransformation;
 import de.jena.uni.mojo.reader.Reader;
@@ -42,8 +59,23 @@ import de.jena.uni.mojo.util.store.ErrorAndWarningStore;
 
 /**
  * This mojo own pnml parser reads in pnml files and transforms them in a first
- * step into a petri net. Afterwards, the petri net will be transformed into at
- * least one workflow graph.
+ * step into petri nets (one for each net of the file). Afterwards, each petri
+ * net will be transformed into a workflow graph. The nets of a file are
+ * transformed in parallel. If the configuration has a cache directory, the
+ * normalized nets of a file are cached (see {@link PNMLNetCache}), so that a
+ * file that is read again is neither parsed nor normalized. The process
+ * elements of the workflow graphs are the nodes of the petri nets
+ * ({@link de.jena.uni.mojo.plugin.pnml.petrinet.model.PNode}), but they are
+ * the ids of the nodes if the direct transformation is used or if there is
+ * a cache, since the cache only stores the ids (so that a hit and a miss
+ * give the same graphs). Use
+ * {@link de.jena.uni.mojo.plugin.pnml.interpreter.PNMLIdInterpreter} to get
+ * the id of a process element in either case. Compressed files and streams
+ * are decompressed while they are parsed (see {@link PNMLCompression}). The
+ * XML backend of the parser is given by the configuration (see
+ * {@link PNMLConfiguration#getXmlBackend()}). The
+ * document can also be pushed in chunks as it arrives (see
+ * {@link #push(ByteBuffer)}), then it is parsed while it is pushed.
  * 
  * @author Dipl.-Inf. Thomas Prinz
  * 
@@ -61,9 +93,51 @@ public class PNMLReader extends Reader {
 	private final List<Annotation> annotations = new ArrayList<Annotation>();
 	
 	/**
-	 * An input stream of the file.
+	 * The size of the buffer between the file channel and the xml parser.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * An input stream of the file (if the reader does not read the file
+	 * itself).
+	 */
+	private transient InputStream input;
+
+	/**
+	 * The file that is read (or null if an input stream is given).
+	 */
+	private final File file;
+
+	/**
+	 * Whether the document is pushed in chunks.
+	 */
+	private final boolean pushed;
+
+	/**
+	 * The handler of the pushed document (created by the first chunk).
+	 */
+	private transient PNMLHandler pushHandler;
+
+	/**
+	 * The parser of the pushed document (created by the first chunk).
+	 */
+	private transient PNMLPushParser pushParser;
+
+	/**
+	 * Whether the pushed document contains an error.
+	 */
+	private boolean pushFailed = false;
+
+	/**
+	 * The configuration of the reader.
 	 */
-	private InputStream input;
+	private PNMLConfiguration configuration = PNMLConfiguration
+			.fromSystemProperties();
+
+	/**
+	 * The in-memory cache of the workflow graphs of files (or null).
+	 */
+	private transient PNMLGraphCache graphCache;
 
 	/**
 	 * The constructor defines a new pnml reader.
@@ -80,45 +154,328 @@ public class PNMLReader extends Reader {
 	public PNMLReader(String processName, String stream, AnalysisInformation analysisInformation, Charset encoding) {
 		super(processName, analysisInformation);
 		this.input = new ByteArrayInputStream(stream.getBytes(encoding));
+		this.file = null;
+		this.pushed = false;
+	}
+
+	/**
+	 * The constructor defines a new pnml reader that streams the given file
+	 * directly into the xml parser during the analysis. The encoding is
+	 * detected by the xml parser.
+	 * 
+	 * @param processName
+	 *            The name of the process.
+	 * @param file
+	 *            The pnml file.
+	 * @param analysisInformation
+	 *            The analysis information.
+	 */
+	public PNMLReader(String processName, File file,
+			AnalysisInformation analysisInformation) {
+		super(processName, analysisInformation);
+		this.input = null;
+		this.file = file;
+		this.pushed = false;
+	}
+
+	/**
+	 * The constructor defines a new pnml reader on an input stream. The
+	 * stream is read once during the analysis and it is not closed by the
+	 * reader. The encoding is detected by the xml parser.
+	 * 
+	 * @param processName
+	 *            The name of the process.
+	 * @param input
+	 *            The input stream of the pnml document.
+	 * @param analysisInformation
+	 *            The analysis information.
+	 */
+	public PNMLReader(String processName, InputStream input,
+			AnalysisInformation analysisInformation) {
+		super(processName, analysisInformation);
+		this.input = input;
+		this.file = null;
+		this.pushed = false;
+	}
+
+	/**
+	 * The constructor defines a new pnml reader whose document is pushed in
+	 * chunks (see {@link #push(ByteBuffer)}). The document must be encoded
+	 * in an ASCII compatible encoding, e.g., UTF-8.
+	 * 
+	 * @param processName
+	 *            The name of the process.
+	 * @param analysisInformation
+	 *            The analysis information.
+	 */
+	public PNMLReader(String processName,
+			AnalysisInformation analysisInformation) {
+		super(processName, analysisInformation);
+		this.input = null;
+		this.file = null;
+		this.pushed = true;
+	}
+
+	/**
+	 * Get the configuration of this reader. By default, it is read from the
+	 * system properties.
+	 * 
+	 * @return The configuration.
+	 */
+	public PNMLConfiguration getConfiguration() {
+		return configuration;
+	}
+
+	/**
+	 * Set the configuration of this reader.
+	 * 
+	 * @param configuration
+	 *            The configuration.
+	 */
+	public void setConfiguration(PNMLConfiguration configuration) {
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Get the in-memory cache of the workflow graphs of files.
+	 * 
+	 * @return The cache (or null if there is none).
+	 */
+	public PNMLGraphCache getGraphCache() {
+		return graphCache;
+	}
+
+	/**
+	 * Set the in-memory cache of the workflow graphs of files. It is only
+	 * used if the reader reads a file.
+	 * 
+	 * @param graphCache
+	 *            The cache (or null).
+	 */
+	public void setGraphCache(PNMLGraphCache graphCache) {
+		this.graphCache = graphCache;
+	}
+
+	/**
+	 * Get the workflow graphs that were created by the analysis.
+	 * 
+	 * @return The workflow graphs (or null if the analysis did not create
+	 *         them).
+	 */
+	public List<WorkflowGraph> getGraphs() {
+		return graphs;
+	}
+
+	/**
+	 * Pushes the next chunk of the document (only if the reader was created
+	 * without a document). The chunk is parsed at once and never waits for
+	 * further chunks, so it can be pushed by the thread that received it.
+	 * The remaining bytes of the chunk are consumed and the chunk is not used
+	 * after the call. As soon as the document is complete, the analysis
+	 * creates the workflow graphs of its nets.
+	 * 
+	 * @param chunk
+	 *            The chunk.
+	 * @return Whether the document is complete (or contains an error, which
+	 *         is reported by the analysis).
+	 */
+	public boolean push(ByteBuffer chunk) {
+		if (!pushed) {
+			throw new IllegalStateException("The document is not pushed");
+		}
+		if (pushFailed) {
+			return true;
+		}
+
+		try {
+			if (pushParser == null) {
+				if (configuration.isDirectTransformation()) {
+					pushHandler = new PetriNetTableBuilder();
+				} else {
+					pushHandler = new PetriNetBuilder();
+				}
+				pushParser = new PNMLPushParser(pushHandler);
+			}
+			return pushParser.push(chunk);
+		} catch (ParseException e) {
+			pushFailed = true;
+			return true;
+		}
 	}
 
 	@Override
 	public List<Annotation> analyze() {
+		if (pushed) {
+			return readPushed();
+		}
+		if (file == null || graphCache == null) {
+			return read();
+		}
+
+		// Reuse the graphs of the file if it was read before with the same
+		// options
+		String options = PNMLGraphCache.options(configuration, Mojo
+				.getCommand("SIMPLE_END_PLACE").asBooleanValue());
+		final boolean[] loaded = new boolean[1];
+		try {
+			List<WorkflowGraph> workflows = graphCache.get(file, options,
+					new Callable<List<WorkflowGraph>>() {
+						@Override
+						public List<WorkflowGraph> call() {
+							loaded[0] = true;
+							read();
+							return graphs;
+						}
+					});
+			if (workflows == null && !loaded[0]) {
+				// The read of another reader failed, repeat it to get the
+				// annotations of this reader
+				return read();
+			}
+			this.graphs = workflows;
+		} catch (Exception e) {
+			// The file cannot be found. Annotate it.
+			annotations.add(new ParseAnnotation(this));
+		}
+		return annotations;
+	}
+
+	/**
+	 * Reads the file or the input stream and transforms its nets into
+	 * workflow graphs.
+	 * 
+	 * @return The annotations of the analysis.
+	 */
+	private List<Annotation> read() {
+		InputStream in = input;
 		try {
-			// Define a new petri net context.
-			PetriNetContext context = new PetriNetContext();
+			// The end place strategy is fixed once for all nets of the file
+			boolean simpleEndPlace = Mojo.getCommand("SIMPLE_END_PLACE")
+					.asBooleanValue();
+
+			// Look up the normalized nets in the cache (if there is one)
+			PNMLNetCache cache = null;
+			String key = null;
+			if (file != null && configuration.getCacheDirectory() != null) {
+				cache = PNMLNetCache.getShared(
+						new File(configuration.getCacheDirectory()),
+						configuration.getCacheSize());
+				key = PNMLNetCache.key(file, configuration, simpleEndPlace);
+				List<CompactPetriNet> compacts = cache.get(key);
+				if (compacts != null) {
+					setGraphs(invokeAll(transformations(compacts)));
+					return annotations;
+				}
+			}
 
-			// Create a new xml reader
-			XMLStreamReader xtr = XMLInputFactory.newInstance().createXMLStreamReader(input);
+			// Uncompressed files are given to the backend as files, so that
+			// it can choose how to read them
+			Path path = null;
+			if (file != null && !PNMLCompression.isCompressed(file)) {
+				path = file.toPath();
+			} else {
+				// Open the file (if there is one)
+				if (file != null) {
+					in = new BufferedInputStream(Files.newInputStream(file
+							.toPath()), BUFFER_SIZE);
+				}
 
-			// Create a new BPMN parser and parse the xml file
-			PNMLParser parser = new PNMLParser();
-			PetriNet net = parser.parse(xtr);
+				// Decompress the document while it is parsed (if it is
+				// compressed)
+				in = PNMLCompression.decompress(in);
+			}
 
-			// Transform the petri net
-			PetriNetTransformation transformation = new PetriNetTransformation();
-			transformation.transform(net, context);
+			// Borrow a PNML parser and parse all nets of the document
+			PNMLParserPool pool = PNMLParserPool.getShared(configuration
+					.getXmlBackend());
+			PNMLParser parser = pool.borrow();
+			List<Callable<CompactPetriNet>> normalizations;
+			try {
+				if (configuration.isDirectTransformation()) {
+					PetriNetTableBuilder builder = new PetriNetTableBuilder();
+					if (path != null) {
+						parser.parse(path, builder);
+					} else {
+						parser.parse(in, builder);
+					}
+					normalizations = tableNormalizations(builder.getTables(),
+							simpleEndPlace);
+				} else {
+					List<PetriNet> nets = path != null ? parser.parseAll(path)
+							: parser.parseAll(in);
+					normalizations = netNormalizations(nets, simpleEndPlace);
+				}
+			} finally {
+				pool.release(parser);
+			}
 
 			parser = null;
-			xtr = null;
-			context = null;
-			transformation = null;
 
-			if (net.isClosed()) {
+			// Normalize each net and store the normalized nets. Their process
+			// elements become the ids, so that the graphs are the same as the
+			// graphs of a later hit
+			List<CompactPetriNet> compacts = invokeAll(normalizations);
+			normalizations = null;
+			if (cache != null) {
+				cache.put(key, compacts);
+				for (int i = 0; i < compacts.size(); i++) {
+					compacts.set(i, compacts.get(i).withIds());
+				}
+			}
+
+			// Transform each net into a workflow graph
+			setGraphs(invokeAll(transformations(compacts)));
+
+			return annotations;
+
+		} catch (Exception e) {
+			// There is an exception. Annotate it.
+			ParseAnnotation annotation = new ParseAnnotation(this);
+			annotations.add(annotation);
 
-				// Transform the petri net to a workflow graph
-				PetriNetWorkflowGraphTransformation pnWfTransformation = new PetriNetWorkflowGraphTransformation();
-				WorkflowGraph workflow = pnWfTransformation.transform(net);
+			return annotations;
+		} finally {
+			if (file != null && in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// The file was read completely
+				}
+			}
+		}
+	}
+
+	/**
+	 * Ends the pushed document and transforms its nets into workflow graphs.
+	 * 
+	 * @return The annotations of the analysis.
+	 */
+	private List<Annotation> readPushed() {
+		try {
+			if (pushFailed || pushParser == null)
+				throw new ParseException();
 
-				net = null;
-				pnWfTransformation = null;
+			pushParser.end();
 
-				this.graphs = Collections.singletonList(workflow);
+			// The end place strategy is fixed once for all nets of the
+			// document
+			boolean simpleEndPlace = Mojo.getCommand("SIMPLE_END_PLACE")
+					.asBooleanValue();
 
-				return annotations;
+			// Normalize and transform each net
+			List<Callable<CompactPetriNet>> normalizations;
+			if (pushHandler instanceof PetriNetTableBuilder) {
+				normalizations = tableNormalizations(
+						((PetriNetTableBuilder) pushHandler).getTables(),
+						simpleEndPlace);
 			} else {
-				return annotations;
+				normalizations = netNormalizations(
+						((PetriNetBuilder) pushHandler).getNets(),
+						simpleEndPlace);
 			}
+			setGraphs(invokeAll(transformations(invokeAll(normalizations))));
+
+			return annotations;
 
 		} catch (Exception e) {
 			// There is an exception. Annotate it.
@@ -126,7 +483,183 @@ public class PNMLReader extends Reader {
 			annotations.add(annotation);
 
 			return annotations;
+		} finally {
+			if (pushParser != null) {
+				pushParser.abort();
+			}
+			pushParser = null;
+			pushHandler = null;
+		}
+	}
+
+	/**
+	 * Sets the workflow graphs of the file (if there is at least one).
+	 * 
+	 * @param workflows
+	 *            The workflow graphs.
+	 */
+	private void setGraphs(List<WorkflowGraph> workflows) {
+		if (!workflows.isEmpty()) {
+			this.graphs = workflows;
+		}
+	}
+
+	/**
+	 * Runs tasks for the nets of a file. Several tasks are run in parallel.
+	 * 
+	 * @param tasks
+	 *            The tasks.
+	 * @return The results of the tasks (in the order of the tasks) except
+	 *         the null results.
+	 * @throws Exception
+	 *             If a task fails.
+	 */
+	private static <T> List<T> invokeAll(List<Callable<T>> tasks)
+			throws Exception {
+		List<T> results = new ArrayList<T>(tasks.size());
+		if (tasks.size() == 1) {
+			T result = tasks.get(0).call();
+			if (result != null) {
+				results.add(result);
+			}
+			return results;
+		}
+
+		List<Future<T>> futures = ForkJoinPool.commonPool().invokeAll(tasks);
+		try {
+			for (Future<T> future : futures) {
+				T result = future.get();
+				if (result != null) {
+					results.add(result);
+				}
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof Exception ? (Exception) cause
+					: new IllegalStateException(cause);
+		}
+		return results;
+	}
+
+	/**
+	 * Creates the normalizations of petri nets.
+	 * 
+	 * @param nets
+	 *            The petri nets.
+	 * @param simpleEndPlace
+	 *            Whether the end places are combined by a simple or
+	 *            transition.
+	 * @return The normalizations.
+	 */
+	private List<Callable<CompactPetriNet>> netNormalizations(
+			List<PetriNet> nets, boolean simpleEndPlace) {
+		List<Callable<CompactPetriNet>> normalizations = new ArrayList<Callable<CompactPetriNet>>(
+				nets.size());
+		for (PetriNet net : nets) {
+			normalizations.add(normalization(net,
+					configuration.isFusedNormalization(), simpleEndPlace));
+		}
+		return normalizations;
+	}
+
+	/**
+	 * Creates the normalizations of petri net tables.
+	 * 
+	 * @param tables
+	 *            The petri net tables.
+	 * @param simpleEndPlace
+	 *            Whether the end places are combined by a simple or
+	 *            transition.
+	 * @return The normalizations.
+	 */
+	private static List<Callable<CompactPetriNet>> tableNormalizations(
+			List<PetriNetTable> tables, boolean simpleEndPlace) {
+		List<Callable<CompactPetriNet>> normalizations = new ArrayList<Callable<CompactPetriNet>>(
+				tables.size());
+		for (PetriNetTable table : tables) {
+			normalizations.add(normalization(table, simpleEndPlace));
+		}
+		return normalizations;
+	}
+
+	/**
+	 * Creates the normalization of a petri net. The normalization returns
+	 * null if the net is not closed.
+	 * 
+	 * @param net
+	 *            The petri net.
+	 * @param fused
+	 *            Whether the net is normalized by the fused normalization.
+	 * @param simpleEndPlace
+	 *            Whether the end places are combined by a simple or
+	 *            transition.
+	 * @return The normalization.
+	 */
+	private static Callable<CompactPetriNet> normalization(final PetriNet net,
+			final boolean fused, final boolean simpleEndPlace) {
+		return new Callable<CompactPetriNet>() {
+			@Override
+			public CompactPetriNet call() {
+				// Transform the petri net
+				PetriNetTransformation transformation = new PetriNetTransformation();
+				transformation.setFused(fused);
+				transformation.transform(net, new PetriNetContext(),
+						simpleEndPlace);
+
+				if (!net.isClosed()) {
+					return null;
+				}
+
+				// Freeze the petri net
+				return net.freeze();
+			}
+		};
+	}
+
+	/**
+	 * Creates the normalization of a petri net table.
+	 * 
+	 * @param table
+	 *            The petri net table.
+	 * @param simpleEndPlace
+	 *            Whether the end places are combined by a simple or
+	 *            transition.
+	 * @return The normalization.
+	 */
+	private static Callable<CompactPetriNet> normalization(
+			final PetriNetTable table, final boolean simpleEndPlace) {
+		return new Callable<CompactPetriNet>() {
+			@Override
+			public CompactPetriNet call() {
+				// Transform the table and turn it into a compact net
+				new PetriNetTableTransformation().transform(table,
+						new PetriNetContext(), simpleEndPlace);
+				return table.toCompact();
+			}
+		};
+	}
+
+	/**
+	 * Creates the transformations of normalized nets into workflow graphs.
+	 * 
+	 * @param compacts
+	 *            The normalized nets.
+	 * @return The transformations.
+	 */
+	private static List<Callable<WorkflowGraph>> transformations(
+			List<CompactPetriNet> compacts) {
+		List<Callable<WorkflowGraph>> transformations = new ArrayList<Callable<WorkflowGraph>>(
+				compacts.size());
+		for (final CompactPetriNet compact : compacts) {
+			transformations.add(new Callable<WorkflowGraph>() {
+				@Override
+				public WorkflowGraph call() {
+					return new PetriNetWorkflowGraphTransformation()
+							.transform(compact);
+				}
+			});
 		}
+		return transformations;
 	}
 
 	@Override
@@ -0,0 +1,517 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.generator;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Generates synthetic PNML documents of a configurable size and shape. The
+ * generator only uses the elements the PNML parser understands and writes
+ * each element as soon as it is created, so that even multi-GB documents need
+ * only constant memory.
+ * 
+ * A net is a chain of blocks of the chosen shape that starts at a single
+ * marked place. Blocks are appended until the requested number of nodes is
+ * reached.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PNMLGenerator {
+
+	/**
+	 * The shapes of the generated blocks.
+	 */
+	public enum Shape {
+		/**
+		 * A plain sequence of transitions and places.
+		 */
+		SEQUENCE,
+		/**
+		 * Alternating xor and and diamonds.
+		 */
+		BLOCKS,
+		/**
+		 * Xor splits nested depth times with degree branches each.
+		 */
+		XOR_NESTING,
+		/**
+		 * And splits nested depth times with degree branches each.
+		 */
+		AND_NESTING,
+		/**
+		 * Sequences of depth transitions with a back edge to the block entry.
+		 */
+		LOOP,
+		/**
+		 * A fan-out to degree branches that meet in a single place, which
+		 * fans out to degree branches again. The middle place has degree
+		 * predecessors and degree successors.
+		 */
+		FAN,
+		/**
+		 * A sequence of xor diamonds that ends in degree separate end places.
+		 * Every end place has the whole sequence on its paths.
+		 */
+		MULTI_END
+	}
+
+	/**
+	 * The shape of the blocks.
+	 */
+	private final Shape shape;
+
+	/**
+	 * The (minimal) number of places and transitions.
+	 */
+	private final long nodes;
+
+	/**
+	 * The number of branches of splits.
+	 */
+	private int degree = 2;
+
+	/**
+	 * The depth of nested blocks or the length of loops.
+	 */
+	private int depth = 3;
+
+	/**
+	 * The xml writer of the current generation.
+	 */
+	private XMLStreamWriter xml;
+
+	/**
+	 * The number of generated places.
+	 */
+	private long places;
+
+	/**
+	 * The number of generated transitions.
+	 */
+	private long transitions;
+
+	/**
+	 * The number of generated arcs.
+	 */
+	private long arcs;
+
+	/**
+	 * The constructor defines the shape and size of the generated net.
+	 * 
+	 * @param shape
+	 *            The shape of the blocks.
+	 * @param nodes
+	 *            The number of places and transitions.
+	 */
+	public PNMLGenerator(Shape shape, long nodes) {
+		this.shape = shape;
+		this.nodes = nodes;
+	}
+
+	/**
+	 * Set the number of branches of splits (at least 2).
+	 * 
+	 * @param degree
+	 *            The number of branches.
+	 */
+	public void setDegree(int degree) {
+		this.degree = Math.max(2, degree);
+	}
+
+	/**
+	 * Set the depth of nested blocks or the length of loops (at least 1).
+	 * 
+	 * @param depth
+	 *            The depth.
+	 */
+	public void setDepth(int depth) {
+		this.depth = Math.max(1, depth);
+	}
+
+	/**
+	 * Writes the net into the given file.
+	 * 
+	 * @param file
+	 *            The file.
+	 * @throws IOException
+	 *             If the file cannot be written.
+	 * @throws XMLStreamException
+	 *             If the document cannot be written.
+	 */
+	public void write(File file) throws IOException, XMLStreamException {
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(
+				file), 1 << 16)) {
+			write(out);
+		}
+	}
+
+	/**
+	 * Writes the net as UTF-8 into the given stream.
+	 * 
+	 * @param out
+	 *            The stream.
+	 * @throws XMLStreamException
+	 *             If the document cannot be written.
+	 */
+	public void write(OutputStream out) throws XMLStreamException {
+		write(XMLOutputFactory.newInstance().createXMLStreamWriter(out,
+				"UTF-8"));
+	}
+
+	/**
+	 * Writes the net into the given writer.
+	 * 
+	 * @param out
+	 *            The writer.
+	 * @throws XMLStreamException
+	 *             If the document cannot be written.
+	 */
+	public void write(Writer out) throws XMLStreamException {
+		write(XMLOutputFactory.newInstance().createXMLStreamWriter(out));
+	}
+
+	/**
+	 * Writes the whole document.
+	 * 
+	 * @param writer
+	 *            The xml writer.
+	 * @throws XMLStreamException
+	 *             If the document cannot be written.
+	 */
+	private void write(XMLStreamWriter writer) throws XMLStreamException {
+		xml = writer;
+		places = 0;
+		transitions = 0;
+		arcs = 0;
+
+		xml.writeStartDocument("UTF-8", "1.0");
+		xml.writeStartElement("pnml");
+		xml.writeStartElement("net");
+		xml.writeAttribute("id", shape.name().toLowerCase() + nodes);
+
+		String current = place(1);
+		boolean xor = true;
+		while (places + transitions < nodes) {
+			switch (shape) {
+			case SEQUENCE:
+				current = sequence(current, 1);
+				break;
+			case BLOCKS:
+				current = xor ? xor(current, 0) : and(current, 0);
+				xor = !xor;
+				break;
+			case XOR_NESTING:
+				current = xor(current, depth);
+				break;
+			case AND_NESTING:
+				current = and(current, depth);
+				break;
+			case LOOP:
+				current = loop(current);
+				break;
+			case FAN:
+				current = fan(current);
+				break;
+			case MULTI_END:
+				current = xor(current, 0);
+				break;
+			}
+		}
+		if (shape == Shape.MULTI_END) {
+			ends(current);
+		}
+
+		// The name of the net
+		xml.writeStartElement("name");
+		xml.writeStartElement("text");
+		xml.writeCharacters(shape.name().toLowerCase());
+		xml.writeEndElement();
+		xml.writeEndElement();
+
+		xml.writeEndElement();
+		xml.writeEndElement();
+		xml.writeEndDocument();
+		xml.flush();
+		xml = null;
+	}
+
+	/**
+	 * Appends a sequence of transitions and places.
+	 * 
+	 * @param entry
+	 *            The entry place.
+	 * @param length
+	 *            The number of transitions.
+	 * @return The exit place.
+	 * @throws XMLStreamException
+	 *             If the document cannot be written.
+	 */
+	private String sequence(String entry, int length)
+			throws XMLStreamException {
+		String current = entry;
+		for (int i = 0; i < length; i++) {
+			String t = transition();
+			String p = place(0);
+			arc(current, t);
+			arc(t, p);
+			current = p;
+		}
+		return current;
+	}
+
+	/**
+	 * Appends a (nested) xor block.
+	 * 
+	 * @param entry
+	 *            The split place.
+	 * @param level
+	 *            The remaining nesting depth.
+	 * @return The merge place.
+	 * @throws XMLStreamException
+	 *             If the document cannot be written.
+	 */
+	private String xor(String entry, int level) throws XMLStreamException {
+		String exit = place(0);
+		for (int i = 0; i < degree; i++) {
+			String t = transition();
+			arc(entry, t);
+			if (level > 0) {
+				String inner = place(0);
+				arc(t, inner);
+				String out = transition();
+				arc(xor(inner, level - 1), out);
+				arc(out, exit);
+			} else {
+				arc(t, exit);
+			}
+		}
+		return exit;
+	}
+
+	/**
+	 * Appends a (nested) and block.
+	 * 
+	 * @param entry
+	 *            The place before the fork.
+	 * @param level
+	 *            The remaining nesting depth.
+	 * @return The place after the join.
+	 * @throws XMLStreamException
+	 *             If the document cannot be written.
+	 */
+	private String and(String entry, int level) throws XMLStreamException {
+		String fork = transition();
+		String join = transition();
+		String exit = place(0);
+		arc(entry, fork);
+		for (int i = 0; i < degree; i++) {
+			String branch = place(0);
+			arc(fork, branch);
+			if (level > 0) {
+				arc(and(branch, level - 1), join);
+			} else {
+				arc(branch, join);
+			}
+		}
+		arc(join, exit);
+		return exit;
+	}
+
+	/**
+	 * Appends a loop whose body has depth transitions.
+	 * 
+	 * @param entry
+	 *            The place where the loop starts and returns to.
+	 * @return The exit place.
+	 * @throws XMLStreamException
+	 *             If the document cannot be written.
+	 */
+	private String loop(String entry) throws XMLStreamException {
+		String body = sequence(entry, depth);
+		String back = transition();
+		arc(body, back);
+		arc(back, entry);
+		return sequence(body, 1);
+	}
+
+	/**
+	 * Appends a fan-out into a single hub place and a fan-out after it.
+	 * 
+	 * @param entry
+	 *            The place before the fan.
+	 * @return The place after the fan.
+	 * @throws XMLStreamException
+	 *             If the document cannot be written.
+	 */
+	private String fan(String entry) throws XMLStreamException {
+		String fork = transition();
+		String hub = place(0);
+		String join = transition();
+		String exit = place(0);
+		arc(entry, fork);
+		for (int i = 0; i < degree; i++) {
+			String p = place(0);
+			String t = transition();
+			arc(fork, p);
+			arc(p, t);
+			arc(t, hub);
+		}
+		for (int i = 0; i < degree; i++) {
+			String t = transition();
+			String p = place(0);
+			arc(hub, t);
+			arc(t, p);
+			arc(p, join);
+		}
+		arc(join, exit);
+		return exit;
+	}
+
+	/**
+	 * Splits the given place into degree separate end places.
+	 * 
+	 * @param entry
+	 *            The split place.
+	 * @throws XMLStreamException
+	 *             If the document cannot be written.
+	 */
+	private void ends(String entry) throws XMLStreamException {
+		for (int i = 0; i < degree; i++) {
+			String t = transition();
+			arc(entry, t);
+			arc(t, place(0));
+		}
+	}
+
+	/**
+	 * Writes a new place.
+	 * 
+	 * @param marking
+	 *            The initial marking (0 for none).
+	 * @return The id of the place.
+	 * @throws XMLStreamException
+	 *             If the document cannot be written.
+	 */
+	private String place(int marking) throws XMLStreamException {
+		String id = "p" + places++;
+		xml.writeStartElement("place");
+		xml.writeAttribute("id", id);
+		name(id);
+		if (marking > 0) {
+			xml.writeStartElement("initialMarking");
+			xml.writeStartElement("text");
+			xml.writeCharacters(Integer.toString(marking));
+			xml.writeEndElement();
+			xml.writeEndElement();
+		}
+		xml.writeEndElement();
+		return id;
+	}
+
+	/**
+	 * Writes a new transition.
+	 * 
+	 * @return The id of the transition.
+	 * @throws XMLStreamException
+	 *             If the document cannot be written.
+	 */
+	private String transition() throws XMLStreamException {
+		String id = "t" + transitions++;
+		xml.writeStartElement("transition");
+		xml.writeAttribute("id", id);
+		name(id);
+		xml.writeEndElement();
+		return id;
+	}
+
+	/**
+	 * Writes a new arc with the inscription 1.
+	 * 
+	 * @param source
+	 *            The id of the source node.
+	 * @param target
+	 *            The id of the target node.
+	 * @throws XMLStreamException
+	 *             If the document cannot be written.
+	 */
+	private void arc(String source, String target) throws XMLStreamException {
+		xml.writeStartElement("arc");
+		xml.writeAttribute("id", "a" + arcs++);
+		xml.writeAttribute("source", source);
+		xml.writeAttribute("target", target);
+		xml.writeStartElement("inscription");
+		xml.writeStartElement("text");
+		xml.writeCharacters("1");
+		xml.writeEndElement();
+		xml.writeEndElement();
+		xml.writeEndElement();
+	}
+
+	/**
+	 * Writes the name of a node.
+	 * 
+	 * @param name
+	 *            The name.
+	 * @throws XMLStreamException
+	 *             If the document cannot be written.
+	 */
+	private void name(String name) throws XMLStreamException {
+		xml.writeStartElement("name");
+		xml.writeStartElement("text");
+		xml.writeCharacters(name);
+		xml.writeEndElement();
+		xml.writeEndElement();
+	}
+
+	/**
+	 * Generates a PNML file from the command line.
+	 * 
+	 * @param args
+	 *            The shape, the number of nodes, the file and optionally the
+	 *            degree and the depth.
+	 * @throws Exception
+	 *             If the file cannot be written.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			System.err.println("Usage: PNMLGenerator <shape> <nodes> <file> "
+					+ "[degree] [depth]");
+			System.exit(1);
+		}
+		PNMLGenerator generator = new PNMLGenerator(Shape.valueOf(args[0]
+				.toUpperCase()), Long.parseLong(args[1]));
+		if (args.length > 3) {
+			generator.setDegree(Integer.parseInt(args[3]));
+		}
+		if (args.length > 4) {
+			generator.setDepth(Integer.parseInt(args[4]));
+		}
+		generator.write(new File(args[2]));
+	}
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+/**
+ * Checks the index of the ids of nodes: equal ids, replaced numbers, ids
+ * with equal hash codes, runs that wrap around the end of the table,
+ * resizing and clearing.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class IdIndexTest {
+
+	/**
+	 * The number of slots of a new index.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	@Test
+	public void testPutAndGet() {
+		IdIndex index = new IdIndex();
+		assertEquals(-1, index.get("p1"));
+		index.put("p1", 1);
+		index.put("t1", 2);
+		assertEquals(1, index.get("p1"));
+		assertEquals(2, index.get("t1"));
+		// Equal ids are found, not only identical ones
+		assertEquals(1, index.get(new String("p1")));
+		assertEquals(-1, index.get("p2"));
+
+		// A second put replaces the number
+		index.put(new String("p1"), 3);
+		assertEquals(3, index.get("p1"));
+		assertEquals(2, index.size());
+
+		// Null ids are neither stored nor found
+		index.put(null, 4);
+		assertEquals(-1, index.get(null));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void testEqualHashCodes() {
+		// "Aa" and "BB" have the same hash code, so all combinations do
+		String[] ids = { "AaAa", "AaBB", "BBAa", "BBBB" };
+		assertEquals(ids[0].hashCode(), ids[3].hashCode());
+		IdIndex index = new IdIndex();
+		for (int i = 0; i < ids.length; i++) {
+			index.put(ids[i], i);
+		}
+		for (int i = 0; i < ids.length; i++) {
+			assertEquals(i, index.get(ids[i]));
+		}
+		assertEquals(-1, index.get("AaAb"));
+		index.put("BBAa", 10);
+		assertEquals(10, index.get("BBAa"));
+		assertEquals(ids.length, index.size());
+	}
+
+	@Test
+	public void testWrapAround() throws Exception {
+		int mask = INITIAL_CAPACITY - 1;
+		// Ids with the last slot as home slot occupy the last and the first
+		// slots, an id with the first slot is pushed behind them
+		String[] last = ids(mask, mask, 3);
+		String first = ids(0, mask, 1)[0];
+
+		IdIndex index = new IdIndex();
+		for (int i = 0; i < last.length; i++) {
+			index.put(last[i], i);
+		}
+		index.put(first, 100);
+		for (int i = 0; i < last.length; i++) {
+			assertEquals(i, index.get(last[i]));
+		}
+		assertEquals(100, index.get(first));
+		assertEquals(INITIAL_CAPACITY, capacity(index));
+	}
+
+	@Test
+	public void testResizeAndClear() throws Exception {
+		IdIndex index = new IdIndex();
+		int entries = 100000;
+		for (int i = 0; i < entries; i++) {
+			index.put("n" + i, i);
+			assertEquals(i + 1, index.size());
+		}
+		assertEquals(1 << 18, capacity(index));
+		for (int i = 0; i < entries; i++) {
+			assertEquals(i, index.get("n" + i));
+		}
+
+		// Large tables are released
+		index.clear();
+		assertEquals(0, index.size());
+		assertEquals(-1, index.get("n0"));
+		assertEquals(INITIAL_CAPACITY, capacity(index));
+
+		// Small tables are kept
+		for (int i = 0; i < 100; i++) {
+			index.put("n" + i, i);
+		}
+		int capacity = capacity(index);
+		index.clear();
+		assertEquals(capacity, capacity(index));
+		assertEquals(-1, index.get("n1"));
+		index.put("n1", 1);
+		assertEquals(1, index.get("n1"));
+	}
+
+	/**
+	 * Finds ids with the given home slot.
+	 * 
+	 * @param home
+	 *            The home slot.
+	 * @param mask
+	 *            The mask of the table size.
+	 * @param count
+	 *            The number of ids.
+	 * @return The ids.
+	 * @throws Exception
+	 *             if the slot function cannot be called.
+	 */
+	private static String[] ids(int home, int mask, int count)
+			throws Exception {
+		Method slot = IdIndex.class.getDeclaredMethod("slot", String.class,
+				int.class);
+		slot.setAccessible(true);
+		String[] ids = new String[count];
+		int found = 0;
+		for (int i = 0; found < count; i++) {
+			String id = "p" + i;
+			if ((Integer) slot.invoke(null, id, mask) == home) {
+				ids[found++] = id;
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Get the number of slots of an index.
+	 * 
+	 * @param index
+	 *            The index.
+	 * @return The number of slots.
+	 * @throws Exception
+	 *             if the table cannot be accessed.
+	 */
+	private static int capacity(IdIndex index) throws Exception {
+		Field keys = IdIndex.class.getDeclaredField("keys");
+		keys.setAccessible(true);
+		return ((String[]) keys.get(index)).length;
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import de.jena.uni.mojo.plugin.pnml.generator.PNMLGenerator;
+
+/**
+ * Checks that the byte scanner parses the same nets as StAX, both from a
+ * mapped file and from a stream that delivers only a few bytes per read.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PNMLByteScannerTest {
+
+	/**
+	 * The numbers of bytes per read of the streams.
+	 */
+	private static final int[] READ_SIZES = { 1, 3, 7, 64, 1 << 16 };
+
+	@Test
+	public void testGeneratedNets() throws Exception {
+		for (PNMLGenerator.Shape shape : PNMLGenerator.Shape.values()) {
+			check(shape.toString(), PNMLTestDocuments.generated(shape));
+		}
+	}
+
+	@Test
+	public void testHandWrittenDocuments() throws Exception {
+		int index = 0;
+		for (byte[] document : PNMLTestDocuments.handWritten()) {
+			check("document " + index++, document);
+		}
+	}
+
+	@Test
+	public void testTrickyDocument() throws Exception {
+		PNMLParser parser = new PNMLParser(
+				PNMLParserPool.createEventSource(PNMLParserPool.SCANNER));
+		assertEquals("n&1:aA/\u00c4 <b> <raw> &amp; x\ny/3,t/,"
+				+ "aA->t/2,t->aA/0,[aA(3, \u00c4 <b> <raw> &amp; x\ny)]\n"
+				+ "m:aA//0,[]\n", PNMLTestDocuments.describe(parser
+				.parseAll(new ByteArrayInputStream(PNMLTestDocuments.TRICKY
+						.getBytes(StandardCharsets.UTF_8)))));
+	}
+
+	/**
+	 * Compares the nets of the scanner with the nets of StAX.
+	 * 
+	 * @param label
+	 *            The label of the document.
+	 * @param document
+	 *            The document.
+	 * @throws Exception
+	 *             if the document cannot be parsed.
+	 */
+	private void check(String label, byte[] document) throws Exception {
+		String expected = PNMLTestDocuments.stax(document);
+		PNMLParser parser = new PNMLParser(
+				PNMLParserPool.createEventSource(PNMLParserPool.SCANNER));
+
+		Path path = Files.createTempFile("scanner", ".pnml");
+		try {
+			Files.write(path, document);
+			assertEquals(label + " (mapped)", expected,
+					PNMLTestDocuments.describe(parser.parseAll(path)));
+		} finally {
+			Files.delete(path);
+		}
+
+		for (final int size : READ_SIZES) {
+			InputStream in = new ByteArrayInputStream(document) {
+				@Override
+				public synchronized int read(byte[] bytes, int offset,
+						int length) {
+					return super.read(bytes, offset, Math.min(length, size));
+				}
+			};
+			parser.reset();
+			assertEquals(label + " (" + size + " bytes per read)", expected,
+					PNMLTestDocuments.describe(parser.parseAll(in)));
+		}
+	}
+}
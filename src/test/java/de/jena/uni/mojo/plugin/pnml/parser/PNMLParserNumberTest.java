@@ -0,0 +1,131 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the parsing of numbers of markings and inscriptions: the bounds of
+ * int, numbers one digit beyond them, signs, white spaces and characters
+ * inside a larger array.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PNMLParserNumberTest {
+
+	@Test
+	public void testBounds() throws Exception {
+		assertEquals(Integer.MAX_VALUE, parse("2147483647"));
+		assertEquals(Integer.MAX_VALUE, parse("+2147483647"));
+		assertEquals(Integer.MIN_VALUE, parse("-2147483648"));
+		assertEquals(-Integer.MAX_VALUE, parse("-2147483647"));
+		assertEquals(Integer.MAX_VALUE, parse("0002147483647"));
+	}
+
+	@Test
+	public void testOverflow() {
+		// One beyond each bound and one digit more than each bound
+		fails("2147483648");
+		fails("+2147483648");
+		fails("-2147483649");
+		fails("21474836470");
+		fails("-21474836480");
+		fails("99999999999999999999");
+	}
+
+	@Test
+	public void testSigns() throws Exception {
+		assertEquals(0, parse("-0"));
+		assertEquals(0, parse("+0"));
+		assertEquals(-12, parse("-12"));
+		fails("-");
+		fails("+");
+		fails(" - ");
+		fails("--1");
+		fails("+-1");
+		fails("1-");
+	}
+
+	@Test
+	public void testWhiteSpaces() throws Exception {
+		assertEquals(42, parse("42"));
+		assertEquals(42, parse(" \t\r\n42 \t\r\n"));
+		assertEquals(-7, parse("\n  -7\n"));
+		fails("");
+		fails(" \t\r\n");
+		fails("4 2");
+		fails("- 1");
+		fails("4\n2");
+		fails("1.0");
+		fails("0x1");
+		// A no-break space is no XML white space
+		fails("\u00a042");
+	}
+
+	@Test
+	public void testOffset() throws Exception {
+		char[] characters = "x-123 45y".toCharArray();
+		assertEquals(-123, PNMLParser.parseNumber(characters, 1, 4));
+		assertEquals(45, PNMLParser.parseNumber(characters, 5, 3));
+		assertEquals(12, PNMLParser.parseNumber(characters, 2, 2));
+	}
+
+	@Test
+	public void testRandomNumbers() throws Exception {
+		Random random = new Random(0);
+		for (int i = 0; i < 100000; i++) {
+			int number = random.nextInt();
+			assertEquals(number, parse(Integer.toString(number)));
+		}
+	}
+
+	/**
+	 * Parses a string.
+	 * 
+	 * @param string
+	 *            The string.
+	 * @return The number.
+	 * @throws ParseException
+	 *             If the string is no number.
+	 */
+	private static int parse(String string) throws ParseException {
+		return PNMLParser.parseNumber(string.toCharArray(), 0, string.length());
+	}
+
+	/**
+	 * Checks that a string is rejected.
+	 * 
+	 * @param string
+	 *            The string.
+	 */
+	private static void fails(String string) {
+		try {
+			int number = parse(string);
+			fail("\"" + string + "\" is parsed as " + number);
+		} catch (ParseException e) {
+			// Expected
+		}
+	}
+}
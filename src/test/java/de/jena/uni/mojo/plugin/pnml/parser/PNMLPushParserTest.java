@@ -0,0 +1,167 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.jena.uni.mojo.plugin.pnml.generator.PNMLGenerator;
+
+/**
+ * Checks that the push parser parses the same nets as StAX if a document is
+ * pushed at once or in chunks with random boundaries.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PNMLPushParserTest {
+
+	/**
+	 * The maximal number of bytes of the random chunks.
+	 */
+	private static final int MAX_CHUNK = 7;
+
+	/**
+	 * The number of random splits of each generated document.
+	 */
+	private static final int GENERATED_SPLITS = 5;
+
+	/**
+	 * The number of random splits of each hand written document. They are
+	 * small, so that many splits are cheap.
+	 */
+	private static final int HAND_WRITTEN_SPLITS = 50;
+
+	@Test
+	public void testGeneratedNets() throws Exception {
+		for (PNMLGenerator.Shape shape : PNMLGenerator.Shape.values()) {
+			check(shape.toString(), PNMLTestDocuments.generated(shape),
+					GENERATED_SPLITS);
+		}
+	}
+
+	@Test
+	public void testHandWrittenDocuments() throws Exception {
+		int index = 0;
+		for (byte[] document : PNMLTestDocuments.handWritten()) {
+			check("document " + index++, document, HAND_WRITTEN_SPLITS);
+		}
+	}
+
+	@Test
+	public void testTrailingComment() throws Exception {
+		PNMLPushParser parser = new PNMLPushParser(new PetriNetBuilder());
+		assertTrue(parser.push(wrap("<pnml><net id='a'/></pnml><!-- tr")));
+		parser.end();
+	}
+
+	@Test
+	public void testSecondRootElement() throws Exception {
+		PNMLPushParser parser = new PNMLPushParser(new PetriNetBuilder());
+		try {
+			parser.push(wrap("<pnml><net id='a'/></pnml><pnml>"));
+			fail("A second root element is accepted");
+		} catch (ParseException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testIncompleteDocument() throws Exception {
+		PNMLPushParser parser = new PNMLPushParser(new PetriNetBuilder());
+		assertFalse(parser.push(wrap("<pnml><net id='a'>")));
+		try {
+			parser.end();
+			fail("An incomplete document is accepted");
+		} catch (ParseException e) {
+			// Expected
+		}
+	}
+
+	/**
+	 * Compares the nets of the push parser with the nets of StAX if the
+	 * document is pushed at once and in random chunks of 1 to
+	 * {@link #MAX_CHUNK} bytes. The chunks alternate between heap and
+	 * direct buffers which are reused.
+	 * 
+	 * @param label
+	 *            The label of the document.
+	 * @param document
+	 *            The document.
+	 * @param splits
+	 *            The number of random splits.
+	 * @throws Exception
+	 *             if the document cannot be parsed.
+	 */
+	private void check(String label, byte[] document, int splits)
+			throws Exception {
+		String expected = PNMLTestDocuments.stax(document);
+
+		PetriNetBuilder builder = new PetriNetBuilder();
+		PNMLPushParser parser = new PNMLPushParser(builder);
+		assertTrue(label + " (complete)",
+				parser.push(ByteBuffer.wrap(document)));
+		parser.end();
+		assertEquals(label + " (whole)", expected,
+				PNMLTestDocuments.describe(builder.getNets()));
+
+		ByteBuffer[] buffers = { ByteBuffer.allocate(MAX_CHUNK),
+				ByteBuffer.allocateDirect(MAX_CHUNK) };
+		for (int seed = 0; seed < splits; seed++) {
+			Random random = new Random(seed);
+			builder = new PetriNetBuilder();
+			parser = new PNMLPushParser(builder);
+			boolean complete = false;
+			for (int offset = 0, chunk = 0; offset < document.length; chunk++) {
+				int length = Math.min(1 + random.nextInt(MAX_CHUNK),
+						document.length - offset);
+				ByteBuffer buffer = buffers[chunk % 2];
+				buffer.clear();
+				buffer.put(document, offset, length);
+				buffer.flip();
+				complete = parser.push(buffer);
+				assertFalse(label + " (consumed)", buffer.hasRemaining());
+				offset += length;
+			}
+			assertTrue(label + " (complete, seed " + seed + ")", complete);
+			parser.end();
+			assertEquals(label + " (seed " + seed + ")", expected,
+					PNMLTestDocuments.describe(builder.getNets()));
+		}
+	}
+
+	/**
+	 * Wraps the bytes of a string.
+	 * 
+	 * @param string
+	 *            The string.
+	 * @return The buffer.
+	 */
+	private static ByteBuffer wrap(String string) {
+		return ByteBuffer.wrap(string.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import de.jena.uni.mojo.plugin.pnml.generator.PNMLGenerator;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.Arc;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.PetriNet;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.Place;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.Transition;
+
+/**
+ * The PNML documents of the parser tests and the reference parse of a
+ * document with StAX.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+final class PNMLTestDocuments {
+
+	/**
+	 * The number of nodes of the generated nets.
+	 */
+	static final int GENERATED_NODES = 300;
+
+	/**
+	 * A document with a doctype, a comment, a namespace prefix, an upper case
+	 * net, entities, character references, CDATA, a line break, tool
+	 * specific content and a reference place.
+	 */
+	static final String TRICKY = "<?xml version='1.0' encoding='UTF-8'?>\n"
+			+ "<!DOCTYPE pnml [ <!ELEMENT x (y)> ]>\n"
+			+ "<!-- c <place id='zz'/> -->\n"
+			+ "<p:pnml xmlns:p='urn:x' xmlns='http://www.pnml.org/version-2009/grammar/pnml'>"
+			+ "<NET id=\"n&amp;1\" type='x'><page id='pg'>"
+			+ "<place id='a&#x41;'><name><text>\u00c4 &lt;b&gt; <![CDATA[<raw> &amp;]]> x\r\ny</text>"
+			+ "<graphics><offset x='1' y='2'/></graphics></name>"
+			+ "<initialMarking><text>3</text></initialMarking>"
+			+ "<toolspecific tool='t'><place id='ghost'/></toolspecific></place>"
+			+ "<transition id = \"t\" ><name><text/></name></transition>"
+			+ "<arc id='e' source='aA' target='t'><inscription><text>2</text></inscription></arc>"
+			+ "<arc id='f' source='t' target='r'/>"
+			+ "<referencePlace id='r' ref='aA'/></page></NET>"
+			+ "<net id='m'><place id='aA'/></net></p:pnml>";
+
+	/**
+	 * A document with nested graphics and tool specific content whose
+	 * attributes contain '>' and '/', with comments, CDATA and processing
+	 * instructions inside skipped elements and a marking with spaces.
+	 */
+	static final String GRAPHICS = "<?xml version='1.0'?><pnml><net id='g'>"
+			+ "<name><text>net name</text><graphics/></name>"
+			+ "<toolspecific tool='x' v='a>b/'><deep><deeper a=\"/>\"><place id='no'/></deeper>"
+			+ "<!-- <x> --><![CDATA[</toolspecific>]]><?pi <y>?><e/></deep>text</toolspecific>"
+			+ "<place id='p1'><graphics><position x='1' y='2'/><dimension x='3' y='4'></dimension></graphics>"
+			+ "<name><text>P1</text><graphics><offset x='0' y='0'/></graphics></name>"
+			+ "<initialMarking><graphics/><text>\n  2 \n</text><toolspecific><text>99</text></toolspecific></initialMarking></place>"
+			+ "<transition id='t1'><graphics><position x='5' y='6'/></graphics></transition>"
+			+ "<arc id='a1' source='p1' target='t1'><graphics><position x='1' y='1'/></graphics>"
+			+ "<inscription><text>4</text></inscription></arc>"
+			+ "<arc id='a2' source='t1' target='p1'/></net></pnml>";
+
+	/**
+	 * The constructor is hidden.
+	 */
+	private PNMLTestDocuments() {
+	}
+
+	/**
+	 * Get the hand written documents: the documents above, the tricky one
+	 * with a byte order mark and in ISO-8859-1.
+	 * 
+	 * @return The documents.
+	 */
+	static List<byte[]> handWritten() {
+		byte[] tricky = TRICKY.getBytes(StandardCharsets.UTF_8);
+		byte[] bom = new byte[tricky.length + 3];
+		bom[0] = (byte) 0xEF;
+		bom[1] = (byte) 0xBB;
+		bom[2] = (byte) 0xBF;
+		System.arraycopy(tricky, 0, bom, 3, tricky.length);
+		byte[] latin = TRICKY.replace("encoding='UTF-8'",
+				"encoding='ISO-8859-1'").getBytes(StandardCharsets.ISO_8859_1);
+		return Arrays.asList(GRAPHICS.getBytes(StandardCharsets.UTF_8),
+				tricky, bom, latin);
+	}
+
+	/**
+	 * Generates a document.
+	 * 
+	 * @param shape
+	 *            The shape of the net.
+	 * @return The document.
+	 * @throws Exception
+	 *             if the document cannot be generated.
+	 */
+	static byte[] generated(PNMLGenerator.Shape shape) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new PNMLGenerator(shape, GENERATED_NODES).write(out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Parses a document with StAX.
+	 * 
+	 * @param document
+	 *            The document.
+	 * @return The description of its nets (see {@link #describe(List)}).
+	 * @throws Exception
+	 *             if the document cannot be parsed.
+	 */
+	static String stax(byte[] document) throws Exception {
+		return describe(new PNMLParser().parseAll(PNMLParserPool
+				.createXMLStreamReader(new ByteArrayInputStream(document))));
+	}
+
+	/**
+	 * Describes the nets with their places (names and markings),
+	 * transitions, arcs (markings) and initial places in the order of the
+	 * document.
+	 * 
+	 * @param nets
+	 *            The nets.
+	 * @return The description.
+	 */
+	static String describe(List<PetriNet> nets) {
+		StringBuilder description = new StringBuilder();
+		for (PetriNet net : nets) {
+			description.append(net.id).append(':');
+			for (Place place : net.getPlaces()) {
+				description.append(place.id).append('/')
+						.append(place.getName()).append('/')
+						.append(place.getMarking()).append(',');
+			}
+			for (Transition transition : net.getTransitions()) {
+				description.append(transition.id).append('/')
+						.append(transition.getName()).append(',');
+			}
+			for (Arc arc : net.getArcs()) {
+				description.append(arc).append('/').append(arc.marking)
+						.append(',');
+			}
+			description.append(net.getInitialPlaces()).append('\n');
+		}
+		return description.toString();
+	}
+}
@@ -0,0 +1,243 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.petrinet.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the arc index: removal inside runs of colliding keys, runs that
+ * wrap around the end of the table, resizing and a random sequence of
+ * operations against a reference map.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class ArcIndexTest {
+
+	/**
+	 * The number of slots of a new index.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	@Test
+	public void testRemoveInCollidingRun() throws Exception {
+		int mask = INITIAL_CAPACITY - 1;
+		// Four keys with the same home slot and one key whose home slot is
+		// inside their run
+		long[] run = keys(3, mask, 4);
+		long inside = keys(4, mask, 1)[0];
+
+		for (int removed = 0; removed < run.length; removed++) {
+			ArcIndex index = new ArcIndex();
+			for (int i = 0; i < run.length; i++) {
+				index.put(run[i], i);
+			}
+			index.put(inside, 100);
+
+			assertEquals(removed, index.remove(run[removed]));
+			assertEquals(-1, index.get(run[removed]));
+			for (int i = 0; i < run.length; i++) {
+				if (i != removed) {
+					assertEquals(i, index.get(run[i]));
+				}
+			}
+			assertEquals(100, index.get(inside));
+
+			// Remove the rest in reverse order
+			for (int i = run.length - 1; i >= 0; i--) {
+				if (i != removed) {
+					assertEquals(i, index.remove(run[i]));
+				}
+			}
+			assertEquals(100, index.remove(inside));
+			assertEquals(-1, index.remove(inside));
+		}
+	}
+
+	@Test
+	public void testWrapAround() throws Exception {
+		int mask = INITIAL_CAPACITY - 1;
+		// Three keys with the last slot as home slot occupy the last and the
+		// first two slots, a key with the first slot is pushed behind them
+		long[] last = keys(mask, mask, 3);
+		long first = keys(0, mask, 1)[0];
+
+		for (int removed = 0; removed < last.length; removed++) {
+			ArcIndex index = new ArcIndex();
+			for (int i = 0; i < last.length; i++) {
+				index.put(last[i], i);
+			}
+			index.put(first, 100);
+
+			assertEquals(removed, index.remove(last[removed]));
+			for (int i = 0; i < last.length; i++) {
+				assertEquals(i == removed ? -1 : i, index.get(last[i]));
+			}
+			assertEquals(100, index.get(first));
+
+			assertEquals(100, index.remove(first));
+			for (int i = 0; i < last.length; i++) {
+				assertEquals(i == removed ? -1 : i, index.get(last[i]));
+			}
+		}
+	}
+
+	@Test
+	public void testResize() throws Exception {
+		ArcIndex index = new ArcIndex();
+		int entries = 1000;
+		for (int i = 0; i < entries; i++) {
+			index.put(ArcIndex.key(i, i + 1), i);
+			assertTrue(capacity(index) >= 2 * (i + 1));
+		}
+		for (int i = 0; i < entries; i++) {
+			assertEquals(i, index.get(ArcIndex.key(i, i + 1)));
+		}
+
+		// A reservation resizes once, so that the puts do not resize
+		index.reserve(entries);
+		int capacity = capacity(index);
+		assertTrue(capacity >= 4 * entries);
+		for (int i = entries; i < 2 * entries; i++) {
+			index.put(ArcIndex.key(i, i + 1), i);
+		}
+		assertEquals(capacity, capacity(index));
+		for (int i = 0; i < 2 * entries; i++) {
+			assertEquals(i, index.remove(ArcIndex.key(i, i + 1)));
+		}
+
+		index.clear();
+		assertEquals(INITIAL_CAPACITY, capacity(index));
+		assertEquals(-1, index.get(ArcIndex.key(0, 1)));
+	}
+
+	@Test
+	public void testParallelArcs() {
+		ArcIndex index = new ArcIndex();
+		long key = ArcIndex.key(7, 8);
+		index.put(key, 1);
+		index.put(key, 2);
+		index.put(key, 3);
+
+		assertTrue(index.replace(key, 2, 20));
+		assertFalse(index.replace(key, 2, 21));
+		assertFalse(index.replace(ArcIndex.key(8, 7), 1, 10));
+
+		List<Integer> values = new ArrayList<Integer>();
+		for (int value = index.remove(key); value >= 0; value = index
+				.remove(key)) {
+			values.add(value);
+		}
+		assertEquals(3, values.size());
+		assertTrue(values.contains(1));
+		assertTrue(values.contains(20));
+		assertTrue(values.contains(3));
+	}
+
+	@Test
+	public void testRandomOperations() {
+		Random random = new Random(0);
+		ArcIndex index = new ArcIndex();
+		Map<Long, List<Integer>> reference = new HashMap<Long, List<Integer>>();
+		for (int step = 0; step < 100000; step++) {
+			// Few nodes, so that keys collide and repeat
+			long key = ArcIndex.key(random.nextInt(20), random.nextInt(20));
+			List<Integer> values = reference.get(key);
+			if (values == null) {
+				values = new ArrayList<Integer>();
+				reference.put(key, values);
+			}
+			if (random.nextInt(3) == 0) {
+				int value = index.remove(key);
+				if (values.isEmpty()) {
+					assertEquals(-1, value);
+				} else {
+					assertTrue(values.remove(Integer.valueOf(value)));
+				}
+			} else {
+				index.put(key, step);
+				values.add(step);
+			}
+		}
+		for (Map.Entry<Long, List<Integer>> entry : reference.entrySet()) {
+			int value = index.get(entry.getKey());
+			if (entry.getValue().isEmpty()) {
+				assertEquals(-1, value);
+			} else {
+				assertTrue(entry.getValue().contains(value));
+			}
+		}
+	}
+
+	/**
+	 * Finds keys with the given home slot.
+	 * 
+	 * @param home
+	 *            The home slot.
+	 * @param mask
+	 *            The mask of the table size.
+	 * @param count
+	 *            The number of keys.
+	 * @return The keys.
+	 * @throws Exception
+	 *             if the slot function cannot be called.
+	 */
+	private static long[] keys(int home, int mask, int count)
+			throws Exception {
+		Method slot = ArcIndex.class.getDeclaredMethod("slot", long.class,
+				int.class);
+		slot.setAccessible(true);
+		long[] keys = new long[count];
+		int found = 0;
+		for (int target = 0; found < count; target++) {
+			long key = ArcIndex.key(1, target);
+			if ((Integer) slot.invoke(null, key, mask) == home) {
+				keys[found++] = key;
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Get the number of slots of an index.
+	 * 
+	 * @param index
+	 *            The index.
+	 * @return The number of slots.
+	 * @throws Exception
+	 *             if the table cannot be accessed.
+	 */
+	private static int capacity(ArcIndex index) throws Exception {
+		Field keys = ArcIndex.class.getDeclaredField("keys");
+		keys.setAccessible(true);
+		return ((long[]) keys.get(index)).length;
+	}
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.petrinet.transformation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.jena.uni.mojo.plugin.pnml.generator.PNMLGenerator;
+import de.jena.uni.mojo.plugin.pnml.parser.PNMLParser;
+import de.jena.uni.mojo.plugin.pnml.parser.PetriNetTableBuilder;
+import de.jena.uni.mojo.plugin.pnml.parser.pnml.PetriNetContext;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.CompactPetriNet;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.PNode;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.PetriNet;
+
+/**
+ * Checks that the sequential, the fused and the table based normalization
+ * produce the same net for all shapes of the generator and both end place
+ * strategies.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PetriNetTransformationTest {
+
+	/**
+	 * The numbers of nodes of the generated nets.
+	 */
+	private static final int[] SIZES = { 5, 40, 3000 };
+
+	/**
+	 * The number of refinement rounds of the canonical form.
+	 */
+	private static final int ROUNDS = 6;
+
+	@Test
+	public void testEquivalenceWithoutSimpleEndPlace() throws Exception {
+		checkEquivalence(false);
+	}
+
+	@Test
+	public void testEquivalenceWithSimpleEndPlace() throws Exception {
+		checkEquivalence(true);
+	}
+
+	/**
+	 * Normalize each generated net in the three ways and compare their
+	 * canonical forms.
+	 * 
+	 * @param simpleEndPlace
+	 *            Whether the end places are combined by a simple or
+	 *            transition.
+	 * @throws Exception
+	 *             if the generation or the parsing fails.
+	 */
+	private void checkEquivalence(boolean simpleEndPlace) throws Exception {
+		for (PNMLGenerator.Shape shape : PNMLGenerator.Shape.values()) {
+			for (int size : SIZES) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				new PNMLGenerator(shape, size).write(out);
+				byte[] document = out.toByteArray();
+				String message = shape + " with " + size + " nodes";
+
+				PetriNetTransformation sequential = new PetriNetTransformation();
+				String expected = canonical(CompactPetriNet.of(sequential
+						.transform(parse(document), new PetriNetContext(),
+								simpleEndPlace)));
+
+				PetriNetTransformation fused = new PetriNetTransformation();
+				fused.setFused(true);
+				assertEquals(message + " (fused)", expected,
+						canonical(CompactPetriNet.of(fused.transform(
+								parse(document), new PetriNetContext(),
+								simpleEndPlace))));
+
+				PetriNetTableBuilder builder = new PetriNetTableBuilder();
+				new PNMLParser().parse(new ByteArrayInputStream(document),
+						builder);
+				assertEquals(message + " (table)", expected,
+						canonical(new PetriNetTableTransformation()
+								.transform(builder.getTable(),
+										new PetriNetContext(), simpleEndPlace)
+								.toCompact()));
+			}
+		}
+	}
+
+	/**
+	 * Parse the first net of the document.
+	 * 
+	 * @param document
+	 *            The PNML document.
+	 * @return The parsed petri net.
+	 * @throws Exception
+	 *             if the parsing fails.
+	 */
+	private PetriNet parse(byte[] document) throws Exception {
+		return new PNMLParser().parseAll(new ByteArrayInputStream(document))
+				.get(0);
+	}
+
+	/**
+	 * Determine a canonical form of the net that does not depend on the
+	 * order of its nodes. Each node starts with its kind, its initial flag
+	 * and its id and is refined by the labels of its neighbors. Nodes added
+	 * by the normalization get the same label since their ids depend on the
+	 * order in which they were created.
+	 * 
+	 * @param net
+	 *            The compact petri net.
+	 * @return The canonical form.
+	 */
+	private String canonical(CompactPetriNet net) {
+		int n = net.getNodeCount();
+		String[] labels = new String[n];
+		for (int node = 0; node < n; node++) {
+			labels[node] = net.getKind(node) + (net.isInitial(node) ? "*" : "")
+					+ label(net.getElement(node));
+		}
+		for (int round = 0; round < ROUNDS; round++) {
+			String[] refined = new String[n];
+			for (int node = 0; node < n; node++) {
+				List<String> successors = new ArrayList<String>();
+				for (int k = net.getSuccessorOffset(node); k < net
+						.getSuccessorOffset(node + 1); k++) {
+					successors.add(labels[net.getSuccessor(k)] + "#"
+							+ net.getSuccessorWeight(k));
+				}
+				List<String> predecessors = new ArrayList<String>();
+				for (int k = net.getPredecessorOffset(node); k < net
+						.getPredecessorOffset(node + 1); k++) {
+					predecessors.add(labels[net.getPredecessor(k)]);
+				}
+				Collections.sort(successors);
+				Collections.sort(predecessors);
+				refined[node] = Integer.toHexString((labels[node]
+						+ successors + predecessors).hashCode());
+			}
+			labels = refined;
+		}
+		Arrays.sort(labels);
+		return n + "/" + net.getArcCount() + "/" + Arrays.toString(labels);
+	}
+
+	/**
+	 * The label of a process element.
+	 * 
+	 * @param element
+	 *            The process element (a node or its id).
+	 * @return The label.
+	 */
+	private String label(Object element) {
+		String id = element instanceof PNode ? ((PNode) element).id : String
+				.valueOf(element);
+		return id.startsWith("px") || id.startsWith("tx") ? "NEW" : id;
+	}
+
+}
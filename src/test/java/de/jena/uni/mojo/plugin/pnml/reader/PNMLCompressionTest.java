@@ -0,0 +1,215 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZOutputStream;
+
+import com.github.luben.zstd.ZstdOutputStream;
+
+import de.jena.uni.mojo.analysis.information.AnalysisInformation;
+import de.jena.uni.mojo.plugin.pnml.PNMLConfiguration;
+import de.jena.uni.mojo.plugin.pnml.generator.PNMLGenerator;
+
+/**
+ * Checks that compressed documents are detected by their first bytes and
+ * decompressed, that plain documents are passed through and that documents
+ * of an unsupported compression are rejected.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PNMLCompressionTest {
+
+	/**
+	 * The number of nodes of the generated net.
+	 */
+	private static final int NODES = 300;
+
+	@Test
+	public void testPlain() throws Exception {
+		byte[] document = document();
+		File file = write(document);
+		try {
+			assertFalse(PNMLCompression.isCompressed(file));
+			assertTrue(Arrays.equals(document,
+					decompress(new ByteArrayInputStream(document))));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testGzip() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		check(new GZIPOutputStream(out), out);
+	}
+
+	@Test
+	public void testXz() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		check(new XZOutputStream(out, new LZMA2Options()), out);
+	}
+
+	@Test
+	public void testZstd() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		check(new ZstdOutputStream(out), out);
+	}
+
+	@Test
+	public void testUnsupported() throws Exception {
+		// The first bytes of bzip2 and of LZ4 frames
+		byte[][] headers = { { 'B', 'Z', 'h', '9', '1', 'A', 'Y', '&' },
+				{ 0x04, 0x22, 0x4D, 0x18, 0x64, 0x40, (byte) 0xA7, 0 } };
+		for (byte[] header : headers) {
+			try {
+				PNMLCompression.decompress(new ByteArrayInputStream(header));
+				fail("An unsupported compression is accepted");
+			} catch (IOException e) {
+				// Expected
+			}
+
+			File file = write(header);
+			try {
+				assertTrue(PNMLCompression.isCompressed(file));
+				PNMLReader reader = new PNMLReader(file.getName(), file,
+						new AnalysisInformation());
+				reader.setConfiguration(new PNMLConfiguration());
+				assertEquals(1, reader.analyze().size());
+			} finally {
+				file.delete();
+			}
+		}
+	}
+
+	@Test
+	public void testFileNames() {
+		assertTrue(PNMLCompression.isPNMLFileName("a.pnml"));
+		assertTrue(PNMLCompression.isPNMLFileName("a.PNML.GZ"));
+		assertTrue(PNMLCompression.isPNMLFileName("a.pnml.xz"));
+		assertTrue(PNMLCompression.isPNMLFileName("a.pnml.zst"));
+		assertFalse(PNMLCompression.isPNMLFileName("a.pnml.bz2"));
+		assertFalse(PNMLCompression.isPNMLFileName("a.xml"));
+	}
+
+	/**
+	 * Compresses a generated document and checks that the compressed file is
+	 * detected, that it is decompressed to the document and that the reader
+	 * reads it like the plain document.
+	 * 
+	 * @param compressor
+	 *            The compressing stream.
+	 * @param out
+	 *            The output of the compressing stream.
+	 * @throws Exception
+	 *             if the document cannot be compressed.
+	 */
+	private void check(OutputStream compressor, ByteArrayOutputStream out)
+			throws Exception {
+		byte[] document = document();
+		compressor.write(document);
+		compressor.close();
+		byte[] compressed = out.toByteArray();
+
+		assertTrue(Arrays.equals(document,
+				decompress(new ByteArrayInputStream(compressed))));
+
+		File plain = write(document);
+		File file = write(compressed);
+		try {
+			assertTrue(PNMLCompression.isCompressed(file));
+			PNMLConfiguration configuration = new PNMLConfiguration();
+			assertEquals(PNMLNetCacheTest.describe(PNMLNetCacheTest.read(
+					plain, configuration)), PNMLNetCacheTest
+					.describe(PNMLNetCacheTest.read(file, configuration)));
+		} finally {
+			plain.delete();
+			file.delete();
+		}
+	}
+
+	/**
+	 * Generates a document.
+	 * 
+	 * @return The document.
+	 * @throws Exception
+	 *             if the document cannot be generated.
+	 */
+	private static byte[] document() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new PNMLGenerator(PNMLGenerator.Shape.BLOCKS, NODES).write(out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decompresses a stream completely.
+	 * 
+	 * @param in
+	 *            The (compressed) stream.
+	 * @return The uncompressed bytes.
+	 * @throws IOException
+	 *             if the stream cannot be decompressed.
+	 */
+	private static byte[] decompress(InputStream in) throws IOException {
+		InputStream decompressed = PNMLCompression.decompress(in);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			for (int read = decompressed.read(buffer); read >= 0; read = decompressed
+					.read(buffer)) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		} finally {
+			decompressed.close();
+		}
+	}
+
+	/**
+	 * Writes bytes to a temporary file.
+	 * 
+	 * @param bytes
+	 *            The bytes.
+	 * @return The file.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	private static File write(byte[] bytes) throws IOException {
+		File file = File.createTempFile("compression", ".pnml");
+		Files.write(file.toPath(), bytes);
+		return file;
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import de.jena.uni.mojo.model.WorkflowGraph;
+import de.jena.uni.mojo.plugin.pnml.PNMLConfiguration;
+
+/**
+ * Checks the keys and the lists of the graph cache.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PNMLGraphCacheTest {
+
+	@Test
+	public void testOptionsWithNetCache() {
+		PNMLConfiguration configuration = new PNMLConfiguration();
+		String options = PNMLGraphCache.options(configuration, false);
+		configuration.setCacheDirectory("cache");
+		assertFalse(options.equals(PNMLGraphCache.options(configuration,
+				false)));
+	}
+
+	@Test
+	public void testUnmodifiableGraphs() throws Exception {
+		File file = File.createTempFile("graphs", ".pnml");
+		try {
+			PNMLGraphCache cache = new PNMLGraphCache(2);
+			final WorkflowGraph graph = new WorkflowGraph();
+			Callable<List<WorkflowGraph>> loader = new Callable<List<WorkflowGraph>>() {
+				@Override
+				public List<WorkflowGraph> call() {
+					List<WorkflowGraph> graphs = new ArrayList<WorkflowGraph>();
+					graphs.add(graph);
+					return graphs;
+				}
+			};
+
+			List<WorkflowGraph> loaded = cache.get(file, "", loader);
+			List<WorkflowGraph> hit = cache.get(file, "", loader);
+			assertSame(loaded, hit);
+			assertEquals(1, cache.getMissCount());
+			assertEquals(1, cache.getHitCount());
+			assertSame(graph, hit.get(0));
+			try {
+				hit.clear();
+				fail("The cached list can be changed");
+			} catch (UnsupportedOperationException e) {
+				// Expected
+			}
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,256 @@
+/**
+ * Copyright 2016 mojo Friedrich Schiller University Jena
+ * 
+ * This file is part of mojo.
+ * 
+ * mojo is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * mojo is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mojo. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jena.uni.mojo.plugin.pnml.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.jena.uni.mojo.analysis.information.AnalysisInformation;
+import de.jena.uni.mojo.model.WGNode;
+import de.jena.uni.mojo.model.WorkflowGraph;
+import de.jena.uni.mojo.plugin.pnml.PNMLConfiguration;
+import de.jena.uni.mojo.plugin.pnml.generator.PNMLGenerator;
+import de.jena.uni.mojo.plugin.pnml.petrinet.model.CompactPetriNet;
+
+/**
+ * Checks that the cache of normalized nets is transparent: a file read with
+ * an empty cache and read again from the cache gives the same workflow
+ * graphs. Furthermore, broken entries are misses that are deleted.
+ * 
+ * @author Dipl.-Inf. Thomas M. Prinz
+ * 
+ */
+public class PNMLNetCacheTest {
+
+	/**
+	 * The number of nodes of the generated nets.
+	 */
+	private static final int NODES = 200;
+
+	@Test
+	public void testHitEqualsMiss() throws Exception {
+		checkHitEqualsMiss(false);
+	}
+
+	@Test
+	public void testHitEqualsMissDirect() throws Exception {
+		checkHitEqualsMiss(true);
+	}
+
+	@Test
+	public void testBrokenEntries() throws Exception {
+		File directory = Files.createTempDirectory("netcache").toFile();
+		try {
+			PNMLNetCache cache = new PNMLNetCache(directory, 1L << 20);
+			cache.put("net", Collections.singletonList(net()));
+			File entry = new File(directory, "net.net");
+			byte[] bytes = Files.readAllBytes(entry.toPath());
+			assertNotNull(cache.get("net"));
+
+			// The node count follows the magic, the version, the net count
+			// and the id "n"
+			checkBroken(cache, entry, set(bytes, 16, -1), "negative count");
+			checkBroken(cache, entry, set(bytes, 16, Integer.MAX_VALUE),
+					"huge count");
+			checkBroken(cache, entry, set(bytes, 20, 7 << 24), "kind");
+			checkBroken(cache, entry, set(bytes, bytes.length - 8, 3),
+					"arc target");
+			checkBroken(cache, entry, set(bytes, bytes.length - 12, -1),
+					"arc source");
+			for (int length = 0; length < bytes.length; length++) {
+				checkBroken(cache, entry, Arrays.copyOf(bytes, length),
+						"truncated to " + length);
+			}
+
+			// The entry can be written again
+			cache.put("net", Collections.singletonList(net()));
+			assertNotNull(cache.get("net"));
+		} finally {
+			for (File entry : directory.listFiles()) {
+				entry.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	/**
+	 * Writes a broken entry and checks that it is a miss and is deleted.
+	 * 
+	 * @param cache
+	 *            The cache.
+	 * @param entry
+	 *            The file of the entry.
+	 * @param bytes
+	 *            The broken bytes of the entry.
+	 * @param label
+	 *            The label of the breakage.
+	 * @throws Exception
+	 *             if the entry cannot be written.
+	 */
+	private void checkBroken(PNMLNetCache cache, File entry, byte[] bytes,
+			String label) throws Exception {
+		Files.write(entry.toPath(), bytes);
+		assertNull(label, cache.get("net"));
+		assertFalse(label + " (deleted)", entry.exists());
+	}
+
+	/**
+	 * Copies bytes and replaces an int of the copy.
+	 * 
+	 * @param bytes
+	 *            The bytes.
+	 * @param position
+	 *            The position of the int.
+	 * @param value
+	 *            The new value of the int.
+	 * @return The copy.
+	 */
+	private static byte[] set(byte[] bytes, int position, int value) {
+		byte[] copy = bytes.clone();
+		ByteBuffer.wrap(copy).putInt(position, value);
+		return copy;
+	}
+
+	/**
+	 * Builds a net "n" with a place p, a transition t and a place q in a
+	 * sequence.
+	 * 
+	 * @return The net.
+	 */
+	private static CompactPetriNet net() {
+		BitSet initial = new BitSet();
+		initial.set(0);
+		return CompactPetriNet.build("n", new byte[] { CompactPetriNet.PLACE,
+				CompactPetriNet.TRANSITION, CompactPetriNet.PLACE },
+				new String[] { "p", "t", "q" }, new Object[] { "p", "t", "q" },
+				initial, 2, new int[] { 0, 1 }, new int[] { 1, 2 }, new int[] {
+						1, 1 });
+	}
+
+	/**
+	 * Reads a generated file of each shape twice with a new cache and
+	 * compares the graphs of the miss with the graphs of the hit.
+	 * 
+	 * @param direct
+	 *            Whether the direct transformation is used.
+	 * @throws Exception
+	 *             if a file cannot be written.
+	 */
+	private void checkHitEqualsMiss(boolean direct) throws Exception {
+		File directory = Files.createTempDirectory("netcache").toFile();
+		File file = File.createTempFile("cache", ".pnml");
+		try {
+			PNMLConfiguration configuration = new PNMLConfiguration();
+			configuration.setCacheDirectory(directory.getPath());
+			configuration.setDirectTransformation(direct);
+
+			for (PNMLGenerator.Shape shape : PNMLGenerator.Shape.values()) {
+				new PNMLGenerator(shape, NODES).write(file);
+
+				String miss = describe(read(file, configuration));
+				assertEquals(shape + " (entry)", 1, entries(directory));
+				String hit = describe(read(file, configuration));
+				assertEquals(shape + " (entry)", 1, entries(directory));
+				assertEquals(shape.toString(), miss, hit);
+
+				for (File entry : directory.listFiles()) {
+					entry.delete();
+				}
+			}
+		} finally {
+			file.delete();
+			for (File entry : directory.listFiles()) {
+				entry.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	/**
+	 * Reads a file with a new reader.
+	 * 
+	 * @param file
+	 *            The PNML file.
+	 * @param configuration
+	 *            The configuration of the reader.
+	 * @return The workflow graphs.
+	 */
+	static List<WorkflowGraph> read(File file,
+			PNMLConfiguration configuration) {
+		PNMLReader reader = new PNMLReader(file.getName(), file,
+				new AnalysisInformation());
+		reader.setConfiguration(configuration);
+		assertTrue("Annotations", reader.analyze().isEmpty());
+		return reader.getGraphs();
+	}
+
+	/**
+	 * Get the number of entries of a cache directory.
+	 * 
+	 * @param directory
+	 *            The directory.
+	 * @return The number of entries.
+	 */
+	static int entries(File directory) {
+		File[] files = directory.listFiles();
+		return files == null ? 0 : files.length;
+	}
+
+	/**
+	 * Describes workflow graphs by the type, the process elements (with their
+	 * classes) and the successors of each node in the order of the nodes.
+	 * 
+	 * @param graphs
+	 *            The workflow graphs.
+	 * @return The description.
+	 */
+	static String describe(List<WorkflowGraph> graphs) {
+		StringBuilder description = new StringBuilder();
+		for (WorkflowGraph graph : graphs) {
+			List<WGNode> nodes = graph.getNodeListInclusive();
+			for (WGNode node : nodes) {
+				description.append(node.getType()).append('[');
+				for (Object element : node.getProcessElements()) {
+					description.append(element.getClass().getSimpleName())
+							.append(':').append(element).append(',');
+				}
+				description.append("]->");
+				for (WGNode successor : node.getSuccessors()) {
+					description.append(nodes.indexOf(successor)).append(',');
+				}
+				description.append('\n');
+			}
+			description.append('\n');
+		}
+		return description.toString();
+	}
+}